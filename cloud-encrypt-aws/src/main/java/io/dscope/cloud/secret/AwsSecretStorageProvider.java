@@ -0,0 +1,19 @@
+package io.dscope.cloud.secret;
+
+import java.util.Set;
+
+/**
+ * {@link SecretStorageProvider} for AWS Secrets Manager.
+ */
+public final class AwsSecretStorageProvider implements SecretStorageProvider {
+
+    @Override
+    public Set<String> names() {
+        return Set.of("aws", "amazon");
+    }
+
+    @Override
+    public CloudSecretStorageService create(CloudSecretConfig config) throws Exception {
+        return new AwsSecretStorageService(config.getRequired("region"));
+    }
+}
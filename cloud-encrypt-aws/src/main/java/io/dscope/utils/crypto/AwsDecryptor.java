@@ -0,0 +1,36 @@
+package io.dscope.utils.crypto;
+
+import com.amazonaws.services.kms.AWSKMS;
+import com.amazonaws.services.kms.AWSKMSClientBuilder;
+import com.amazonaws.services.kms.model.DecryptRequest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class AwsDecryptor implements CloudDecryptor {
+    private final HedgedInvoker regions;
+    private final Map<String, AWSKMS> clients = new ConcurrentHashMap<>();
+
+    public AwsDecryptor(Map<String, String> config) {
+        this.regions = new HedgedInvoker("aws",
+                HedgedInvoker.endpointList(config, "regions", "region", "us-west-2"), config);
+    }
+
+    @Override
+    public String decrypt(String cipherBase64) throws Exception {
+        byte[] encrypted = Base64.getDecoder().decode(cipherBase64);
+        ByteBuffer plainBuffer = regions.hedged(region -> {
+            DecryptRequest req = new DecryptRequest().withCiphertextBlob(ByteBuffer.wrap(encrypted));
+            return client(region).decrypt(req).getPlaintext();
+        });
+        byte[] plain = ByteBufferUtils.copyRemaining(plainBuffer);
+        return new String(plain, StandardCharsets.UTF_8);
+    }
+
+    private AWSKMS client(String region) {
+        return clients.computeIfAbsent(region, r -> AWSKMSClientBuilder.standard().withRegion(r).build());
+    }
+}
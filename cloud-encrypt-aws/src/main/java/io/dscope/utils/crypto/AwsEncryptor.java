@@ -0,0 +1,59 @@
+package io.dscope.utils.crypto;
+
+import com.amazonaws.services.kms.AWSKMS;
+import com.amazonaws.services.kms.AWSKMSClientBuilder;
+import com.amazonaws.services.kms.model.EncryptRequest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class AwsEncryptor implements CloudEncryptor {
+    private final HedgedInvoker regions;
+    private final Map<String, AWSKMS> clients = new ConcurrentHashMap<>();
+    private final String keyId;
+
+    public AwsEncryptor(Map<String, String> config) {
+        this.regions = new HedgedInvoker("aws",
+                HedgedInvoker.endpointList(config, "regions", "region", "us-west-2"), config);
+        String key = config.get("keyId");
+        if (key == null || key.isBlank()) {
+            throw new IllegalArgumentException("AWS keyId is required");
+        }
+        this.keyId = key;
+    }
+
+    @Override
+    public String encrypt(String plainText) throws Exception {
+        byte[] plainBytes = plainText.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer cipher = regions.failover(region -> {
+            EncryptRequest req = new EncryptRequest()
+                    .withKeyId(keyIdFor(keyId, region))
+                    .withPlaintext(ByteBuffer.wrap(plainBytes));
+            return client(region).encrypt(req).getCiphertextBlob();
+        });
+        return Base64.getEncoder().encodeToString(ByteBufferUtils.copyRemaining(cipher));
+    }
+
+    /**
+     * Multi-region key replicas share the key id but not the ARN, so a key ARN is re-targeted at the region being
+     * called. Aliases and bare key ids are passed through unchanged.
+     */
+    static String keyIdFor(String keyId, String region) {
+        if (!keyId.startsWith("arn:")) {
+            return keyId;
+        }
+        String[] parts = keyId.split(":", 6);
+        if (parts.length < 6) {
+            return keyId;
+        }
+        parts[3] = region;
+        return String.join(":", parts);
+    }
+
+    private AWSKMS client(String region) {
+        return clients.computeIfAbsent(region, r -> AWSKMSClientBuilder.standard().withRegion(r).build());
+    }
+}
@@ -0,0 +1,25 @@
+package io.dscope.utils.crypto;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link KmsProvider} for AWS KMS.
+ */
+public final class AwsKmsProvider implements KmsProvider {
+
+    @Override
+    public Set<String> names() {
+        return Set.of("aws");
+    }
+
+    @Override
+    public CloudEncryptor createEncryptor(Map<String, String> config) {
+        return new AwsEncryptor(config);
+    }
+
+    @Override
+    public CloudDecryptor createDecryptor(Map<String, String> config) {
+        return new AwsDecryptor(config);
+    }
+}
@@ -0,0 +1,19 @@
+package io.dscope.cloud.secret;
+
+import java.util.Set;
+
+/**
+ * {@link SecretStorageProvider} for Azure Key Vault secrets.
+ */
+public final class AzureSecretStorageProvider implements SecretStorageProvider {
+
+    @Override
+    public Set<String> names() {
+        return Set.of("azure");
+    }
+
+    @Override
+    public CloudSecretStorageService create(CloudSecretConfig config) throws Exception {
+        return new AzureSecretStorageService(config.getRequired("vaultUrl"));
+    }
+}
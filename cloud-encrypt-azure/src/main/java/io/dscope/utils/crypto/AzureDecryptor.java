@@ -0,0 +1,48 @@
+package io.dscope.utils.crypto;
+
+import com.azure.core.credential.TokenCredential;
+import com.azure.identity.DefaultAzureCredentialBuilder;
+import com.azure.security.keyvault.keys.cryptography.CryptographyClient;
+import com.azure.security.keyvault.keys.cryptography.CryptographyClientBuilder;
+import com.azure.security.keyvault.keys.cryptography.models.DecryptResult;
+import com.azure.security.keyvault.keys.cryptography.models.EncryptionAlgorithm;
+import java.util.Base64;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Azure Key Vault decryptor. Values written as {@code version:base64} by {@link AzureEncryptor} are decrypted with
+ * that key version, so values encrypted just before or after a rotation decrypt alike; bare base64 values use the
+ * configured {@code keyId}. One client is kept per version seen.
+ */
+public class AzureDecryptor implements CloudDecryptor {
+    private final String keyId;
+    private final TokenCredential credential;
+    private final CryptographyClient client;
+    private final Map<String, CryptographyClient> versions = new ConcurrentHashMap<>();
+
+    public AzureDecryptor(Map<String, String> config) {
+        this.keyId = config.get("keyId");
+        this.credential = new DefaultAzureCredentialBuilder().build();
+        this.client = client(keyId);
+    }
+
+    @Override
+    public String decrypt(String cipherBase64) {
+        int colon = cipherBase64.indexOf(':');
+        CryptographyClient target = colon < 0 ? client
+                : versions.computeIfAbsent(cipherBase64.substring(0, colon),
+                        version -> client(AzureEncryptor.versioned(keyId, version)));
+        byte[] encrypted = Base64.getDecoder().decode(cipherBase64.substring(colon + 1));
+        DecryptResult result = target.decrypt(EncryptionAlgorithm.RSA_OAEP, encrypted);
+        return new String(result.getPlainText(), StandardCharsets.UTF_8);
+    }
+
+    private CryptographyClient client(String keyIdentifier) {
+        return new CryptographyClientBuilder()
+                .keyIdentifier(keyIdentifier)
+                .credential(credential)
+                .buildClient();
+    }
+}
@@ -0,0 +1,166 @@
+package io.dscope.utils.crypto;
+
+import com.azure.identity.DefaultAzureCredentialBuilder;
+import com.azure.security.keyvault.keys.cryptography.CryptographyClient;
+import com.azure.security.keyvault.keys.cryptography.CryptographyClientBuilder;
+import com.azure.security.keyvault.keys.cryptography.models.EncryptResult;
+import com.azure.security.keyvault.keys.cryptography.models.EncryptionAlgorithm;
+import com.azure.security.keyvault.keys.models.JsonWebKey;
+import com.azure.security.keyvault.keys.models.KeyType;
+import com.azure.security.keyvault.keys.models.KeyVaultKey;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.spec.MGF1ParameterSpec;
+import java.util.Base64;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Azure Key Vault encryptor. RSA-OAEP only needs the public key, so the key's public JWK is fetched once, cached
+ * process-wide and used to encrypt locally; only {@link AzureDecryptor} has to call the vault. Keys are re-fetched
+ * after {@code publicKeyTtlSeconds} (default 300) so a rotation or a disabled key is picked up. Keys that are not RSA
+ * fall back to remote encryption, as do keys that cannot be read (no {@code get} permission, transient errors) until a
+ * retry shortly after succeeds.
+ *
+ * <p>A versionless {@code keyId} names whichever version is current, and the cached public key can lag behind a
+ * rotation by up to the TTL. Each value is therefore written as {@code version:base64}, naming the key version that
+ * actually encrypted it, and {@link AzureDecryptor} decrypts with that version. Values without a version (written
+ * before this format) are decrypted with the configured key.</p>
+ */
+public class AzureEncryptor implements CloudEncryptor {
+
+    private static final PublicKeyCache PUBLIC_KEYS = new PublicKeyCache();
+    private static final OAEPParameterSpec RSA_OAEP = new OAEPParameterSpec(
+            "SHA-1", "MGF1", MGF1ParameterSpec.SHA1, PSource.PSpecified.DEFAULT);
+
+    private final CryptographyClient client;
+    private final String keyId;
+    private final long ttlNanos;
+
+    public AzureEncryptor(Map<String, String> config) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds(config.get("publicKeyTtlSeconds")));
+        this.keyId = config.get("keyId");
+        this.client = new CryptographyClientBuilder()
+                .keyIdentifier(keyId)
+                .credential(new DefaultAzureCredentialBuilder().build())
+                .buildClient();
+    }
+
+    @Override
+    public String encrypt(String plainText) throws GeneralSecurityException {
+        byte[] plainBytes = plainText.getBytes(StandardCharsets.UTF_8);
+        PublicKeyCache.Fetched key = PUBLIC_KEYS.get(keyId, ttlNanos, System.nanoTime(), this::fetch);
+        if (key.publicKey() == null) {
+            EncryptResult result = client.encrypt(EncryptionAlgorithm.RSA_OAEP, plainBytes);
+            return format(version(result.getKeyId()), result.getCipherText());
+        }
+        return format(key.version(), encryptLocally(key.publicKey(), plainBytes));
+    }
+
+    private static long ttlSeconds(String value) {
+        try {
+            long seconds = value != null && !value.isBlank() ? Long.parseLong(value.trim()) : 300;
+            if (seconds < 0) {
+                throw new IllegalArgumentException("Invalid publicKeyTtlSeconds: " + value + " (must not be negative)");
+            }
+            return seconds;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid publicKeyTtlSeconds: " + value, ex);
+        }
+    }
+
+    /** {@code version:base64}, or plain base64 when the version is unknown. */
+    static String format(String version, byte[] cipherText) {
+        String encoded = Base64.getEncoder().encodeToString(cipherText);
+        return version != null ? version + ":" + encoded : encoded;
+    }
+
+    /** The version segment of a Key Vault key URL ({@code .../keys/NAME/VERSION}), or {@code null} if it has none. */
+    static String version(String kid) {
+        String[] segments = kidSegments(kid);
+        return segments.length > 1 && !segments[1].isEmpty() ? segments[1] : null;
+    }
+
+    /** {@code keyId} pinned to {@code version}, replacing any version it already names. */
+    static String versioned(String keyId, String version) {
+        int keys = keyId.indexOf("/keys/");
+        String[] segments = kidSegments(keyId);
+        if (keys < 0 || segments[0].isEmpty()) {
+            throw new IllegalArgumentException("Not a Key Vault key URL: " + keyId);
+        }
+        return keyId.substring(0, keys + "/keys/".length()) + segments[0] + "/" + version;
+    }
+
+    private static String[] kidSegments(String kid) {
+        int keys = kid == null ? -1 : kid.indexOf("/keys/");
+        if (keys < 0) {
+            return new String[] {""};
+        }
+        String rest = kid.substring(keys + "/keys/".length());
+        int query = rest.indexOf('?');
+        return (query < 0 ? rest : rest.substring(0, query)).split("/");
+    }
+
+    static byte[] encryptLocally(PublicKey publicKey, byte[] plainBytes) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("RSA/ECB/OAEPWithSHA-1AndMGF1Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, publicKey, RSA_OAEP);
+        return cipher.doFinal(plainBytes);
+    }
+
+    private PublicKeyCache.Fetched fetch() {
+        KeyVaultKey key = client.getKey();
+        JsonWebKey jwk = key.getKey();
+        KeyType type = jwk != null ? jwk.getKeyType() : null;
+        if (!KeyType.RSA.equals(type) && !KeyType.RSA_HSM.equals(type)) {
+            return new PublicKeyCache.Fetched(null, null);
+        }
+        return new PublicKeyCache.Fetched(jwk.toRsa(false).getPublic(), key.getProperties().getVersion());
+    }
+
+    /**
+     * Public keys by key id. Every entry, versioned or not, expires after the TTL, so a disabled or rotated key is
+     * noticed. A failed fetch is not cached for the full TTL: a key fetched earlier stays in use, otherwise encryption
+     * goes to the vault, and the fetch is retried after {@link #RETRY_NANOS}.
+     */
+    static final class PublicKeyCache {
+        static final long RETRY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+        /** Reads the key from the vault; a {@code null} public key means it cannot be used locally (not RSA). */
+        @FunctionalInterface
+        interface Fetcher {
+            Fetched fetch();
+        }
+
+        /** A public key and the key version it belongs to. */
+        record Fetched(PublicKey publicKey, String version) { }
+
+        private static final Fetched REMOTE = new Fetched(null, null);
+
+        private final Map<String, CachedPublicKey> entries = new ConcurrentHashMap<>();
+
+        /** The key to encrypt with; its public key is {@code null} when encryption has to go to the vault. */
+        Fetched get(String keyId, long ttlNanos, long now, Fetcher fetcher) {
+            CachedPublicKey cached = entries.get(keyId);
+            if (cached != null && now - cached.expiresAt() < 0) {
+                return cached.key();
+            }
+            CachedPublicKey next;
+            try {
+                next = new CachedPublicKey(fetcher.fetch(), now + ttlNanos);
+            } catch (RuntimeException ex) {
+                next = new CachedPublicKey(cached != null ? cached.key() : REMOTE,
+                        now + Math.min(ttlNanos, RETRY_NANOS));
+            }
+            entries.put(keyId, next);
+            return next.key();
+        }
+    }
+
+    private record CachedPublicKey(PublicKeyCache.Fetched key, long expiresAt) { }
+}
@@ -0,0 +1,25 @@
+package io.dscope.utils.crypto;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link KmsProvider} for Azure Key Vault keys.
+ */
+public final class AzureKmsProvider implements KmsProvider {
+
+    @Override
+    public Set<String> names() {
+        return Set.of("azure");
+    }
+
+    @Override
+    public CloudEncryptor createEncryptor(Map<String, String> config) {
+        return new AzureEncryptor(config);
+    }
+
+    @Override
+    public CloudDecryptor createDecryptor(Map<String, String> config) {
+        return new AzureDecryptor(config);
+    }
+}
@@ -0,0 +1,103 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.spec.MGF1ParameterSpec;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AzureEncryptorTest {
+
+    @Test
+    void localEncryptionMatchesKeyVaultRsaOaep() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair pair = generator.generateKeyPair();
+
+        byte[] cipherText = AzureEncryptor.encryptLocally(pair.getPublic(), "secret".getBytes(StandardCharsets.UTF_8));
+
+        // Key Vault RSA-OAEP is OAEP with SHA-1 digest and MGF1/SHA-1
+        Cipher cipher = Cipher.getInstance("RSA/ECB/OAEPPadding");
+        cipher.init(Cipher.DECRYPT_MODE, pair.getPrivate(),
+                new OAEPParameterSpec("SHA-1", "MGF1", MGF1ParameterSpec.SHA1, PSource.PSpecified.DEFAULT));
+        assertEquals("secret", new String(cipher.doFinal(cipherText), StandardCharsets.UTF_8));
+        assertEquals(256, cipherText.length);
+    }
+
+    @Test
+    void failedPublicKeyFetchIsRetriedSoonInsteadOfCachedForTheTtl() throws Exception {
+        PublicKey publicKey = KeyPairGenerator.getInstance("RSA").generateKeyPair().getPublic();
+        AzureEncryptor.PublicKeyCache cache = new AzureEncryptor.PublicKeyCache();
+        AtomicInteger fetches = new AtomicInteger();
+        AzureEncryptor.PublicKeyCache.Fetcher flaky = () -> {
+            if (fetches.incrementAndGet() == 1) {
+                throw new IllegalStateException("Status code 503");
+            }
+            return new AzureEncryptor.PublicKeyCache.Fetched(publicKey, "v1");
+        };
+        long ttl = TimeUnit.SECONDS.toNanos(300);
+        String keyId = "https://vault.vault.azure.net/keys/app/0123456789abcdef";
+
+        assertTrue(cache.get(keyId, ttl, 0, flaky).publicKey() == null, "falls back to remote encryption");
+        assertTrue(cache.get(keyId, ttl, 1, flaky).publicKey() == null, "no fetch storm while the vault is failing");
+        assertEquals(1, fetches.get());
+
+        long retry = AzureEncryptor.PublicKeyCache.RETRY_NANOS;
+        assertSame(publicKey, cache.get(keyId, ttl, retry, flaky).publicKey());
+        assertSame(publicKey, cache.get(keyId, ttl, retry + ttl - 1, flaky).publicKey());
+        assertEquals(2, fetches.get());
+
+        // versioned keys expire too; a failed refresh keeps the key already in use
+        AzureEncryptor.PublicKeyCache.Fetcher down = () -> {
+            fetches.incrementAndGet();
+            throw new IllegalStateException("Status code 503");
+        };
+        assertSame(publicKey, cache.get(keyId, ttl, retry + ttl, down).publicKey());
+        assertEquals(3, fetches.get());
+    }
+
+    @Test
+    void valuesNameTheKeyVersionThatEncryptedThem() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        PublicKey before = generator.generateKeyPair().getPublic();
+        PublicKey after = generator.generateKeyPair().getPublic();
+        AzureEncryptor.PublicKeyCache cache = new AzureEncryptor.PublicKeyCache();
+        String keyId = "https://vault.vault.azure.net/keys/app";
+        long ttl = TimeUnit.SECONDS.toNanos(300);
+
+        AzureEncryptor.PublicKeyCache.Fetched cached = cache.get(keyId, ttl, 0,
+                () -> new AzureEncryptor.PublicKeyCache.Fetched(before, "v1"));
+        // rotated in the vault, but the cached key is still used until the TTL runs out
+        AzureEncryptor.PublicKeyCache.Fetched stale = cache.get(keyId, ttl, 1,
+                () -> new AzureEncryptor.PublicKeyCache.Fetched(after, "v2"));
+        assertEquals("v1", stale.version());
+        assertSame(before, stale.publicKey());
+        assertEquals(cached, stale);
+
+        String value = AzureEncryptor.format(stale.version(), new byte[] {1, 2, 3});
+        assertEquals("v1:AQID", value);
+        assertEquals("AQID", AzureEncryptor.format(null, new byte[] {1, 2, 3}));
+        assertEquals("https://vault.vault.azure.net/keys/app/v1", AzureEncryptor.versioned(keyId, "v1"));
+        assertEquals("https://vault.vault.azure.net/keys/app/v1", AzureEncryptor.versioned(keyId + "/v2", "v1"));
+        assertEquals("v2", AzureEncryptor.version(keyId + "/v2"));
+        assertTrue(AzureEncryptor.version(keyId) == null, "versionless key id");
+        assertThrows(IllegalArgumentException.class, () -> AzureEncryptor.versioned("app", "v1"));
+    }
+
+    @Test
+    void invalidPublicKeyTtlIsReportedByName() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> new AzureEncryptor(
+                Map.of("keyId", "https://vault.vault.azure.net/keys/app", "publicKeyTtlSeconds", "5m")));
+        assertEquals("Invalid publicKeyTtlSeconds: 5m", ex.getMessage());
+    }
+}
@@ -0,0 +1,1523 @@
+package io.dscope.utils.crypto;
+
+import io.dscope.cloud.kms.CloudKmsFileService;
+import io.dscope.cloud.secret.CloudSecretConfig;
+import io.dscope.cloud.secret.CloudSecretStorageFactory;
+import io.dscope.cloud.secret.CloudSecretStorageService;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.Spec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Stack;
+import java.util.StringJoiner;
+import java.util.concurrent.Callable;
+
+@Command(
+        name = "cloud-encrypt",
+    description = "Encrypt, decrypt, and audit configuration files across AWS, Azure, GCP, and OCI.",
+        mixinStandardHelpOptions = true,
+    version = "1.3.0",
+    subcommands = {
+        CloudEncryptCLI.InitCommand.class,
+        CloudEncryptCLI.StoreCommand.class,
+        CloudEncryptCLI.EncryptFileCommand.class,
+        CloudEncryptCLI.DecryptFileCommand.class,
+        CloudEncryptCLI.SecretPutCommand.class,
+        CloudEncryptCLI.SecretGetCommand.class,
+        CloudEncryptCLI.SecretDeleteCommand.class,
+        CloudEncryptCLI.KeygenCommand.class,
+        CloudEncryptCLI.WatchCommand.class,
+        CloudEncryptCLI.DaemonCommand.class
+    }
+)
+public class CloudEncryptCLI implements Callable<Integer> {
+
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private static final Gson compactGson = new Gson();
+
+    private static class Config {
+        String provider;
+        String defaultMode;
+        List<String> include;
+        List<String> exclude;
+        boolean json = false;
+        /** {@code json: stream} in the config file. */
+        boolean jsonStream = false;
+        boolean autoDetect = true;
+        /** {@code gitignore: false} walks directories without honouring {@code .gitignore}. */
+        boolean gitignore = true;
+        Map<String, String> kms = new LinkedHashMap<>();
+        String secretProvider;
+        Map<String, String> secret = new LinkedHashMap<>();
+        SensitiveKeyMatcher sensitiveKeys = SensitiveKeyMatcher.defaults();
+        /** Raw text of the loaded config file, part of the run cache fingerprint. */
+        String text = "";
+    }
+
+    private static Config config = new Config();
+
+    /**
+     * Set while running as a {@code daemon}: the loaded config, the detected provider and the KMS clients then outlive
+     * a single command.
+     */
+    private static volatile KmsClientPool warmClients;
+    private static String configStamp;
+    private static Path configLocation;
+    private static Optional<String> detectedProvider;
+
+    @Spec
+    CommandSpec spec;
+
+    @Parameters(paramLabel = "TARGET", arity = "0..*", description = "File, directory, or glob to process")
+    private final List<String> targets = new ArrayList<>();
+
+    @Option(names = "--dry-run", description = "Preview changes without writing files")
+    boolean dryRun;
+
+    @Option(names = "--decrypt", description = "Decrypt mode (default is encrypt unless overridden in config)")
+    boolean decrypt;
+
+    @Option(names = "--json", arity = "0..1", paramLabel = "FORMAT", fallbackValue = "pretty",
+            preprocessor = AttachedValuePreprocessor.class,
+            description = "Emit machine-readable JSON: one summary document, or with --json=stream one NDJSON record "
+                    + "per file as it finishes followed by a summary record")
+    String json;
+
+    @Option(names = "--metrics", arity = "0..1", paramLabel = "FORMAT", fallbackValue = "table",
+            preprocessor = AttachedValuePreprocessor.class,
+            description = "Print per-operation latency percentiles and throughput to stderr when the command ends: "
+                    + "a table, or with --metrics=json one JSON line. Goes before a subcommand name.")
+    String metrics;
+
+    @Option(names = "--jfr", arity = "0..1", paramLabel = "FILE", fallbackValue = "cloud-encrypt.jfr",
+            preprocessor = AttachedValuePreprocessor.class,
+            description = "Record a JDK Flight Recording, with KMS, envelope and secret manager events, to FILE "
+                    + "(default: ${FALLBACK-VALUE}). Goes before a subcommand name.")
+    String jfr;
+
+    @Option(names = "--check", description = "Audit for plaintext secrets and return a non-zero exit code if any are found")
+    boolean check;
+
+    @Option(names = "--threads", paramLabel = "N", defaultValue = "16",
+            description = "Files processed concurrently on virtual threads (1 = serial), default: ${DEFAULT-VALUE}")
+    int threads;
+
+    @Option(names = "--max-in-flight", paramLabel = "N", defaultValue = "64",
+            description = "Cap on outstanding KMS calls across all files (0 = unbounded), default: ${DEFAULT-VALUE}")
+    int maxInFlight;
+
+    @Option(names = "--envelope",
+            description = "Encrypt new values as ENC2(...) under one KMS-wrapped data key per file (also kms.envelope: true)")
+    boolean envelope;
+
+    @Option(names = "--no-cache",
+            description = "Process every file instead of skipping those unchanged since the last run (" + RunCache.FILE_NAME + ")")
+    boolean noCache;
+
+    @Option(names = "--changed-since", paramLabel = "REF",
+            description = "Only process files changed relative to the merge base of REF and HEAD (plus untracked files)")
+    String changedSince;
+
+    @Option(names = "--staged", description = "Only process files staged in the git index (for pre-commit hooks)")
+    boolean staged;
+
+    @Option(names = "--no-gitignore", description = "Also walk into files and directories ignored by .gitignore")
+    boolean noGitignore;
+
+    public static void main(String[] args) {
+        if (forwardable(args)) {
+            try {
+                CommandDaemon.Reply reply = CommandDaemon.forward(Paths.get(CommandDaemon.SOCKET_NAME), List.of(args));
+                if (reply != null) {
+                    System.out.print(reply.out());
+                    System.err.print(reply.err());
+                    System.exit(reply.exit());
+                }
+            } catch (IOException ex) {
+                System.err.println("⚠️  Daemon unavailable, running locally: " + ex.getMessage());
+            }
+        }
+        System.exit(commandLine().execute(args));
+    }
+
+    static CommandLine commandLine() {
+        CommandLine cmd = new CommandLine(new CloudEncryptCLI());
+        cmd.setExecutionExceptionHandler((ex, commandLine, parseResult) -> {
+            commandLine.getErr().println("❌ " + ex.getMessage());
+            return CommandLine.ExitCode.SOFTWARE;
+        });
+        cmd.setExecutionStrategy(parseResult -> {
+            String jfr = parseResult.matchedOptionValue("--jfr", null);
+            if (jfr == null) {
+                return executeMetered(cmd, parseResult);
+            }
+            // the library's events (KMS calls, envelope payloads, secret manager I/O) on top of the JDK defaults
+            Path destination = Paths.get(jfr);
+            try (Recording recording = new Recording(Configuration.getConfiguration("default"))) {
+                for (Class<? extends Event> type : List.of(KmsEncryptEvent.class, KmsDecryptEvent.class,
+                        EnvelopeSegmentEvent.class, SecretFetchEvent.class)) {
+                    recording.enable(type).withoutStackTrace();
+                }
+                recording.setName("cloud-encrypt");
+                recording.setDestination(destination);
+                recording.start();
+                try {
+                    return executeMetered(cmd, parseResult);
+                } finally {
+                    recording.stop();
+                    cmd.getErr().println("🎥 JFR recording written to " + destination);
+                    cmd.getErr().flush();
+                }
+            } catch (IOException | ParseException ex) {
+                throw new CommandLine.ExecutionException(cmd, "Cannot record to " + jfr + ": " + ex.getMessage(), ex);
+            }
+        });
+        return cmd;
+    }
+
+    private static int executeMetered(CommandLine cmd, CommandLine.ParseResult parseResult) {
+        String format = parseResult.matchedOptionValue("--metrics", null);
+        if (format == null) {
+            return new CommandLine.RunLast().execute(parseResult);
+        }
+        if (!format.equals("table") && !format.equals("json")) {
+            throw new CommandLine.ParameterException(cmd, "--metrics accepts 'table' or 'json', not '" + format + "'");
+        }
+        OperationMetrics.reset();
+        OperationMetrics.enable(true);
+        long started = System.nanoTime();
+        try {
+            return new CommandLine.RunLast().execute(parseResult);
+        } finally {
+            OperationMetrics.enable(false);
+            printMetrics(format, System.nanoTime() - started, cmd.getErr());
+        }
+    }
+
+    /** Writes what {@link OperationMetrics} recorded during a command of {@code wallNanos}. */
+    static void printMetrics(String format, long wallNanos, PrintWriter out) {
+        double seconds = Math.max(wallNanos, 1) / 1e9;
+        List<OperationMetrics.Stat> stats = OperationMetrics.snapshot();
+        if (format.equals("json")) {
+            List<Map<String, Object>> operations = new ArrayList<>();
+            for (OperationMetrics.Stat stat : stats) {
+                Map<String, Object> op = new LinkedHashMap<>();
+                op.put("operation", stat.operation());
+                op.put("provider", stat.provider());
+                op.put("count", stat.count());
+                op.put("errors", stat.errors());
+                op.put("bytes", stat.bytes());
+                op.put("p50Millis", stat.p50Nanos() / 1e6);
+                op.put("p95Millis", stat.p95Nanos() / 1e6);
+                op.put("p99Millis", stat.p99Nanos() / 1e6);
+                op.put("maxMillis", stat.maxNanos() / 1e6);
+                op.put("totalMillis", stat.totalNanos() / 1e6);
+                op.put("perSecond", stat.count() / seconds);
+                operations.add(op);
+            }
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("type", "metrics");
+            report.put("wallMillis", wallNanos / 1e6);
+            report.put("operations", operations);
+            out.println(compactGson.toJson(report));
+        } else {
+            out.printf(Locale.ROOT, "📊 Metrics (%.3f s wall)%n", seconds);
+            out.printf("%-16s %-10s %8s %6s %9s %9s %9s %9s %9s %8s%n",
+                    "OPERATION", "PROVIDER", "COUNT", "ERRORS", "P50 ms", "P95 ms", "P99 ms", "MAX ms", "OPS/s", "MB/s");
+            for (OperationMetrics.Stat stat : stats) {
+                out.printf(Locale.ROOT, "%-16s %-10s %8d %6d %9.2f %9.2f %9.2f %9.2f %9.1f %8.2f%n",
+                        stat.operation(), stat.provider().isEmpty() ? "-" : stat.provider(), stat.count(),
+                        stat.errors(), stat.p50Nanos() / 1e6, stat.p95Nanos() / 1e6, stat.p99Nanos() / 1e6,
+                        stat.maxNanos() / 1e6, stat.count() / seconds, stat.bytes() / 1e6 / seconds);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Whether a running daemon may serve {@code args}: not when disabled with {@code CLOUD_ENCRYPT_DAEMON=off}, not
+     * for the long-running {@code daemon} and {@code watch} commands, not when the command reads standard input, and
+     * not with {@code --json=stream}, whose records would only arrive once the daemon's reply is complete. Arguments
+     * that do not parse run locally, where the error is reported.
+     */
+    static boolean forwardable(String[] args) {
+        if ("off".equalsIgnoreCase(System.getenv("CLOUD_ENCRYPT_DAEMON"))) {
+            return false;
+        }
+        CommandLine.ParseResult parsed;
+        try {
+            parsed = commandLine().parseArgs(args);
+        } catch (CommandLine.ParameterException e) {
+            return false;
+        }
+        CommandLine.ParseResult sub = parsed.subcommand();
+        if (sub == null) {
+            return !"stream".equals(parsed.matchedOptionValue("--json", null));
+        }
+        String name = sub.commandSpec().name();
+        return !name.equals("daemon") && !name.equals("watch") && !sub.hasMatchedOption("--stdin");
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        loadConfig(json != null);
+
+        boolean decryptMode = decrypt || "decrypt".equalsIgnoreCase(config.defaultMode);
+        boolean checkMode = check || "check".equalsIgnoreCase(config.defaultMode);
+        if (json != null && !json.equals("pretty") && !json.equals("stream")) {
+            throw new CommandLine.ParameterException(spec.commandLine(),
+                    "--json accepts 'pretty' or 'stream', not '" + json + "'");
+        }
+        boolean jsonMode = json != null || config.json;
+        boolean jsonStream = json != null ? json.equals("stream") : config.jsonStream;
+
+        long discovery = OperationMetrics.start();
+        FileDiscovery fileDiscovery = fileDiscovery(spec, !noGitignore && config.gitignore);
+        Set<Path> targetSet = new LinkedHashSet<>();
+        boolean changedOnly = staged || changedSince != null;
+        if (staged && changedSince != null) {
+            throw new CommandLine.ParameterException(spec.commandLine(),
+                    "--staged and --changed-since cannot be combined");
+        }
+        if (changedOnly) {
+            List<Path> changed;
+            try {
+                changed = staged ? GitChanges.staged(Paths.get("")) : GitChanges.changedSince(Paths.get(""), changedSince);
+            } catch (IOException | IllegalArgumentException ex) {
+                throw new CommandLine.ParameterException(spec.commandLine(), ex.getMessage(), ex);
+            }
+            List<String> scope = !targets.isEmpty() ? targets : config.include;
+            for (Path file : changed) {
+                if (selected(file, scope, fileDiscovery)) {
+                    targetSet.add(file);
+                }
+            }
+            if (targetSet.isEmpty() && !jsonMode) {
+                spec.commandLine().getOut().println("✅ No changed files to process.");
+                return CommandLine.ExitCode.OK;
+            }
+            if (staged) {
+                List<Path> partial;
+                try {
+                    partial = GitChanges.unstaged(Paths.get(""), new ArrayList<>(targetSet));
+                } catch (IOException | IllegalArgumentException ex) {
+                    throw new CommandLine.ParameterException(spec.commandLine(), ex.getMessage(), ex);
+                }
+                if (!partial.isEmpty()) {
+                    throw new CommandLine.ParameterException(spec.commandLine(), "--staged reads the working tree, "
+                            + "but these files have unstaged changes; stage or stash them first: " + partial);
+                }
+            }
+        } else if (!targets.isEmpty()) {
+            for (String targetValue : targets) {
+                try {
+                    targetSet.addAll(fileDiscovery.resolve(targetValue));
+                } catch (InvalidPathException ex) {
+                    throw new CommandLine.ParameterException(spec.commandLine(),
+                            "Invalid target '" + targetValue + "': " + ex.getMessage(), ex);
+                } catch (IOException ex) {
+                    throw new CommandLine.ParameterException(spec.commandLine(),
+                            "Invalid target '" + targetValue + "': " + ex.getMessage(), ex);
+                }
+            }
+        } else if (config.include != null) {
+            for (String includePattern : config.include) {
+                try {
+                    targetSet.addAll(fileDiscovery.resolve(includePattern));
+                } catch (InvalidPathException ex) {
+                    throw new CommandLine.ParameterException(spec.commandLine(),
+                            "Invalid include path '" + includePattern + "' in .cloudencrypt.yml: " + ex.getMessage(), ex);
+                } catch (IOException ex) {
+                    throw new CommandLine.ParameterException(spec.commandLine(),
+                            "Invalid include path '" + includePattern + "' in .cloudencrypt.yml: " + ex.getMessage(), ex);
+                }
+            }
+        }
+
+        OperationMetrics.record("discover", "", discovery, 0, false);
+
+        if (targetSet.isEmpty() && !changedOnly) {
+            spec.commandLine().getOut().println("No target files matched. Provide a path or configure includes.");
+            spec.commandLine().usage(spec.commandLine().getOut());
+            return CommandLine.ExitCode.USAGE;
+        }
+
+        if (threads < 1) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--threads must be at least 1");
+        }
+        if (maxInFlight < 0) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--max-in-flight must not be negative");
+        }
+
+        RunCache cache = noCache || decryptMode ? null : RunCache.load(Paths.get(RunCache.FILE_NAME),
+                RunCache.fingerprint(config.sensitiveKeys.toString(), config.text));
+        List<Path> rewritten = new ArrayList<>();
+        int exit = processFiles(new ArrayList<>(targetSet), dryRun, decryptMode, jsonMode, jsonStream, checkMode,
+                threads, maxInFlight, envelope, cache, rewritten);
+        if (staged && !dryRun && !checkMode && !decryptMode && exit == CommandLine.ExitCode.OK) {
+            // the encrypted files replace what was staged, so the commit gets the encrypted values; decrypted
+            // plaintext is never staged
+            GitChanges.add(Paths.get(""), rewritten);
+        }
+        return exit;
+    }
+
+    @Command(name = "init", description = "Create a starter .cloudencrypt.yml config", mixinStandardHelpOptions = true)
+    static class InitCommand implements Callable<Integer> {
+
+        @Option(names = "--provider", paramLabel = "PROVIDER", description = "Provider to scaffold instead of auto-detecting (aws|azure|gcp|oci|local|sim)")
+        String provider;
+
+        @Override
+        public Integer call() throws Exception {
+            initConfig(provider);
+            return CommandLine.ExitCode.OK;
+        }
+    }
+
+    @Command(name = "store", description = "Encrypt a secret via KMS and optionally append it to a file", mixinStandardHelpOptions = true)
+    static class StoreCommand implements Callable<Integer> {
+
+        @Spec
+        CommandSpec spec;
+
+    @Option(names = "--provider", paramLabel = "PROVIDER", description = "Override cloud provider (aws|azure|gcp|oci|local|sim)")
+        String provider;
+
+        @Option(names = "--wrap", negatable = true, description = "Wrap ciphertext in ENC(...) (default: enabled)")
+        Boolean wrap;
+
+        @Option(names = "--stdin", description = "Read plaintext from STDIN")
+        boolean stdin;
+
+        @Option(names = "--output", paramLabel = "FILE", description = "Append ciphertext to the specified file")
+        String output;
+
+        @Option(names = "--name", paramLabel = "KEY", description = "Property key when writing key=value to --output")
+        String propertyName;
+
+        @Option(names = "--set", paramLabel = "KEY=VALUE", description = "Override provider setting (repeatable)")
+        List<String> overridePairs = new ArrayList<>();
+
+        @Parameters(index = "0", arity = "0..1", paramLabel = "SECRET", description = "Secret value or KEY=VALUE pair")
+        String secretArgument;
+
+        @Override
+        public Integer call() throws Exception {
+            loadConfig();
+
+            StoreOptions options = new StoreOptions();
+            options.wrap = wrap == null || wrap;
+            options.readStdin = stdin;
+            options.providerOverride = provider;
+            options.outputPath = output;
+            options.propertyName = propertyName;
+
+            Map<String, String> overrides = new LinkedHashMap<>();
+            for (String pair : overridePairs) {
+                try {
+                    addOverride(overrides, pair);
+                } catch (IllegalArgumentException ex) {
+                    throw new CommandLine.ParameterException(spec.commandLine(), ex.getMessage(), ex);
+                }
+            }
+            options.overrides = overrides;
+
+            if (secretArgument != null && options.propertyName == null && secretArgument.contains("=")) {
+                String[] kv = secretArgument.split("=", 2);
+                options.propertyName = kv[0];
+                options.plaintext = kv[1];
+            } else {
+                options.plaintext = secretArgument;
+            }
+
+            try {
+                executeStore(options);
+            } catch (IllegalArgumentException ex) {
+                throw new CommandLine.ParameterException(spec.commandLine(), ex.getMessage(), ex);
+            }
+
+            return CommandLine.ExitCode.OK;
+        }
+    }
+
+    @Command(name = "encrypt", description = "Encrypt a file using envelope encryption backed by Cloud KMS", mixinStandardHelpOptions = true)
+    static class EncryptFileCommand implements Callable<Integer> {
+
+        @Spec
+        CommandSpec spec;
+
+        @Option(names = "--provider", paramLabel = "PROVIDER", description = "Override cloud provider (aws|azure|gcp|oci|local|sim)")
+        String provider;
+
+        @Option(names = "--file", required = true, paramLabel = "FILE", description = "Plaintext file to encrypt")
+        Path input;
+
+        @Option(names = "--out", required = true, paramLabel = "FILE", description = "Destination file for encrypted payload")
+        Path output;
+
+        @Option(names = "--set", paramLabel = "KEY=VALUE", description = "Override provider setting (repeatable)")
+        List<String> overridePairs = new ArrayList<>();
+
+        @Override
+        public Integer call() throws Exception {
+            loadConfig();
+
+            Map<String, String> overrides = new LinkedHashMap<>();
+            for (String pair : overridePairs) {
+                try {
+                    addOverride(overrides, pair);
+                } catch (IllegalArgumentException ex) {
+                    throw new CommandLine.ParameterException(spec.commandLine(), ex.getMessage(), ex);
+                }
+            }
+
+            String resolvedProvider = resolveProvider(provider);
+            CloudKmsConfig kmsConfig = buildKmsConfig(resolvedProvider, config.kms, overrides);
+
+            CloudKmsFileService service = new CloudKmsFileService();
+            service.encryptFile(input, output, kmsConfig);
+
+            spec.commandLine().getOut().println("🔒 Encrypted " + input + " -> " + output);
+            return CommandLine.ExitCode.OK;
+        }
+    }
+
+    @Command(name = "decrypt", description = "Decrypt a file produced by the encrypt subcommand", mixinStandardHelpOptions = true)
+    static class DecryptFileCommand implements Callable<Integer> {
+
+        @Spec
+        CommandSpec spec;
+
+        @Option(names = "--provider", paramLabel = "PROVIDER", description = "Override cloud provider (aws|azure|gcp|oci|local|sim)")
+        String provider;
+
+        @Option(names = "--file", required = true, paramLabel = "FILE", description = "Encrypted payload produced by the encrypt command")
+        Path input;
+
+        @Option(names = "--out", required = true, paramLabel = "FILE", description = "Destination file for decrypted plaintext")
+        Path output;
+
+        @Option(names = "--set", paramLabel = "KEY=VALUE", description = "Override provider setting (repeatable)")
+        List<String> overridePairs = new ArrayList<>();
+
+        @Override
+        public Integer call() throws Exception {
+            loadConfig();
+
+            Map<String, String> overrides = new LinkedHashMap<>();
+            for (String pair : overridePairs) {
+                try {
+                    addOverride(overrides, pair);
+                } catch (IllegalArgumentException ex) {
+                    throw new CommandLine.ParameterException(spec.commandLine(), ex.getMessage(), ex);
+                }
+            }
+
+            String resolvedProvider = resolveProvider(provider);
+            CloudKmsConfig kmsConfig = buildKmsConfig(resolvedProvider, config.kms, overrides);
+
+            CloudKmsFileService service = new CloudKmsFileService();
+            service.decryptFile(input, output, kmsConfig);
+
+            spec.commandLine().getOut().println("🔓 Decrypted " + input + " -> " + output);
+            return CommandLine.ExitCode.OK;
+        }
+    }
+
+    @Command(name = "secret-put", description = "Persist an encrypted payload in the configured secret manager", mixinStandardHelpOptions = true)
+    static class SecretPutCommand implements Callable<Integer> {
+
+        @Spec
+        CommandSpec spec;
+
+        @Option(names = "--provider", paramLabel = "PROVIDER", description = "Override secret manager provider (aws|azure|gcp|oci|memory|sim)")
+        String provider;
+
+        @Option(names = "--name", required = true, paramLabel = "NAME", description = "Secret identifier")
+        String name;
+
+        @Option(names = "--file", required = true, paramLabel = "FILE", description = "File containing ciphertext to store")
+        Path file;
+
+        @Option(names = "--set", paramLabel = "KEY=VALUE", description = "Override provider setting (repeatable)")
+        List<String> overridePairs = new ArrayList<>();
+
+        @Option(names = "--metadata", paramLabel = "KEY=VALUE", description = "Attach metadata to the stored secret (repeatable)")
+        List<String> metadataPairs = new ArrayList<>();
+
+        @Override
+        public Integer call() throws Exception {
+            loadConfig();
+
+            Map<String, String> overrides = collectPairs(overridePairs, spec, "--set");
+            Map<String, String> metadata = collectPairs(metadataPairs, spec, "--metadata");
+
+            String resolvedProvider = resolveSecretProvider(provider);
+            CloudSecretConfig secretConfig = buildSecretConfig(resolvedProvider, config.secret, overrides);
+
+            if (!Files.exists(file) || !Files.isRegularFile(file)) {
+                throw new CommandLine.ParameterException(spec.commandLine(), "File does not exist: " + file);
+            }
+            byte[] payload = Files.readAllBytes(file);
+
+            try (CloudSecretStorageService service = CloudSecretStorageFactory.create(secretConfig)) {
+                service.putSecret(name, payload, metadata);
+            }
+
+            spec.commandLine().getOut().println("☁️  Stored secret '" + name + "' using " + resolvedProvider + " secret manager");
+            return CommandLine.ExitCode.OK;
+        }
+    }
+
+    @Command(name = "secret-get", description = "Fetch an encrypted payload from the configured secret manager", mixinStandardHelpOptions = true)
+    static class SecretGetCommand implements Callable<Integer> {
+
+        @Spec
+        CommandSpec spec;
+
+        @Option(names = "--provider", paramLabel = "PROVIDER", description = "Override secret manager provider (aws|azure|gcp|oci|memory|sim)")
+        String provider;
+
+        @Option(names = "--name", required = true, paramLabel = "NAME", description = "Secret identifier")
+        String name;
+
+        @Option(names = "--out", paramLabel = "FILE", description = "Write secret payload to file; defaults to STDOUT as Base64")
+        Path output;
+
+        @Option(names = "--set", paramLabel = "KEY=VALUE", description = "Override provider setting (repeatable)")
+        List<String> overridePairs = new ArrayList<>();
+
+        @Option(names = "--print-metadata", description = "Print metadata as JSON after retrieval")
+        boolean printMetadata;
+
+        @Override
+        public Integer call() throws Exception {
+            loadConfig();
+
+            Map<String, String> overrides = collectPairs(overridePairs, spec, "--set");
+            String resolvedProvider = resolveSecretProvider(provider);
+            CloudSecretConfig secretConfig = buildSecretConfig(resolvedProvider, config.secret, overrides);
+
+            CloudSecretStorageService.SecretRecord record;
+            try (CloudSecretStorageService service = CloudSecretStorageFactory.create(secretConfig)) {
+                record = service.getSecret(name);
+            }
+
+            if (output != null) {
+                Path parent = output.getParent();
+                if (parent != null && !Files.exists(parent)) {
+                    Files.createDirectories(parent);
+                }
+        Files.write(output, record.data(),
+            java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.TRUNCATE_EXISTING);
+                spec.commandLine().getOut().println("💾 Wrote secret payload to " + output);
+            } else {
+                String encoded = Base64.getEncoder().encodeToString(record.data());
+                spec.commandLine().getOut().println(encoded);
+            }
+
+            if (printMetadata && !record.metadata().isEmpty()) {
+                spec.commandLine().getOut().println("Metadata: " + gson.toJson(record.metadata()));
+            }
+
+            return CommandLine.ExitCode.OK;
+        }
+    }
+
+    @Command(name = "secret-delete", description = "Remove a payload from the configured secret manager", mixinStandardHelpOptions = true)
+    static class SecretDeleteCommand implements Callable<Integer> {
+
+        @Spec
+        CommandSpec spec;
+
+        @Option(names = "--provider", paramLabel = "PROVIDER", description = "Override secret manager provider (aws|azure|gcp|oci|memory|sim)")
+        String provider;
+
+        @Option(names = "--name", required = true, paramLabel = "NAME", description = "Secret identifier")
+        String name;
+
+        @Option(names = "--set", paramLabel = "KEY=VALUE", description = "Override provider setting (repeatable)")
+        List<String> overridePairs = new ArrayList<>();
+
+        @Override
+        public Integer call() throws Exception {
+            loadConfig();
+
+            Map<String, String> overrides = collectPairs(overridePairs, spec, "--set");
+            String resolvedProvider = resolveSecretProvider(provider);
+            CloudSecretConfig secretConfig = buildSecretConfig(resolvedProvider, config.secret, overrides);
+
+            try (CloudSecretStorageService service = CloudSecretStorageFactory.create(secretConfig)) {
+                service.deleteSecret(name);
+            }
+
+            spec.commandLine().getOut().println("🗑️  Scheduled deletion for secret '" + name + "' in " + resolvedProvider + " secret manager");
+            return CommandLine.ExitCode.OK;
+        }
+    }
+
+    @Command(name = "keygen", description = "Add a new key version to the keystore used by the local provider", mixinStandardHelpOptions = true)
+    static class KeygenCommand implements Callable<Integer> {
+
+        @Spec
+        CommandSpec spec;
+
+        @Option(names = "--keystore", paramLabel = "FILE", description = "PKCS12 (.p12) or JWK key set file; defaults to kms.keystore")
+        String keystore;
+
+        @Option(names = "--key", paramLabel = "NAME", description = "Key name; defaults to kms.keyId")
+        String key;
+
+        @Option(names = "--algorithm", paramLabel = "ALG", defaultValue = "aes", description = "Key algorithm (aes|rsa), default: ${DEFAULT-VALUE}")
+        String algorithm;
+
+        @Option(names = "--set", paramLabel = "KEY=VALUE", description = "Override provider setting (repeatable)")
+        List<String> overridePairs = new ArrayList<>();
+
+        @Override
+        public Integer call() throws Exception {
+            loadConfig();
+
+            Map<String, String> settings = new LinkedHashMap<>(config.kms);
+            settings.putAll(collectPairs(overridePairs, spec, "--set"));
+            if (keystore != null) {
+                settings.put("keystore", keystore);
+            }
+            String name = key != null ? key : settings.get("keyId");
+            if (name == null || name.isBlank()) {
+                throw new CommandLine.ParameterException(spec.commandLine(), "Provide --key or kms.keyId");
+            }
+            if (!"aes".equalsIgnoreCase(algorithm) && !"rsa".equalsIgnoreCase(algorithm)) {
+                throw new CommandLine.ParameterException(spec.commandLine(), "--algorithm must be aes or rsa");
+            }
+
+            String kid;
+            try {
+                kid = LocalKeyStore.generate(settings, name.replaceFirst(":\\d+$", ""), algorithm);
+            } catch (IllegalArgumentException ex) {
+                throw new CommandLine.ParameterException(spec.commandLine(), ex.getMessage(), ex);
+            }
+
+            spec.commandLine().getOut().println("🔑 Added key " + kid + " to " + settings.get("keystore"));
+            return CommandLine.ExitCode.OK;
+        }
+    }
+
+    /**
+     * Lets an option with an optional value ({@code --json}, {@code --metrics}) take it only when attached
+     * ({@code --json=stream}), so that {@code --json config/} still treats {@code config/} as a target.
+     */
+    static class AttachedValuePreprocessor implements CommandLine.IParameterPreprocessor {
+        @Override
+        public boolean preprocess(Stack<String> args, CommandSpec commandSpec, CommandLine.Model.ArgSpec argSpec,
+                                  Map<String, Object> info) {
+            if (" ".equals(info.get("separator"))) {
+                args.push(((CommandLine.Model.OptionSpec) argSpec).fallbackValue());
+            }
+            return false;
+        }
+    }
+
+    @Command(name = "watch", description = "Keep encrypting config files as they change", mixinStandardHelpOptions = true)
+    static class WatchCommand implements Callable<Integer> {
+
+        @Spec
+        CommandSpec spec;
+
+        @Parameters(paramLabel = "TARGET", arity = "0..*",
+                description = "Files, directories, or globs to watch; defaults to the configured includes, else .")
+        List<String> targets = new ArrayList<>();
+
+        @Option(names = "--debounce", paramLabel = "MS", defaultValue = "300",
+                description = "Quiet period after the last change before files are processed, default: ${DEFAULT-VALUE}")
+        long debounce;
+
+        @Option(names = "--envelope",
+                description = "Encrypt new values as ENC2(...) under one KMS-wrapped data key per file (also kms.envelope: true)")
+        boolean envelope;
+
+        @Option(names = "--no-cache",
+                description = "Do not record outcomes in " + RunCache.FILE_NAME + " (changed files are always processed)")
+        boolean noCache;
+
+        @Override
+        public Integer call() throws Exception {
+            loadConfig();
+            if (debounce < 1) {
+                throw new CommandLine.ParameterException(spec.commandLine(), "--debounce must be at least 1 ms");
+            }
+            List<String> scope = !targets.isEmpty() ? targets
+                    : config.include != null && !config.include.isEmpty() ? config.include : List.of(".");
+            List<Path> roots = new ArrayList<>();
+            for (String entry : scope) {
+                try {
+                    roots.add(FileDiscovery.base(entry));
+                } catch (InvalidPathException ex) {
+                    throw new CommandLine.ParameterException(spec.commandLine(),
+                            "Invalid target '" + entry + "': " + ex.getMessage(), ex);
+                }
+            }
+
+            FileDiscovery fileDiscovery = fileDiscovery(spec, config.gitignore);
+            String provider = resolveProvider(null);
+            RunCache cache = noCache ? null : RunCache.load(Paths.get(RunCache.FILE_NAME),
+                    RunCache.fingerprint(config.sensitiveKeys.toString(), config.text));
+            // one pool for the whole session: every batch after the first reuses authenticated clients
+            try (KmsClientPool clients = new KmsClientPool();
+                 ConfigWatcher watcher = new ConfigWatcher(roots,
+                         file -> selected(file, scope, fileDiscovery) && !fileDiscovery.ignored(file),
+                         fileDiscovery::skipped, debounce)) {
+                CloudEncryptCore.Options options = CloudEncryptCore.Options.builder(provider)
+                        .kmsConfig(config.kms)
+                        .envelope(envelope)
+                        .sensitiveKeys(config.sensitiveKeys)
+                        .runCache(cache)
+                        .clients(clients)
+                        .build();
+                PrintWriter out = spec.commandLine().getOut();
+                out.println("👀 Watching " + String.join(", ", scope) + " (" + provider + "), Ctrl+C to stop");
+                out.flush();
+                watcher.run(files -> {
+                    try {
+                        for (Map<String, Object> res : CloudEncryptCore.processFiles(files, options)) {
+                            int changed = ((Number) res.get("changed")).intValue();
+                            if (changed > 0) {
+                                out.println("🔐 " + res.get("file") + ": " + changed + " value(s) encrypted");
+                            }
+                        }
+                        if (cache != null) {
+                            cache.save();
+                        }
+                    } catch (Exception ex) {
+                        // keep watching: the next save of the file gets another attempt
+                        out.println("❌ " + ex.getMessage());
+                    }
+                    out.flush();
+                });
+            }
+            return CommandLine.ExitCode.OK;
+        }
+    }
+
+    @Command(name = "daemon", description = "Serve commands from a warm background process over a Unix domain socket",
+            mixinStandardHelpOptions = true)
+    static class DaemonCommand implements Callable<Integer> {
+
+        @Spec
+        CommandSpec spec;
+
+        @Option(names = "--idle", paramLabel = "MINUTES", defaultValue = "30",
+                description = "Exit after this long without a command (0 = never), default: ${DEFAULT-VALUE}")
+        long idleMinutes;
+
+        @Option(names = "--stop", description = "Stop the daemon serving this directory")
+        boolean stop;
+
+        @Override
+        public Integer call() throws Exception {
+            Path socket = Paths.get(CommandDaemon.SOCKET_NAME);
+            if (stop) {
+                if (!CommandDaemon.stop(socket)) {
+                    spec.commandLine().getOut().println("No daemon is running in this directory.");
+                    return CommandLine.ExitCode.USAGE;
+                }
+                spec.commandLine().getOut().println("🛑 Daemon stopped");
+                return CommandLine.ExitCode.OK;
+            }
+            if (idleMinutes < 0) {
+                throw new CommandLine.ParameterException(spec.commandLine(), "--idle must not be negative");
+            }
+            try (KmsClientPool clients = new KmsClientPool()) {
+                warmClients = clients;
+                spec.commandLine().getOut().println("🟢 Daemon listening on " + socket.toAbsolutePath());
+                spec.commandLine().getOut().flush();
+                CommandDaemon.serve(socket, Duration.ofMinutes(idleMinutes), CloudEncryptCLI::runCaptured);
+            } finally {
+                warmClients = null;
+            }
+            return CommandLine.ExitCode.OK;
+        }
+    }
+
+    /** Runs one forwarded command in this process, capturing what it prints. */
+    private static CommandDaemon.Reply runCaptured(List<String> args) {
+        if (!forwardable(args.toArray(String[]::new)) || streamsFromConfig(args)) {
+            return new CommandDaemon.Reply(CommandDaemon.DECLINED, "", "");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        PrintStream stdout = System.out;
+        PrintStream stderr = System.err;
+        int exit;
+        try (PrintStream capturedOut = new PrintStream(out, true, StandardCharsets.UTF_8);
+             PrintStream capturedErr = new PrintStream(err, true, StandardCharsets.UTF_8)) {
+            System.setOut(capturedOut);
+            System.setErr(capturedErr);
+            CommandLine cmd = commandLine();
+            cmd.setOut(new PrintWriter(capturedOut, true));
+            cmd.setErr(new PrintWriter(capturedErr, true));
+            exit = cmd.execute(args.toArray(String[]::new));
+            cmd.getOut().flush();
+            cmd.getErr().flush();
+        } finally {
+            System.setOut(stdout);
+            System.setErr(stderr);
+        }
+        return new CommandDaemon.Reply(exit, out.toString(StandardCharsets.UTF_8), err.toString(StandardCharsets.UTF_8));
+    }
+
+    /** A root command without {@code --json} that streams because the config file says {@code json: stream}. */
+    private static boolean streamsFromConfig(List<String> args) {
+        CommandLine.ParseResult parsed = commandLine().parseArgs(args.toArray(String[]::new));
+        if (parsed.subcommand() != null || parsed.hasMatchedOption("--json")) {
+            return false;
+        }
+        loadConfig(true);
+        return config.json && config.jsonStream;
+    }
+
+    private static Map<String, Object> simulatorProfile() {
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("p50", 15);
+        latency.put("p99", 120);
+        Map<String, Object> profile = new LinkedHashMap<>();
+        profile.put("latency", latency);
+        profile.put("quota", 100);
+        profile.put("errorRate", 0.01);
+        return profile;
+    }
+
+    private static void initConfig(String providerOverride) throws IOException {
+        Path path = Paths.get(".cloudencrypt.yml");
+        if (Files.exists(path)) {
+            System.out.println("⚠️  .cloudencrypt.yml already exists. Skipping creation.");
+            return;
+        }
+
+        String provider = providerOverride != null && !providerOverride.isBlank()
+                ? providerOverride.trim().toLowerCase(Locale.ROOT)
+                : Optional.ofNullable(detectProvider()).orElse("aws");
+
+        Map<String, Object> yamlData = new LinkedHashMap<>();
+        yamlData.put("provider", provider);
+        yamlData.put("defaultMode", "encrypt");
+        yamlData.put("include", List.of(
+                "src/main/resources/**/*.properties",
+                "src/main/resources/**/*.yml",
+                "src/main/resources/**/*.env"
+        ));
+        yamlData.put("exclude", List.of(
+                "target/**",
+                "build/**",
+                "node_modules/**",
+                ".git/**"
+        ));
+        yamlData.put("json", false);
+        yamlData.put("autoDetect", true);
+        Map<String, Object> sensitiveKeys = new LinkedHashMap<>();
+        sensitiveKeys.put("keywords", List.of("password", "secret", "token", "key"));
+        sensitiveKeys.put("suffixes", List.of());
+        sensitiveKeys.put("allow", List.of());
+        sensitiveKeys.put("deny", List.of());
+        sensitiveKeys.put("patterns", List.of());
+        yamlData.put("sensitiveKeys", sensitiveKeys);
+
+        Map<String, Object> kms = new LinkedHashMap<>();
+        switch (provider) {
+            case "azure" -> kms.put("keyId", "https://<key-vault-name>.vault.azure.net/keys/<key-name>");
+            case "gcp" -> {
+                kms.put("project", "your-gcp-project");
+                kms.put("location", "us-central1");
+                kms.put("keyRing", "app-secrets");
+                kms.put("key", "primary");
+            }
+            case "oci" -> {
+                kms.put("configFile", System.getProperty("user.home") + "/.oci/config");
+                kms.put("profile", "DEFAULT");
+                kms.put("endpoint", "https://<vault>-crypto.kms.<region>.oraclecloud.com");
+                kms.put("region", "us-ashburn-1");
+                kms.put("vault", "<vault>");
+                kms.put("keyId", "ocid1.key.oc1..<uniqueId>");
+            }
+            case "aws" -> {
+                kms.put("region", "us-west-2");
+                kms.put("keyId", "alias/your-key-alias");
+            }
+            case "local" -> {
+                kms.put("keystore", ".cloudencrypt-keys.jwk");
+                kms.put("keyId", "app");
+            }
+            case "sim", "simulator" -> {
+                kms.put("keyId", "sim");
+                kms.putAll(simulatorProfile());
+            }
+            default -> kms.put("keyId", "replace-with-your-key-id");
+        }
+        Map<String, Object> throttle = new LinkedHashMap<>();
+        throttle.put("maxConcurrency", 64);
+        throttle.put("maxRetries", 5);
+        throttle.put("baseDelayMs", 100);
+        kms.put("throttle", throttle);
+        yamlData.put("kms", kms);
+
+        Map<String, Object> secret = new LinkedHashMap<>();
+        secret.put("provider", provider);
+        Map<String, Object> secretSettings = new LinkedHashMap<>();
+        switch (provider) {
+            case "azure" -> secretSettings.put("vaultUrl", "https://<key-vault-name>.vault.azure.net/");
+            case "gcp" -> secretSettings.put("project", "your-gcp-project");
+            case "oci" -> {
+                secretSettings.put("compartmentId", "ocid1.compartment.oc1..exampleuniqueID");
+                secretSettings.put("vaultId", "ocid1.vault.oc1..exampleuniqueID");
+                secretSettings.put("keyId", "ocid1.key.oc1..exampleuniqueID");
+                secretSettings.put("region", "us-ashburn-1");
+            }
+            case "aws" -> secretSettings.put("region", "us-west-2");
+            case "sim", "simulator" -> secretSettings.putAll(simulatorProfile());
+            default -> secretSettings.put("providerSpecific", "update-with-real-values");
+        }
+        secret.put("settings", secretSettings);
+        yamlData.put("secret", secret);
+
+        DumperOptions opts = new DumperOptions();
+        opts.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        Yaml yaml = new Yaml(opts);
+        try (FileWriter writer = new FileWriter(path.toFile())) {
+            yaml.dump(yamlData, writer);
+        }
+
+        System.out.println("✅ Created .cloudencrypt.yml with defaults.");
+    }
+
+    private static SensitiveKeyMatcher sensitiveKeys(Map<?, ?> rules) {
+        SensitiveKeyMatcher.Builder builder = SensitiveKeyMatcher.builder();
+        if (rules.containsKey("keywords")) {
+            builder.keywords(stringList(rules.get("keywords")));
+        }
+        builder.suffixes(stringList(rules.get("suffixes")))
+                .allow(stringList(rules.get("allow")))
+                .deny(stringList(rules.get("deny")))
+                .patterns(stringList(rules.get("patterns")));
+        return builder.build();
+    }
+
+    private static List<String> stringList(Object value) {
+        List<String> out = new ArrayList<>();
+        if (value instanceof List<?> list) {
+            for (Object item : list) {
+                if (item != null) {
+                    out.add(item.toString());
+                }
+            }
+        } else if (value != null) {
+            out.add(value.toString());
+        }
+        return out;
+    }
+
+    private static void loadConfig() {
+        loadConfig(false);
+    }
+
+    /** @param quiet leave stdout to machine-readable output */
+    private static void loadConfig(boolean quiet) {
+        List<Path> locations = List.of(
+                Paths.get(".cloudencrypt.yml"),
+                Paths.get(System.getProperty("user.home"), ".cloudencrypt.yml")
+        );
+        String stamp = configStamp(locations);
+        if (warmClients != null && stamp.equals(configStamp)) {
+            // daemon: the config files are unchanged since the last command
+            if (configLocation != null && !quiet) {
+                System.out.println("⚙️  Loaded config from " + configLocation);
+            }
+            return;
+        }
+        config = new Config();
+        configStamp = stamp;
+        configLocation = null;
+
+        for (Path location : locations) {
+            if (!Files.exists(location)) {
+                continue;
+            }
+            try {
+                String text = Files.readString(location, StandardCharsets.UTF_8);
+                Yaml yaml = new Yaml();
+                Map<String, Object> data = yaml.load(text);
+                if (data == null) {
+                    continue;
+                }
+                config.text = text;
+                if (data.containsKey("provider")) {
+                    config.provider = Objects.toString(data.get("provider"), null);
+                    config.secretProvider = config.provider;
+                }
+                if (data.containsKey("defaultMode")) {
+                    config.defaultMode = Objects.toString(data.get("defaultMode"), null);
+                }
+                if (data.containsKey("include")) {
+                    config.include = new ArrayList<>();
+                    for (Object value : (List<?>) data.get("include")) {
+                        if (value != null) {
+                            config.include.add(value.toString());
+                        }
+                    }
+                }
+                if (data.containsKey("exclude")) {
+                    config.exclude = new ArrayList<>();
+                    for (Object value : (List<?>) data.get("exclude")) {
+                        if (value != null) {
+                            config.exclude.add(value.toString());
+                        }
+                    }
+                }
+                if (data.containsKey("json")) {
+                    config.jsonStream = "stream".equalsIgnoreCase(String.valueOf(data.get("json")));
+                    config.json = Boolean.TRUE.equals(data.get("json")) || config.jsonStream;
+                }
+                if (data.containsKey("autoDetect")) {
+                    config.autoDetect = Boolean.TRUE.equals(data.get("autoDetect"));
+                }
+                if (data.containsKey("gitignore")) {
+                    config.gitignore = !Boolean.FALSE.equals(data.get("gitignore"));
+                }
+                if (data.get("sensitiveKeys") instanceof Map<?, ?> rules) {
+                    config.sensitiveKeys = sensitiveKeys(rules);
+                }
+                config.kms.clear();
+                if (data.containsKey("kms")) {
+                    Object kmsObj = data.get("kms");
+                    if (kmsObj instanceof Map<?, ?> map) {
+                        flattenSettings(config.kms, "", map);
+                    }
+                }
+                config.secret.clear();
+                if (data.containsKey("secret")) {
+                    Object secretObj = data.get("secret");
+                    if (secretObj instanceof Map<?, ?> secretMap) {
+                        Object providerObj = secretMap.get("provider");
+                        if (providerObj != null) {
+                            config.secretProvider = Objects.toString(providerObj, null);
+                        }
+                        Object settingsObj = secretMap.get("settings");
+                        if (settingsObj instanceof Map<?, ?> settingsMap) {
+                            flattenSettings(config.secret, "", settingsMap);
+                        } else {
+                            Map<Object, Object> settingsMap = new LinkedHashMap<>(secretMap);
+                            settingsMap.keySet().removeIf(key -> "provider".equalsIgnoreCase(String.valueOf(key)));
+                            flattenSettings(config.secret, "", settingsMap);
+                        }
+                    }
+                }
+                if (!quiet) {
+                    System.out.println("⚙️  Loaded config from " + location);
+                }
+                configLocation = location;
+                break;
+            } catch (Exception e) {
+                System.err.println("⚠️  Failed to load config: " + e.getMessage());
+            }
+        }
+        if (config.secretProvider == null || config.secretProvider.isBlank()) {
+            config.secretProvider = config.provider;
+        }
+    }
+
+    private static String configStamp(List<Path> locations) {
+        StringJoiner stamp = new StringJoiner(";");
+        for (Path location : locations) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(location, BasicFileAttributes.class);
+                stamp.add(location + "@" + attrs.size() + "/" + attrs.lastModifiedTime().toMillis());
+            } catch (IOException ex) {
+                stamp.add(location + "@-");
+            }
+        }
+        return stamp.toString();
+    }
+
+    /**
+     * Copies a YAML settings block into a flat map. Nested blocks become dotted keys ({@code throttle.rate}) and
+     * lists are joined with commas so they can be overridden with {@code --set} like any other value.
+     */
+    static void flattenSettings(Map<String, String> target, String prefix, Map<?, ?> source) {
+        for (Map.Entry<?, ?> entry : source.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                continue;
+            }
+            String key = prefix + entry.getKey();
+            Object value = entry.getValue();
+            if (value instanceof Map<?, ?> nested) {
+                flattenSettings(target, key + ".", nested);
+            } else if (value instanceof List<?> list) {
+                List<String> items = new ArrayList<>();
+                for (Object item : list) {
+                    if (item != null) {
+                        items.add(item.toString());
+                    }
+                }
+                target.put(key, String.join(",", items));
+            } else {
+                target.put(key, Objects.toString(value, ""));
+            }
+        }
+    }
+
+    private static FileDiscovery fileDiscovery(CommandSpec spec, boolean gitignore) {
+        try {
+            FileDiscovery discovery = new FileDiscovery(config.exclude, gitignore);
+            for (String exclude : discovery.ambiguousExcludes()) {
+                System.err.println("⚠️  Exclude '" + exclude + "' is matched as a glob; write 'regex:" + exclude
+                        + "' if it is a regular expression, or 'glob:" + exclude + "' to silence this warning.");
+            }
+            return discovery;
+        } catch (IllegalArgumentException ex) {
+            throw new CommandLine.ParameterException(spec.commandLine(),
+                    "Invalid exclude pattern in .cloudencrypt.yml: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Whether a changed file falls under {@code scope} (the TARGET arguments or the configured includes) the way
+     * {@link FileDiscovery#resolve} would have found it: inside a target directory with a config file extension,
+     * matching a glob target, or being a target file itself. Without a scope, any config file in the repository
+     * qualifies. {@code .gitignore} is left to the caller.
+     */
+    static boolean selected(Path file, List<String> scope, FileDiscovery discovery) {
+        if (discovery.excluded(file)) {
+            return false;
+        }
+        boolean configFile = FileDiscovery.CONFIG_FILES.matcher(FileDiscovery.normalize(file)).matches();
+        if (scope == null || scope.isEmpty()) {
+            return configFile;
+        }
+        Path absolute = file.toAbsolutePath().normalize();
+        for (String entry : scope) {
+            if (FileDiscovery.isGlob(entry)) {
+                if (FileDiscovery.matchesGlob(entry, file)) {
+                    return true;
+                }
+            } else {
+                Path resolved = Paths.get(entry).toAbsolutePath().normalize();
+                if (absolute.equals(resolved) || (configFile && absolute.startsWith(resolved))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int processFiles(List<Path> files, boolean dryRun, boolean decryptMode,
+                                    boolean jsonMode, boolean jsonStream, boolean checkMode, int threads,
+                                    int maxInFlight, boolean envelope, RunCache cache,
+                                    List<Path> rewritten) throws Exception {
+        String provider = config.provider;
+        if ((provider == null || provider.isEmpty()) && config.autoDetect && !files.isEmpty()) {
+            provider = Optional.ofNullable(detectProvider()).orElse("unknown");
+        }
+
+        if (!jsonMode) {
+            System.out.println("☁️  Provider: " + provider);
+        }
+        List<String> insecureFiles = new ArrayList<>();
+        CloudEncryptCore.Options options = CloudEncryptCore.Options.builder(provider)
+                .kmsConfig(config.kms)
+                .dryRun(dryRun)
+                .decryptMode(decryptMode)
+                .jsonMode(jsonMode)
+                .checkMode(checkMode)
+                .threads(threads)
+                .maxInFlight(maxInFlight)
+                .envelope(envelope)
+                .sensitiveKeys(config.sensitiveKeys)
+                .onResult(res -> {
+                    if (!dryRun && ((Number) res.get("changed")).intValue() > 0) {
+                        rewritten.add(Paths.get(String.valueOf(res.get("file"))));
+                    }
+                    if (res.containsKey("unencrypted") && ((Number) res.get("unencrypted")).intValue() > 0) {
+                        insecureFiles.add(String.valueOf(res.get("file")));
+                    }
+                    if (jsonStream) {
+                        printRecord(res);
+                    } else if (!jsonMode) {
+                        printResult(res);
+                    }
+                })
+                .retainResults(jsonMode && !jsonStream)
+                .runCache(cache)
+                .clients(warmClients)
+                .build();
+        List<Map<String, Object>> results = CloudEncryptCore.processFiles(files, options);
+        if (cache != null && !dryRun) {
+            cache.save();
+        }
+        int cached = cache != null ? cache.hits() : 0;
+
+        if (jsonMode) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            if (jsonStream) {
+                summary.put("type", "summary");
+            }
+            summary.put("provider", provider);
+            summary.put("fileCount", files.size());
+            summary.put("cachedCount", cached);
+            if (!jsonStream) {
+                summary.put("results", results);
+            }
+            summary.put("mode", checkMode ? "check" : (decryptMode ? "decrypt" : "encrypt"));
+            summary.put("insecureFiles", insecureFiles);
+            System.out.println(jsonStream ? compactGson.toJson(summary) : gson.toJson(summary));
+            System.out.flush();
+            if (checkMode && !insecureFiles.isEmpty()) {
+                return CommandLine.ExitCode.SOFTWARE;
+            }
+            return CommandLine.ExitCode.OK;
+        }
+
+        System.out.println("📦 Processed " + files.size() + " file(s)"
+                + (cached > 0 ? " (" + cached + " unchanged since the last run)" : ""));
+        if (checkMode && !insecureFiles.isEmpty()) {
+            System.out.println("❌ Found unencrypted secrets in " + insecureFiles.size() + " file(s).");
+            return CommandLine.ExitCode.SOFTWARE;
+        } else if (checkMode) {
+            System.out.println("✅ All secrets are encrypted.");
+        }
+        return CommandLine.ExitCode.OK;
+    }
+
+    /** Writes one compact NDJSON record for a finished file, for {@code --json=stream}. */
+    private static void printRecord(Map<String, Object> res) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("type", "file");
+        record.putAll(res);
+        System.out.println(compactGson.toJson(record));
+        System.out.flush();
+    }
+
+    /** Streams per-file findings while the run is still going. */
+    private static void printResult(Map<String, Object> res) {
+        if ("binary".equals(res.get("skipped"))) {
+            System.out.println("⏭️  Skipped binary file: " + res.get("file"));
+        } else if (((Number) res.get("unencrypted")).intValue() > 0) {
+            StringJoiner keys = new StringJoiner(", ");
+            ((List<?>) res.get("keys")).forEach(key -> keys.add(String.valueOf(key)));
+            System.out.println("❌ " + res.get("file") + ": " + keys);
+        }
+    }
+
+    private static class StoreOptions {
+        boolean wrap = true;
+        boolean readStdin;
+        String providerOverride;
+        String outputPath;
+        String propertyName;
+        Map<String, String> overrides = new LinkedHashMap<>();
+        String plaintext;
+    }
+
+    private static void executeStore(StoreOptions options) throws Exception {
+        Objects.requireNonNull(options, "options");
+
+        if (options.readStdin) {
+            String fromStdin = new String(System.in.readAllBytes(), StandardCharsets.UTF_8).trim();
+            if (!fromStdin.isEmpty()) {
+                options.plaintext = fromStdin;
+            }
+        }
+
+        if (options.plaintext == null || options.plaintext.isBlank()) {
+            throw new IllegalArgumentException("Provide a secret value to store (argument or --stdin).");
+        }
+
+        String provider = resolveProvider(options.providerOverride);
+        CloudKmsConfig kmsConfig = buildKmsConfig(provider, config.kms, options.overrides);
+
+        CloudKmsClient client = new CloudKmsClient();
+        String ciphertext = client.encryptValue(kmsConfig, options.plaintext, options.wrap);
+
+        System.out.println(ciphertext);
+
+        if (options.outputPath != null) {
+            Path path = Paths.get(options.outputPath);
+            Path parent = path.getParent();
+            if (parent != null && !Files.exists(parent)) {
+                Files.createDirectories(parent);
+            }
+
+            if (options.propertyName != null) {
+                List<String> lines = Files.exists(path)
+                        ? Files.readAllLines(path)
+                        : new ArrayList<>();
+                List<String> updated = upsertProperty(lines, options.propertyName, ciphertext);
+                Files.write(path, updated, StandardCharsets.UTF_8,
+                        java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.TRUNCATE_EXISTING);
+                System.out.println("💾 Stored " + options.propertyName + " in " + options.outputPath);
+            } else {
+                Files.writeString(path, ciphertext + System.lineSeparator(), StandardCharsets.UTF_8,
+                        java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.APPEND);
+                System.out.println("💾 Appended ciphertext to " + options.outputPath);
+            }
+        }
+    }
+
+    private static String resolveProvider(String override) {
+        if (override != null && !override.isBlank()) {
+            return override.trim().toLowerCase(Locale.ROOT);
+        }
+        if (config.provider != null && !config.provider.isBlank()) {
+            return config.provider.trim().toLowerCase(Locale.ROOT);
+        }
+        if (config.autoDetect) {
+            String detected = detectProvider();
+            if (detected != null) {
+                return detected.toLowerCase(Locale.ROOT);
+            }
+        }
+        throw new IllegalStateException("Unable to determine provider. Set provider in .cloudencrypt.yml or pass --provider.");
+    }
+
+    private static String resolveSecretProvider(String override) {
+        if (override != null && !override.isBlank()) {
+            return override.trim().toLowerCase(Locale.ROOT);
+        }
+        if (config.secretProvider != null && !config.secretProvider.isBlank()) {
+            return config.secretProvider.trim().toLowerCase(Locale.ROOT);
+        }
+        return resolveProvider(null);
+    }
+
+    static CloudKmsConfig buildKmsConfig(String provider, Map<String, String> base, Map<String, String> overrides) {
+        Objects.requireNonNull(provider, "provider");
+        Map<String, String> merged = new LinkedHashMap<>();
+        if (base != null) {
+            merged.putAll(base);
+        }
+        if (overrides != null) {
+            merged.putAll(overrides);
+        }
+        CloudKmsConfig.Builder builder = CloudKmsConfig.builder(provider);
+        for (Map.Entry<String, String> entry : merged.entrySet()) {
+            builder.with(entry.getKey(), entry.getValue());
+        }
+        return builder.build();
+    }
+
+    static CloudSecretConfig buildSecretConfig(String provider, Map<String, String> base, Map<String, String> overrides) {
+        Objects.requireNonNull(provider, "provider");
+        Map<String, String> merged = new LinkedHashMap<>();
+        if (base != null) {
+            merged.putAll(base);
+        }
+        if (overrides != null) {
+            merged.putAll(overrides);
+        }
+        CloudSecretConfig.Builder builder = CloudSecretConfig.builder(provider);
+        for (Map.Entry<String, String> entry : merged.entrySet()) {
+            builder.with(entry.getKey(), entry.getValue());
+        }
+        return builder.build();
+    }
+
+    static List<String> upsertProperty(List<String> lines, String key, String value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        List<String> updated = new ArrayList<>();
+        boolean replaced = false;
+        for (String line : lines) {
+            if (!replaced && line.trim().startsWith(key + "=")) {
+                updated.add(key + "=" + value);
+                replaced = true;
+            } else {
+                updated.add(line);
+            }
+        }
+        if (!replaced) {
+            updated.add(key + "=" + value);
+        }
+        return updated;
+    }
+
+    private static void addOverride(Map<String, String> overrides, String keyValue) {
+        int idx = keyValue.indexOf('=');
+        if (idx <= 0) {
+            throw new IllegalArgumentException("--set expects key=value but was: " + keyValue);
+        }
+        String key = keyValue.substring(0, idx).trim();
+        String value = keyValue.substring(idx + 1).trim();
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("Override key cannot be empty");
+        }
+        overrides.put(key, value);
+    }
+
+    private static Map<String, String> collectPairs(List<String> pairs, CommandSpec spec, String optionName) {
+        Map<String, String> values = new LinkedHashMap<>();
+        if (pairs == null) {
+            return values;
+        }
+        for (String pair : pairs) {
+            try {
+                addOverride(values, pair);
+            } catch (IllegalArgumentException ex) {
+                throw new CommandLine.ParameterException(spec.commandLine(), optionName + " expects key=value entries but was: " + pair, ex);
+            }
+        }
+        return values;
+    }
+
+    private static String detectProvider() {
+        if (warmClients == null) {
+            long started = OperationMetrics.start();
+            String provider = probeProvider();
+            OperationMetrics.record("provider.detect", provider, started, 0, false);
+            return provider;
+        }
+        // daemon: credentials rarely change while it runs, so skip even the cache lookup
+        synchronized (CloudEncryptCLI.class) {
+            if (detectedProvider == null) {
+                detectedProvider = Optional.ofNullable(probeProvider());
+            }
+            return detectedProvider.orElse(null);
+        }
+    }
+
+    private static String probeProvider() {
+        return ProviderDetector.system().detect();
+    }
+}
@@ -0,0 +1,228 @@
+package io.dscope.utils.crypto;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Serves CLI commands over a Unix domain socket so that repeated invocations skip JVM start-up, config loading,
+ * provider detection and KMS client creation. The protocol is one JSON line each way: the client sends
+ * {@code {"cwd": ..., "env": ..., "args": [...]}} (or {@code {"stop": true}}) and receives {@code {"exit": N, "out":
+ * ..., "err": ...}}. Commands run one at a time, in the daemon's working directory and with the daemon's credentials.
+ * A request from another directory, or from a shell whose credential and tool settings (see {@link #environment})
+ * differ from the daemon's, is declined so the client runs the command itself.
+ *
+ * <p>The socket file is made readable and writable by its owner only, since anyone who can connect can decrypt with
+ * the daemon's credentials.</p>
+ */
+final class CommandDaemon {
+
+    /** Socket file, relative to the project directory the daemon serves. */
+    static final String SOCKET_NAME = ".cloudencrypt.sock";
+    /** Exit code telling the client to run the command itself. */
+    static final int DECLINED = -1;
+
+    private static final Gson GSON = new Gson();
+    /** Variables that choose credentials, profiles, regions or this tool's settings. */
+    private static final List<String> ENV_PREFIXES = List.of("AWS_", "AZURE_", "GOOGLE_", "CLOUDSDK_", "OCI_",
+            "CLOUD_ENCRYPT_");
+
+    /** Runs one command and returns its exit code and captured output. */
+    @FunctionalInterface
+    interface Handler {
+        Reply run(List<String> args);
+    }
+
+    record Reply(int exit, String out, String err) { }
+
+    private static final class Request {
+        String cwd;
+        String env;
+        List<String> args;
+        boolean stop;
+    }
+
+    private CommandDaemon() {
+    }
+
+    /**
+     * Listens on {@code socket} until stopped, or until no request has arrived for {@code idle} (zero: never).
+     *
+     * @throws IllegalStateException if another daemon already listens on {@code socket}
+     */
+    static void serve(Path socket, Duration idle, Handler handler) throws IOException {
+        if (Files.exists(socket)) {
+            if (reachable(socket)) {
+                throw new IllegalStateException("A daemon is already listening on " + socket);
+            }
+            Files.delete(socket); // left behind by a daemon that was killed
+        }
+        String cwd = Paths.get("").toAbsolutePath().toString();
+        String env = environment(System.getenv());
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+             Selector selector = Selector.open()) {
+            // bind inside a private directory and move into place, so the socket never exists with wider permissions
+            Path staging = Files.createTempDirectory(socket.toAbsolutePath().getParent(), ".cloudencrypt-");
+            Path bound = staging.resolve("sock");
+            server.bind(UnixDomainSocketAddress.of(bound));
+            Files.setPosixFilePermissions(bound, PosixFilePermissions.fromString("rw-------"));
+            Files.move(bound, socket, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(staging);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            long idleMillis = idle.toMillis();
+            boolean running = true;
+            while (running) {
+                if (selector.select(idleMillis) == 0) {
+                    if (idleMillis > 0) {
+                        break;
+                    }
+                    continue;
+                }
+                selector.selectedKeys().clear();
+                SocketChannel channel = server.accept();
+                if (channel == null) {
+                    continue;
+                }
+                try (channel) {
+                    channel.configureBlocking(true);
+                    running = answer(channel, cwd, env, handler);
+                } catch (IOException | JsonParseException e) {
+                    // a client that went away or spoke nonsense does not stop the daemon
+                }
+            }
+        } finally {
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    private static boolean answer(SocketChannel channel, String cwd, String env, Handler handler) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel),
+                StandardCharsets.UTF_8));
+        Request request = GSON.fromJson(in.readLine(), Request.class);
+        Reply reply;
+        if (request == null) {
+            return true;
+        } else if (request.stop) {
+            reply = new Reply(0, "🛑 Daemon stopped\n", "");
+        } else if (request.args == null || !cwd.equals(request.cwd) || !env.equals(request.env)) {
+            reply = new Reply(DECLINED, "", "");
+        } else {
+            reply = handler.run(request.args);
+        }
+        Writer out = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+        out.write(GSON.toJson(reply));
+        out.write('\n');
+        out.flush();
+        return !request.stop;
+    }
+
+    /**
+     * Sends {@code args} to the daemon listening on {@code socket}.
+     *
+     * @return the daemon's reply, or {@code null} if no daemon is listening or it declined the command
+     */
+    static Reply forward(Path socket, List<String> args) throws IOException {
+        return forward(socket, args, System.getenv());
+    }
+
+    static Reply forward(Path socket, List<String> args, Map<String, String> env) throws IOException {
+        Request request = new Request();
+        request.cwd = Paths.get("").toAbsolutePath().toString();
+        request.env = environment(env);
+        request.args = args;
+        Reply reply = send(socket, request);
+        return reply == null || reply.exit() == DECLINED ? null : reply;
+    }
+
+    /**
+     * Fingerprint of the variables in {@code env} that select credentials or settings: {@code HOME} and everything
+     * starting with {@code AWS_}, {@code AZURE_}, {@code GOOGLE_}, {@code CLOUDSDK_}, {@code OCI_} or
+     * {@code CLOUD_ENCRYPT_} (except {@code CLOUD_ENCRYPT_DAEMON}). Only a SHA-256 crosses the socket, so secrets such
+     * as {@code CLOUD_ENCRYPT_KEYSTORE_PASSWORD} never do.
+     */
+    static String environment(Map<String, String> env) {
+        Map<String, String> relevant = new TreeMap<>();
+        env.forEach((name, value) -> {
+            if (name.equals("HOME")
+                    || (ENV_PREFIXES.stream().anyMatch(name::startsWith) && !name.equals("CLOUD_ENCRYPT_DAEMON"))) {
+                relevant.put(name, value);
+            }
+        });
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            relevant.forEach((name, value) -> {
+                digest.update((name + "=" + value).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            });
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Asks the daemon on {@code socket} to exit; {@code false} if none is listening. */
+    static boolean stop(Path socket) throws IOException {
+        Request request = new Request();
+        request.stop = true;
+        return send(socket, request) != null;
+    }
+
+    private static boolean reachable(Path socket) {
+        try (SocketChannel ignored = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static Reply send(Path socket, Request request) throws IOException {
+        if (!Files.exists(socket)) {
+            return null;
+        }
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+        } catch (ConnectException e) {
+            return null; // stale socket file
+        }
+        try (channel) {
+            Writer out = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+            out.write(GSON.toJson(request));
+            out.write('\n');
+            out.flush();
+            String line = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel),
+                    StandardCharsets.UTF_8)).readLine();
+            if (line == null) {
+                throw new IOException("Daemon closed the connection without replying");
+            }
+            return GSON.fromJson(line, Reply.class);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package io.dscope.utils.crypto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Watches directory trees with a {@link WatchService} and hands over the files that changed in batches. Events are
+ * debounced: a batch is delivered once no matching event has arrived for the debounce interval (or, during a
+ * continuous stream of writes, at the latest after ten intervals), so an editor's save burst or a {@code git checkout}
+ * becomes one batch with each file listed once. Directories created while watching are watched as well, and matching
+ * files already inside them when they are registered are reported. Directories the skip predicate rejects (such as
+ * {@code .git} or gitignored build output) are not watched at all. When the event queue overflows, every root is
+ * rescanned and all of its matching files are reported, since the lost events cannot be recovered.
+ */
+final class ConfigWatcher implements Closeable {
+
+    /** Receives the files changed since the previous batch. */
+    @FunctionalInterface
+    interface BatchHandler {
+        void changed(List<Path> files) throws Exception;
+    }
+
+    private final WatchService service;
+    private final List<Path> roots;
+    private final Predicate<Path> filter;
+    private final Predicate<Path> skip;
+    private final long debounceMillis;
+    private final Map<WatchKey, Path> dirs = new ConcurrentHashMap<>();
+
+    /**
+     * @param roots  directories to watch recursively; a file root watches its directory
+     * @param filter decides which changed files are reported
+     * @param skip   decides which directories below the roots are neither watched nor scanned
+     */
+    ConfigWatcher(List<Path> roots, Predicate<Path> filter, Predicate<Path> skip, long debounceMillis)
+            throws IOException {
+        if (debounceMillis < 1) {
+            throw new IllegalArgumentException("debounce must be at least 1 ms");
+        }
+        this.service = FileSystems.getDefault().newWatchService();
+        this.roots = List.copyOf(roots);
+        this.filter = filter;
+        this.skip = skip;
+        this.debounceMillis = debounceMillis;
+        registerRoots(null);
+    }
+
+    /** Number of directories being watched. */
+    int watchedDirectories() {
+        return dirs.size();
+    }
+
+    /** Blocks, delivering batches to {@code handler}, until {@link #close()} is called or the thread is interrupted. */
+    void run(BatchHandler handler) throws Exception {
+        Set<Path> pending = new LinkedHashSet<>();
+        long firstPending = 0;
+        try {
+            while (true) {
+                WatchKey key;
+                if (pending.isEmpty()) {
+                    key = service.take();
+                } else {
+                    long waited = System.currentTimeMillis() - firstPending;
+                    key = waited >= debounceMillis * 10 ? null : service.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                }
+                if (key == null) {
+                    List<Path> batch = new ArrayList<>(pending);
+                    pending.clear();
+                    handler.changed(batch);
+                    continue;
+                }
+                boolean idle = pending.isEmpty();
+                Path dir = dirs.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        registerRoots(pending);
+                        continue;
+                    }
+                    if (dir == null) {
+                        continue;
+                    }
+                    Path child = dir.resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                            && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                        if (!skip.test(child)) {
+                            registerTree(child, pending);
+                        }
+                    } else if (event.kind() != StandardWatchEventKinds.ENTRY_DELETE
+                            && Files.isRegularFile(child) && filter.test(child)) {
+                        pending.add(child);
+                    }
+                }
+                if (idle && !pending.isEmpty()) {
+                    firstPending = System.currentTimeMillis();
+                }
+                if (!key.reset()) {
+                    dirs.remove(key);
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // closed: stop watching
+        }
+    }
+
+    /** Watches every root; with {@code found}, also collects the matching files they contain. */
+    private void registerRoots(Set<Path> found) throws IOException {
+        for (Path root : roots) {
+            if (Files.isDirectory(root)) {
+                registerTree(root, found);
+            } else {
+                Path parent = root.toAbsolutePath().getParent();
+                if (parent != null && Files.isDirectory(parent)) {
+                    register(parent);
+                }
+                if (found != null && Files.isRegularFile(root) && filter.test(root)) {
+                    found.add(root);
+                }
+            }
+        }
+    }
+
+    /**
+     * Watches {@code root} and the directories below it that are not skipped. Registering a directory that is already
+     * watched is harmless, so this also serves to rescan.
+     *
+     * @param found receives matching files seen on the way, or {@code null}
+     */
+    private void registerTree(Path root, Set<Path> found) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(root) && skip.test(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                register(dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (found != null && attrs.isRegularFile() && filter.test(file)) {
+                    found.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE; // deleted between listing and visiting
+            }
+        });
+    }
+
+    private void register(Path dir) throws IOException {
+        WatchKey key = dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        dirs.put(key, dir);
+    }
+
+    @Override
+    public void close() throws IOException {
+        service.close();
+    }
+}
@@ -0,0 +1,488 @@
+package io.dscope.utils.crypto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Pattern;
+
+/**
+ * Turns TARGET arguments and {@code include} entries into the files a run processes. Exclude patterns are compiled
+ * once into {@link PathMatcher}s. An exclude is a glob unless it starts with {@code regex:}; then it is a regular
+ * expression over the whole path. Entries that read like regexes are still globs, so {@code c++/**} and
+ * {@code Program Files (x86)/**} work, and are only reported by {@link #ambiguousExcludes()}. Globs use {@code .gitignore} conventions: {@code **} spans directories, and a glob without a slash
+ * matches the file name at any depth. Globs and the paths they are matched against are both taken relative to the
+ * working directory when they point inside it, so {@code res/*.yml} and {@code $PWD/res/*.yml} select the same files.
+ *
+ * <p>Directories are walked in parallel on a fork-join pool, one task per directory. A directory is never entered
+ * when an exclude names everything below it ({@code node_modules/**}, {@code regex:.*&#47;target/.*}), when it is
+ * {@code .git}, or, inside a git work tree, when {@code .gitignore} or {@code .git/info/exclude} ignores it. Ignored
+ * files are skipped the same way; only files named explicitly are taken regardless of {@code .gitignore}.</p>
+ */
+final class FileDiscovery {
+
+    /** Files picked up when walking a directory. */
+    static final Pattern CONFIG_FILES = Pattern.compile(".*\\.(properties|env|yml|yaml|json)$");
+
+    /** Regex syntax, rare in file names: groups, alternation, anchors, {@code +} and escaped letters or dots. */
+    private static final Pattern REGEX_ONLY = Pattern.compile("[()|^$+]|\\\\[.\\p{Alpha}]");
+    /** Valid glob syntax that is more likely meant as a regex: a whole path segment of {@code .*}. */
+    private static final Pattern REGEX_LOOKING = Pattern.compile("(?:^|/)\\.\\*(?:/|$)");
+
+    private final List<Exclude> excludes = new ArrayList<>();
+    private final List<String> ambiguous = new ArrayList<>();
+    private final boolean gitignore;
+    private final Map<Path, Ignores> ignores = new ConcurrentHashMap<>();
+    private final Map<Path, Optional<Path>> workTrees = new ConcurrentHashMap<>();
+
+    /**
+     * @param excludes  exclude patterns from the config, or {@code null}
+     * @param gitignore whether {@code .gitignore} rules apply inside git work trees
+     * @throws IllegalArgumentException if an exclude pattern does not compile
+     */
+    FileDiscovery(List<String> excludes, boolean gitignore) {
+        if (excludes != null) {
+            for (String exclude : excludes) {
+                Exclude compiled = Exclude.compile(exclude);
+                this.excludes.add(compiled);
+                if (!compiled.regex() && !exclude.startsWith("glob:")
+                        && (REGEX_ONLY.matcher(exclude).find() || REGEX_LOOKING.matcher(exclude).find())) {
+                    ambiguous.add(exclude);
+                }
+            }
+        }
+        this.gitignore = gitignore;
+    }
+
+    /**
+     * Excludes that read like regular expressions but are matched as globs. A {@code regex:} or {@code glob:} prefix
+     * settles it.
+     */
+    List<String> ambiguousExcludes() {
+        return ambiguous;
+    }
+
+    /**
+     * Files for one TARGET or include entry: the config files below a directory, the files matching a glob, or the
+     * named file itself.
+     */
+    List<Path> resolve(String target) throws IOException {
+        if (isGlob(target)) {
+            Path base = base(target);
+            if (!Files.isDirectory(base)) {
+                return List.of();
+            }
+            Pattern glob = globToRegex(relativeGlob(target), true);
+            int depth = target.contains("**") ? Integer.MAX_VALUE : segments(target) - segments(base.toString());
+            return walk(base, depth, file -> glob.matcher(relative(file)).matches());
+        }
+        Path path = Paths.get(target);
+        if (Files.isDirectory(path)) {
+            return walk(path, Integer.MAX_VALUE, file -> CONFIG_FILES.matcher(normalize(file)).matches());
+        }
+        return Files.exists(path) && !excluded(path) ? List.of(path) : List.of();
+    }
+
+    /** The directory a glob is rooted at: its leading segments without wildcards. */
+    static Path base(String target) {
+        if (!isGlob(target)) {
+            return Paths.get(target);
+        }
+        String normalized = target.replace('\\', '/');
+        int wildcard = indexOfWildcard(normalized);
+        int slash = normalized.lastIndexOf('/', wildcard);
+        if (slash < 0) {
+            return Paths.get(".");
+        }
+        return Paths.get(slash == 0 ? "/" : normalized.substring(0, slash));
+    }
+
+    static boolean isGlob(String target) {
+        return indexOfWildcard(target) >= 0;
+    }
+
+    /** Whether a glob TARGET or include entry matches {@code file}, given relative to the working directory or absolute. */
+    static boolean matchesGlob(String target, Path file) {
+        return globToRegex(relativeGlob(target), true).matcher(relative(file)).matches();
+    }
+
+    /** Whether an exclude pattern matches {@code file}. */
+    boolean excluded(Path file) {
+        for (Exclude exclude : excludes) {
+            if (exclude.matches(file)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Whether {@code .gitignore} rules ignore {@code file} or one of its directories. */
+    boolean ignored(Path file) {
+        return ignored(file, false);
+    }
+
+    /**
+     * Whether a walk would leave {@code dir} out: {@code .git}, directories pruned by an {@code X/**} exclude, and
+     * directories ignored by {@code .gitignore}.
+     */
+    boolean skipped(Path dir) {
+        Path name = dir.toAbsolutePath().normalize().getFileName();
+        return (name != null && name.toString().equals(".git")) || pruned(dir) || ignored(dir, true);
+    }
+
+    private boolean ignored(Path path, boolean directory) {
+        if (!gitignore) {
+            return false;
+        }
+        Path absolute = path.toAbsolutePath().normalize();
+        Path root = workTree(absolute.getParent());
+        if (root == null) {
+            return false;
+        }
+        Path dir = root;
+        if (!dir.equals(absolute.getParent())) {
+            for (Path name : root.relativize(absolute.getParent())) {
+                Path child = dir.resolve(name);
+                if (name.toString().equals(".git") || ignoresFor(dir, root).ignored(child, true)) {
+                    return true;
+                }
+                dir = child;
+            }
+        }
+        return ignoresFor(dir, root).ignored(absolute, directory);
+    }
+
+    private List<Path> walk(Path start, int depth, PathMatcher select) throws IOException {
+        Path absolute = start.toAbsolutePath().normalize();
+        Path root = gitignore ? workTree(absolute) : null;
+        Ignores rules = root == null ? null : ignoresFor(absolute, root);
+        try {
+            return ForkJoinPool.commonPool().invoke(new Walk(start, absolute, rules, depth, select));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** Lists one directory and forks a task per subdirectory that is not pruned. */
+    private final class Walk extends RecursiveTask<List<Path>> {
+        private final Path dir;
+        private final Path absolute;
+        /** {@code null} outside a git work tree. */
+        private final Ignores rules;
+        private final int depth;
+        private final PathMatcher select;
+
+        Walk(Path dir, Path absolute, Ignores rules, int depth, PathMatcher select) {
+            this.dir = dir;
+            this.absolute = absolute;
+            this.rules = rules;
+            this.depth = depth;
+            this.select = select;
+        }
+
+        @Override
+        protected List<Path> compute() {
+            List<Path> entries = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                stream.forEach(entries::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            entries.sort(null);
+            List<Path> files = new ArrayList<>();
+            List<Walk> subdirectories = new ArrayList<>();
+            for (Path entry : entries) {
+                Path entryAbsolute = absolute.resolve(entry.getFileName());
+                if (isDirectory(entry)) {
+                    if (depth > 1 && !entry.getFileName().toString().equals(".git")
+                            && (rules == null || !rules.ignored(entryAbsolute, true))
+                            && !pruned(entry)) {
+                        Walk walk = new Walk(entry, entryAbsolute,
+                                rules == null ? null : rules.enter(entryAbsolute), depth - 1, select);
+                        walk.fork();
+                        subdirectories.add(walk);
+                    }
+                } else if (select.matches(entry) && (rules == null || !rules.ignored(entryAbsolute, false))
+                        && !excluded(entry)) {
+                    files.add(entry);
+                }
+            }
+            for (Walk walk : subdirectories) {
+                files.addAll(walk.join());
+            }
+            return files;
+        }
+    }
+
+    private boolean pruned(Path dir) {
+        for (Exclude exclude : excludes) {
+            if (exclude.prunes(dir)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDirectory(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).isDirectory();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** The git work tree containing {@code dir}, or {@code null} outside git. */
+    private Path workTree(Path dir) {
+        return workTrees.computeIfAbsent(dir, key -> {
+            for (Path candidate = key; candidate != null; candidate = candidate.getParent()) {
+                if (Files.exists(candidate.resolve(".git"))) {
+                    return Optional.of(candidate);
+                }
+            }
+            return Optional.empty();
+        }).orElse(null);
+    }
+
+    private Ignores ignoresFor(Path dir, Path root) {
+        Ignores cached = ignores.get(dir);
+        if (cached != null) {
+            return cached;
+        }
+        Ignores rules;
+        if (dir.equals(root)) {
+            rules = Ignores.NONE.with(root, root.resolve(".git").resolve("info").resolve("exclude")).enter(dir);
+        } else {
+            rules = ignoresFor(dir.getParent(), root).enter(dir);
+        }
+        ignores.put(dir, rules);
+        return rules;
+    }
+
+    /** The {@code .gitignore} rules in force in one directory: its own and those of every directory above it. */
+    private static final class Ignores {
+        static final Ignores NONE = new Ignores(List.of());
+
+        private final List<Rule> rules;
+
+        private Ignores(List<Rule> rules) {
+            this.rules = rules;
+        }
+
+        /** Rules for subdirectory {@code dir}, adding its {@code .gitignore} if it has one. */
+        Ignores enter(Path dir) {
+            return with(dir, dir.resolve(".gitignore"));
+        }
+
+        Ignores with(Path dir, Path file) {
+            List<String> lines;
+            try {
+                if (!Files.isRegularFile(file)) {
+                    return this;
+                }
+                lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                return this;
+            }
+            List<Rule> combined = new ArrayList<>(rules);
+            for (String line : lines) {
+                Rule rule = Rule.parse(dir, line);
+                if (rule != null) {
+                    combined.add(rule);
+                }
+            }
+            return combined.size() == rules.size() ? this : new Ignores(combined);
+        }
+
+        /** Git semantics: the last matching rule decides, and {@code !} re-includes. */
+        boolean ignored(Path absolute, boolean directory) {
+            boolean ignored = false;
+            for (Rule rule : rules) {
+                if ((directory || !rule.directoryOnly) && absolute.startsWith(rule.dir)
+                        && rule.pattern.matcher(normalize(rule.dir.relativize(absolute))).matches()) {
+                    ignored = !rule.negated;
+                }
+            }
+            return ignored;
+        }
+    }
+
+    private record Rule(Path dir, Pattern pattern, boolean negated, boolean directoryOnly) {
+        static Rule parse(Path dir, String line) {
+            String text = line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+            if (!text.endsWith("\\ ")) {
+                text = text.stripTrailing();
+            }
+            if (text.isEmpty() || text.startsWith("#")) {
+                return null;
+            }
+            boolean negated = text.startsWith("!");
+            if (negated || text.startsWith("\\!") || text.startsWith("\\#")) {
+                text = text.substring(1);
+            }
+            boolean directoryOnly = text.endsWith("/");
+            if (directoryOnly) {
+                text = text.substring(0, text.length() - 1);
+            }
+            boolean anchored = text.contains("/");
+            if (text.startsWith("/")) {
+                text = text.substring(1);
+            }
+            return text.isEmpty() ? null : new Rule(dir, globToRegex(text, anchored), negated, directoryOnly);
+        }
+    }
+
+    /** One exclude pattern; regexes see the path as it was walked, globs see it relative to the working directory. */
+    private record Exclude(Pattern files, Pattern below, boolean regex) implements PathMatcher {
+        static Exclude compile(String pattern) {
+            boolean regex = pattern.startsWith("regex:");
+            String body = pattern.startsWith("regex:") || pattern.startsWith("glob:")
+                    ? pattern.substring(pattern.indexOf(':') + 1) : pattern;
+            if (regex) {
+                // X/.* excludes everything below a directory matching X
+                return new Exclude(Pattern.compile(body),
+                        body.endsWith("/.*") ? Pattern.compile(body.substring(0, body.length() - 3)) : null, true);
+            }
+            boolean anchored = body.contains("/") && !body.startsWith("**/");
+            String glob = anchored ? relativeGlob(body) : body;
+            return new Exclude(globToRegex(glob, anchored),
+                    glob.endsWith("/**") ? globToRegex(glob.substring(0, glob.length() - 3), anchored) : null, false);
+        }
+
+        @Override
+        public boolean matches(Path path) {
+            return files.matcher(regex ? normalize(path) : relative(path)).matches();
+        }
+
+        /** Whether this is an {@code X/**} or {@code X/.*} exclude and {@code dir} matches {@code X}. */
+        boolean prunes(Path dir) {
+            return below != null && below.matcher(regex ? normalize(dir) : relative(dir)).matches();
+        }
+    }
+
+    /**
+     * Translates a glob to a regex over {@code /}-separated paths: {@code *} and {@code ?} stay within one segment,
+     * {@code **} spans segments ({@code a/**&#47;b} also matches {@code a/b}), and {@code [...]} and {@code {a,b}}
+     * work as in {@link java.nio.file.FileSystem#getPathMatcher}. An unanchored glob may match at any depth.
+     */
+    static Pattern globToRegex(String glob, boolean anchored) {
+        StringBuilder regex = new StringBuilder(anchored ? "" : "(?:.*/)?");
+        int braces = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*' -> {
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                        boolean segment = (i == 0 || glob.charAt(i - 1) == '/');
+                        i++;
+                        if (segment && i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+                            regex.append("(?:.*/)?");
+                            i++;
+                        } else {
+                            regex.append(".*");
+                        }
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                }
+                case '?' -> regex.append("[^/]");
+                case '[' -> {
+                    int end = glob.indexOf(']', i + 2);
+                    if (end < 0) {
+                        regex.append("\\[");
+                    } else {
+                        String set = glob.substring(i + 1, end);
+                        regex.append('[').append(set.startsWith("!") ? "^" + set.substring(1) : set).append(']');
+                        i = end;
+                    }
+                }
+                case '{' -> {
+                    regex.append("(?:");
+                    braces++;
+                }
+                case '}' -> {
+                    if (braces > 0) {
+                        regex.append(')');
+                        braces--;
+                    } else {
+                        regex.append("\\}");
+                    }
+                }
+                case ',' -> regex.append(braces > 0 ? "|" : ",");
+                case '\\' -> {
+                    if (i + 1 < glob.length()) {
+                        regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+                    }
+                }
+                default -> regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        if (braces > 0) {
+            throw new IllegalArgumentException("Unclosed '{' in pattern: " + glob);
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static int indexOfWildcard(String target) {
+        for (int i = 0; i < target.length(); i++) {
+            char c = target.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int segments(String path) {
+        String normalized = path.replace('\\', '/');
+        if (normalized.equals(".")) {
+            return 0;
+        }
+        int count = 1;
+        for (int i = 0; i < normalized.length(); i++) {
+            if (normalized.charAt(i) == '/') {
+                count++;
+            }
+        }
+        return normalized.startsWith("/") ? count - 1 : count;
+    }
+
+    static String normalize(Path path) {
+        return path.toString().replace('\\', '/');
+    }
+
+    /** The path as a glob sees it: relative to the working directory when it is inside it, absolute otherwise. */
+    private static String relative(Path path) {
+        Path workingDirectory = Paths.get("").toAbsolutePath();
+        Path absolute = path.toAbsolutePath().normalize();
+        return normalize(absolute.startsWith(workingDirectory) ? workingDirectory.relativize(absolute) : absolute);
+    }
+
+    /** A glob with its literal leading directories rewritten the way {@link #relative} writes paths. */
+    private static String relativeGlob(String glob) {
+        String normalized = glob.replace('\\', '/');
+        int wildcard = indexOfWildcard(normalized);
+        if (wildcard < 0) {
+            return relative(Paths.get(normalized));
+        }
+        int slash = normalized.lastIndexOf('/', wildcard);
+        if (slash < 0) {
+            return normalized;
+        }
+        String base = relative(Paths.get(slash == 0 ? "/" : normalized.substring(0, slash)));
+        String rest = glob.substring(slash + 1);
+        return base.isEmpty() ? rest : base.endsWith("/") ? base + rest : base + "/" + rest;
+    }
+}
@@ -0,0 +1,144 @@
+package io.dscope.utils.crypto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Lists the files a commit or branch touches, using the local {@code git} executable only (no fetch, no network), so
+ * pre-commit hooks and PR checks cost time in proportion to the change rather than the repository. Deleted files are
+ * left out; the returned paths are relative to the working directory when they are inside it. Also checks staged
+ * files against the working tree and stages rewritten files again, for {@code --staged}.
+ */
+final class GitChanges {
+
+    private GitChanges() {
+    }
+
+    /** Files added, copied, modified or renamed in the index, i.e. what the next commit would contain. */
+    static List<Path> staged(Path dir) throws IOException {
+        Path root = root(dir);
+        return existing(root, git(root, "diff", "--cached", "--name-only", "-z", "--diff-filter=ACMR"));
+    }
+
+    /**
+     * Those of {@code files} whose working tree copy differs from the index. The CLI reads the working tree, so for
+     * these it would not be checking, or encrypting, what the next commit contains.
+     */
+    static List<Path> unstaged(Path dir, List<Path> files) throws IOException {
+        if (files.isEmpty()) {
+            return List.of();
+        }
+        Path root = root(dir);
+        List<String> args = new ArrayList<>(List.of("diff", "--name-only", "-z", "--"));
+        for (Path file : files) {
+            args.add(file.toAbsolutePath().toString());
+        }
+        return existing(root, git(root, args.toArray(String[]::new)));
+    }
+
+    /** Stages {@code files}, so content the CLI rewrote is what gets committed. */
+    static void add(Path dir, List<Path> files) throws IOException {
+        if (files.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>(List.of("add", "--"));
+        for (Path file : files) {
+            args.add(file.toAbsolutePath().toString());
+        }
+        git(root(dir), args.toArray(String[]::new));
+    }
+
+    /**
+     * Files that differ between the merge base of {@code ref} and {@code HEAD} and the working tree, plus untracked
+     * files that are not ignored: everything a branch (committed or not) changes relative to {@code ref}.
+     */
+    static List<Path> changedSince(Path dir, String ref) throws IOException {
+        if (ref == null || ref.isBlank() || ref.startsWith("-")) {
+            throw new IllegalArgumentException("Invalid git ref: '" + ref + "'");
+        }
+        Path root = root(dir);
+        String base = single(git(root, "merge-base", ref, "HEAD"), "merge-base " + ref);
+        Set<String> names = new LinkedHashSet<>(git(root, "diff", "--name-only", "-z", "--diff-filter=ACMR", base));
+        names.addAll(git(root, "ls-files", "-z", "--others", "--exclude-standard"));
+        return existing(root, new ArrayList<>(names));
+    }
+
+    private static Path root(Path dir) throws IOException {
+        return Paths.get(single(git(dir, "rev-parse", "--show-toplevel"), "rev-parse"));
+    }
+
+    private static List<Path> existing(Path root, List<String> names) {
+        Path cwd = Paths.get("").toAbsolutePath();
+        List<Path> files = new ArrayList<>();
+        for (String name : names) {
+            Path file = root.resolve(name).normalize();
+            if (Files.isRegularFile(file)) {
+                files.add(file.startsWith(cwd) ? cwd.relativize(file) : file);
+            }
+        }
+        return files;
+    }
+
+    private static String single(List<String> output, String what) {
+        if (output.isEmpty() || output.get(0).isBlank()) {
+            throw new IllegalArgumentException("git " + what + " returned nothing");
+        }
+        return output.get(0).trim();
+    }
+
+    /** Runs git in {@code dir}; output is split on NUL (for {@code -z}) and on line breaks otherwise. */
+    private static List<String> git(Path dir, String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.add("-C");
+        command.add(dir.toAbsolutePath().toString());
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).start();
+        // stderr is drained alongside stdout: a full stderr pipe would otherwise block git while we wait on stdout
+        CompletableFuture<String> stderr = CompletableFuture.supplyAsync(() -> drain(process.getErrorStream()),
+                Thread::startVirtualThread);
+        byte[] out = process.getInputStream().readAllBytes();
+        String err;
+        int exit;
+        try {
+            exit = process.waitFor();
+            err = stderr.get().trim();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroy();
+            throw new IOException("Interrupted while running git", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to read git output", e.getCause());
+        }
+        if (exit != 0) {
+            throw new IllegalArgumentException("git " + args[0] + " failed" + (err.isEmpty() ? "" : ": " + err));
+        }
+        String text = new String(out, StandardCharsets.UTF_8);
+        List<String> items = new ArrayList<>();
+        for (String item : text.split(List.of(args).contains("-z") ? "\0" : "\\R")) {
+            if (!item.isEmpty()) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    private static String drain(InputStream in) {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package io.dscope.utils.crypto;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Works out which cloud the current user has credentials for without starting any cloud CLI. Each provider is probed
+ * the way its SDK's default credential chain looks for credentials: environment variables and credential and profile
+ * files first, for all four providers, and only when none of them has any, the instance metadata endpoints. Those
+ * run in parallel under one deadline. The first provider in {@link #ORDER} that answers yes wins; a probe that misses
+ * the deadline counts as a no.
+ *
+ * <p>The answer, including "none", is cached per user and host for {@link #DEFAULT_TTL}, keyed by a fingerprint of
+ * every environment variable and file the probes read. Logging in with a cloud CLI or switching {@code AWS_PROFILE}
+ * therefore takes effect immediately, and only the slow metadata lookups are skipped.</p>
+ */
+final class ProviderDetector {
+
+    /** Preference when several providers have credentials. */
+    static final List<String> ORDER = List.of("aws", "azure", "gcp", "oci");
+    static final Duration DEFAULT_DEADLINE = Duration.ofMillis(1500);
+    static final Duration DEFAULT_TTL = Duration.ofHours(1);
+
+    private static final Gson GSON = new Gson();
+
+    private static final Map<String, List<String>> ENV = Map.of(
+            "aws", List.of("AWS_ACCESS_KEY_ID", "AWS_PROFILE", "AWS_WEB_IDENTITY_TOKEN_FILE",
+                    "AWS_CONTAINER_CREDENTIALS_RELATIVE_URI", "AWS_CONTAINER_CREDENTIALS_FULL_URI"),
+            "azure", List.of("AZURE_CLIENT_ID", "AZURE_FEDERATED_TOKEN_FILE", "IDENTITY_ENDPOINT", "MSI_ENDPOINT"),
+            "gcp", List.of("GOOGLE_APPLICATION_CREDENTIALS", "K_SERVICE", "FUNCTION_TARGET", "GAE_ENV"),
+            "oci", List.of("OCI_RESOURCE_PRINCIPAL_VERSION", "OCI_CLI_AUTH"));
+
+    /** Asks a provider's instance metadata endpoint whether this machine runs in that cloud. */
+    @FunctionalInterface
+    interface MetadataProbe {
+        boolean matches(String provider, Duration timeout) throws Exception;
+    }
+
+    private final Map<String, String> env;
+    private final Path home;
+    private final MetadataProbe metadata;
+    private final Duration deadline;
+    private final Path cacheFile;
+    private final Duration ttl;
+
+    ProviderDetector(Map<String, String> env, Path home, MetadataProbe metadata, Duration deadline, Path cacheFile,
+                     Duration ttl) {
+        this.env = env;
+        this.home = home;
+        this.metadata = metadata;
+        this.deadline = deadline;
+        this.cacheFile = cacheFile;
+        this.ttl = ttl;
+    }
+
+    /** Detector for this process: real environment, home directory, metadata endpoints and cache file. */
+    static ProviderDetector system() {
+        Map<String, String> env = System.getenv();
+        Path home = Paths.get(System.getProperty("user.home"));
+        String cacheHome = env.get("XDG_CACHE_HOME");
+        Path cacheDir = (cacheHome != null && !cacheHome.isBlank() ? Paths.get(cacheHome) : home.resolve(".cache"))
+                .resolve("cloud-encrypt");
+        String host = hostName(env).replaceAll("[^A-Za-z0-9._-]", "_");
+        MetadataProbe metadata = "off".equalsIgnoreCase(env.get("CLOUD_ENCRYPT_METADATA"))
+                ? (provider, timeout) -> false
+                : new HttpMetadataProbe();
+        return new ProviderDetector(env, home, metadata, DEFAULT_DEADLINE, cacheDir.resolve("provider-" + host + ".json"),
+                DEFAULT_TTL);
+    }
+
+    /** The detected provider, from the cache when it is fresh; {@code null} if no credentials were found. */
+    String detect() {
+        String fingerprint = fingerprint();
+        Cached cached = readCache();
+        long now = System.currentTimeMillis();
+        if (cached != null && fingerprint.equals(cached.fingerprint) && now - cached.detectedAt < ttl.toMillis()
+                && cached.detectedAt <= now) {
+            return cached.provider;
+        }
+        String provider = probe();
+        writeCache(fingerprint, provider, now);
+        return provider;
+    }
+
+    /** Checks local credentials, then runs the metadata probes in parallel, ignoring the cache. */
+    String probe() {
+        for (String provider : ORDER) {
+            if (hasLocalCredentials(provider)) {
+                return provider;
+            }
+        }
+        long end = System.nanoTime() + deadline.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<Boolean>> probes = new ArrayList<>();
+            for (String provider : ORDER) {
+                probes.add(CompletableFuture.supplyAsync(() -> onInstance(provider), executor));
+            }
+            try {
+                for (int i = 0; i < ORDER.size(); i++) {
+                    long remaining = end - System.nanoTime();
+                    try {
+                        if (probes.get(i).get(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+                            return ORDER.get(i);
+                        }
+                    } catch (TimeoutException | ExecutionException e) {
+                        // too slow or failed: not this provider
+                    }
+                }
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private boolean hasLocalCredentials(String provider) {
+        for (String name : ENV.get(provider)) {
+            String value = env.get(name);
+            boolean namesFile = name.endsWith("_FILE") || name.equals("GOOGLE_APPLICATION_CREDENTIALS");
+            if (value != null && !value.isBlank() && (!namesFile || Files.isRegularFile(Paths.get(value)))) {
+                return true;
+            }
+        }
+        return hasCredentialFiles(provider);
+    }
+
+    private boolean onInstance(String provider) {
+        if ("aws".equals(provider) && "true".equalsIgnoreCase(env.get("AWS_EC2_METADATA_DISABLED"))) {
+            return false;
+        }
+        try {
+            return metadata.matches(provider, deadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private boolean hasCredentialFiles(String provider) {
+        try {
+            switch (provider) {
+                case "aws" -> {
+                    if (Files.isRegularFile(awsCredentials())) {
+                        return true;
+                    }
+                    Path config = awsConfig();
+                    // SSO, assumed-role and credential_process profiles live in the config file alone
+                    return Files.isRegularFile(config) && Files.readString(config, StandardCharsets.UTF_8)
+                            .matches("(?s).*\\b(sso_start_url|sso_session|role_arn|credential_process)\\s*=.*");
+                }
+                case "azure" -> {
+                    Path profile = azureDir().resolve("azureProfile.json");
+                    return Files.isRegularFile(profile) && Files.readString(profile, StandardCharsets.UTF_8)
+                            .replaceAll("\\s", "").contains("\"isDefault\":true");
+                }
+                case "gcp" -> {
+                    Path dir = gcloudDir();
+                    if (Files.isRegularFile(dir.resolve("application_default_credentials.json"))) {
+                        return true;
+                    }
+                    Path active = dir.resolve("active_config");
+                    String name = Files.isRegularFile(active)
+                            ? Files.readString(active, StandardCharsets.UTF_8).trim() : "default";
+                    Path config = dir.resolve("configurations").resolve("config_" + name);
+                    return Files.isRegularFile(config) && Files.readAllLines(config, StandardCharsets.UTF_8).stream()
+                            .anyMatch(line -> line.matches("\\s*account\\s*=\\s*\\S.*"));
+                }
+                case "oci" -> {
+                    return Files.isRegularFile(ociConfig());
+                }
+                default -> {
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Everything the local probes read, so a cached answer is dropped as soon as any of it changes. */
+    String fingerprint() {
+        List<String> parts = new ArrayList<>();
+        parts.add(System.getProperty("user.name"));
+        for (String provider : ORDER) {
+            for (String name : ENV.get(provider)) {
+                parts.add(name + "=" + env.getOrDefault(name, ""));
+            }
+        }
+        parts.add("AWS_EC2_METADATA_DISABLED=" + env.getOrDefault("AWS_EC2_METADATA_DISABLED", ""));
+        for (Path file : List.of(awsCredentials(), awsConfig(), azureDir().resolve("azureProfile.json"),
+                gcloudDir().resolve("application_default_credentials.json"), gcloudDir().resolve("active_config"),
+                gcloudDir().resolve("configurations"), ociConfig())) {
+            parts.add(file + "@" + modified(file));
+        }
+        return RunCache.fingerprint(parts.toArray(String[]::new));
+    }
+
+    private Path awsCredentials() {
+        return path("AWS_SHARED_CREDENTIALS_FILE", home.resolve(".aws").resolve("credentials"));
+    }
+
+    private Path awsConfig() {
+        return path("AWS_CONFIG_FILE", home.resolve(".aws").resolve("config"));
+    }
+
+    private Path azureDir() {
+        return path("AZURE_CONFIG_DIR", home.resolve(".azure"));
+    }
+
+    private Path gcloudDir() {
+        return path("CLOUDSDK_CONFIG", home.resolve(".config").resolve("gcloud"));
+    }
+
+    private Path ociConfig() {
+        return path("OCI_CLI_CONFIG_FILE", home.resolve(".oci").resolve("config"));
+    }
+
+    private Path path(String variable, Path fallback) {
+        String value = env.get(variable);
+        return value != null && !value.isBlank() ? Paths.get(value) : fallback;
+    }
+
+    private static long modified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private Cached readCache() {
+        if (cacheFile == null || !Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+        try {
+            return GSON.fromJson(Files.readString(cacheFile, StandardCharsets.UTF_8), Cached.class);
+        } catch (IOException | JsonParseException e) {
+            return null;
+        }
+    }
+
+    private void writeCache(String fingerprint, String provider, long now) {
+        if (cacheFile == null) {
+            return;
+        }
+        Cached cached = new Cached();
+        cached.fingerprint = fingerprint;
+        cached.provider = provider;
+        cached.detectedAt = now;
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            Path temp = Files.createTempFile(cacheFile.getParent(), ".provider", ".tmp");
+            Files.writeString(temp, GSON.toJson(cached), StandardCharsets.UTF_8);
+            Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // read-only home or similar: detect again next time
+        }
+    }
+
+    private static String hostName(Map<String, String> env) {
+        for (String name : List.of("HOSTNAME", "COMPUTERNAME")) {
+            String value = env.get(name);
+            if (value != null && !value.isBlank()) {
+                return value;
+            }
+        }
+        try {
+            return Files.readString(Paths.get("/etc/hostname"), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            return "localhost";
+        }
+    }
+
+    private static final class Cached {
+        String fingerprint;
+        String provider;
+        long detectedAt;
+    }
+
+    /**
+     * The link-local metadata services: AWS IMDSv2 token endpoint, Azure IMDS, the GCE metadata server and OCI IMDS v2.
+     * Each needs a provider-specific header, so one cloud's endpoint never answers for another.
+     */
+    static final class HttpMetadataProbe implements MetadataProbe {
+
+        private static final String ENDPOINT = "http://169.254.169.254";
+
+        private final HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(DEFAULT_DEADLINE)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+
+        @Override
+        public boolean matches(String provider, Duration timeout) throws Exception {
+            HttpRequest.Builder request = HttpRequest.newBuilder().timeout(timeout);
+            switch (provider) {
+                case "aws" -> request.uri(URI.create(ENDPOINT + "/latest/api/token"))
+                        .header("X-aws-ec2-metadata-token-ttl-seconds", "60")
+                        .PUT(HttpRequest.BodyPublishers.noBody());
+                case "azure" -> request.uri(URI.create(ENDPOINT + "/metadata/instance?api-version=2021-02-01"))
+                        .header("Metadata", "true");
+                case "gcp" -> request.uri(URI.create(ENDPOINT + "/computeMetadata/v1/"))
+                        .header("Metadata-Flavor", "Google");
+                case "oci" -> request.uri(URI.create(ENDPOINT + "/opc/v2/instance/"))
+                        .header("Authorization", "Bearer Oracle");
+                default -> {
+                    return false;
+                }
+            }
+            HttpResponse<Void> response = client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+            if ("gcp".equals(provider)) {
+                return response.headers().firstValue("Metadata-Flavor").filter("Google"::equals).isPresent();
+            }
+            return response.statusCode() == 200;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package io.dscope.utils.crypto;
+
+import io.dscope.cloud.secret.CloudSecretConfig;
+import org.junit.jupiter.api.Test;
+import picocli.CommandLine;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CloudEncryptCLITest {
+
+    @Test
+    void buildKmsConfigMergesOverrides() {
+        Map<String, String> base = new LinkedHashMap<>();
+        base.put("region", "us-west-2");
+        base.put("keyId", "alias/base");
+
+        Map<String, String> overrides = new LinkedHashMap<>();
+        overrides.put("keyId", "alias/override");
+        overrides.put("context", "tenant-123");
+
+        CloudKmsConfig cfg = CloudEncryptCLI.buildKmsConfig("aws", base, overrides);
+
+        assertEquals("aws", cfg.getProvider());
+        assertEquals("us-west-2", cfg.getSettings().get("region"));
+        assertEquals("alias/override", cfg.getSettings().get("keyId"));
+        assertEquals("tenant-123", cfg.getSettings().get("context"));
+    }
+
+    @Test
+    void upsertPropertyReplacesExistingValue() {
+        List<String> lines = new ArrayList<>(List.of(
+                "FOO=bar",
+                "HELLO=world"
+        ));
+
+        List<String> updated = CloudEncryptCLI.upsertProperty(lines, "HELLO", "ENC(new)");
+
+        assertEquals(2, updated.size());
+        assertEquals("HELLO=ENC(new)", updated.get(1));
+    }
+
+    @Test
+    void upsertPropertyAppendsWhenMissing() {
+        List<String> lines = new ArrayList<>(List.of(
+                "FOO=bar"
+        ));
+
+        List<String> updated = CloudEncryptCLI.upsertProperty(lines, "HELLO", "ENC(new)");
+
+        assertEquals(2, updated.size());
+        assertEquals("HELLO=ENC(new)", updated.get(1));
+    }
+
+    @Test
+    void buildSecretConfigMergesOverrides() {
+        Map<String, String> base = new LinkedHashMap<>();
+        base.put("project", "base-project");
+        base.put("region", "us-central1");
+
+        Map<String, String> overrides = new LinkedHashMap<>();
+        overrides.put("region", "europe-west1");
+        overrides.put("label", "prod");
+
+        CloudSecretConfig secretConfig = CloudEncryptCLI.buildSecretConfig("gcp", base, overrides);
+
+        assertEquals("gcp", secretConfig.getProvider());
+        assertEquals("base-project", secretConfig.getSettings().get("project"));
+        assertEquals("europe-west1", secretConfig.getSettings().get("region"));
+        assertEquals("prod", secretConfig.getSettings().get("label"));
+    }
+
+    @Test
+    void jsonFormatIsOnlyTakenWhenAttached() {
+        CommandLine.ParseResult bare = new CommandLine(new CloudEncryptCLI()).parseArgs("--json", "config");
+        assertEquals("pretty", bare.matchedOptionValue("--json", null));
+        assertEquals(List.of("config"), bare.matchedPositionalValue(0, List.of()));
+
+        CommandLine.ParseResult stream = new CommandLine(new CloudEncryptCLI()).parseArgs("--json=stream", "config");
+        assertEquals("stream", stream.matchedOptionValue("--json", null));
+        assertEquals(List.of("config"), stream.matchedPositionalValue(0, List.of()));
+    }
+
+    @Test
+    void selectedAppliesTargetsIncludesAndExcludesToChangedFiles() {
+        Path yml = Path.of("config", "app.yml");
+        Path readme = Path.of("docs", "README.md");
+        FileDiscovery none = new FileDiscovery(null, false);
+
+        assertTrue(CloudEncryptCLI.selected(yml, List.of(), none));
+        assertFalse(CloudEncryptCLI.selected(readme, null, none));
+        assertTrue(CloudEncryptCLI.selected(Path.of("config", "app.json"), null, none));
+        assertTrue(CloudEncryptCLI.selected(yml, List.of("config"), none));
+        assertFalse(CloudEncryptCLI.selected(yml, List.of("other"), none));
+        assertTrue(CloudEncryptCLI.selected(yml, List.of("config/*.yml"), none));
+        assertTrue(CloudEncryptCLI.selected(readme, List.of("docs/README.md"), none));
+        assertFalse(CloudEncryptCLI.selected(yml, List.of("config"),
+                new FileDiscovery(List.of("regex:.*/app\\.yml"), false)));
+    }
+
+    @Test
+    void stagedEncryptRestagesTheFileButStagedDecryptNeverTouchesTheIndex() throws Exception {
+        Path repo = Files.createTempDirectory("staged").toRealPath();
+        run(repo, "git", "init", "-q");
+        Files.writeString(repo.resolve(".cloudencrypt.yml"), "provider: sim\nkms:\n  keyId: test\n");
+        Files.writeString(repo.resolve("app.env"), "DB_PASSWORD=hunter2\nPORT=80\n");
+        run(repo, "git", "add", "app.env");
+
+        cli(repo, "--staged", "--no-cache");
+        String encrypted = run(repo, "git", "show", ":app.env");
+        assertTrue(encrypted.startsWith("DB_PASSWORD=ENC("), encrypted);
+        assertEquals(encrypted, Files.readString(repo.resolve("app.env")));
+
+        cli(repo, "--staged", "--decrypt");
+        assertEquals("DB_PASSWORD=hunter2\nPORT=80\n", Files.readString(repo.resolve("app.env")));
+        assertEquals(encrypted, run(repo, "git", "show", ":app.env"), "decrypted plaintext must not be staged");
+    }
+
+    /** Runs the CLI in a separate JVM, because {@code --staged} works on the git repository of the working directory. */
+    private static void cli(Path dir, String... args) throws Exception {
+        List<String> command = new ArrayList<>(List.of(ProcessHandle.current().info().command().orElse("java"),
+                "-Duser.home=" + dir, "-cp", System.getProperty("java.class.path"), CloudEncryptCLI.class.getName()));
+        command.addAll(List.of(args));
+        run(dir, command.toArray(String[]::new));
+    }
+
+    private static String run(Path dir, String... command) throws Exception {
+        Process process = new ProcessBuilder(command).directory(dir.toFile()).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(0, process.waitFor(), output);
+        return output;
+    }
+}
@@ -0,0 +1,65 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandDaemonTest {
+
+    @Test
+    void forwardsCommandsUntilStoppedAndCleansUpTheSocket() throws Exception {
+        Path socket = Files.createTempDirectory("daemon").resolve(CommandDaemon.SOCKET_NAME);
+        Files.writeString(socket, ""); // stale file from a killed daemon
+        Thread daemon = Thread.ofVirtual().start(() -> {
+            try {
+                CommandDaemon.serve(socket, Duration.ZERO,
+                        args -> new CommandDaemon.Reply(args.size(), String.join(" ", args) + "\n", "warn\n"));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!Files.exists(socket) || Files.isRegularFile(socket)) {
+            assertTrue(System.currentTimeMillis() < deadline, "daemon did not start");
+            Thread.sleep(20);
+        }
+
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(socket)));
+        CommandDaemon.Reply reply = CommandDaemon.forward(socket, List.of("--check", "config"));
+        assertEquals(new CommandDaemon.Reply(2, "--check config\n", "warn\n"), reply);
+        Map<String, String> otherProfile = new HashMap<>(System.getenv());
+        otherProfile.put("AWS_PROFILE", "other-" + System.getenv("AWS_PROFILE"));
+        assertNull(CommandDaemon.forward(socket, List.of("--check"), otherProfile));
+        Map<String, String> unrelated = new HashMap<>(System.getenv());
+        unrelated.put("TERM_PROGRAM", "other");
+        assertEquals(reply, CommandDaemon.forward(socket, List.of("--check", "config"), unrelated));
+        assertThrows(IllegalStateException.class, () -> CommandDaemon.serve(socket, Duration.ZERO, args -> null));
+
+        assertTrue(CommandDaemon.stop(socket));
+        daemon.join(5000);
+        assertFalse(daemon.isAlive());
+        assertFalse(Files.exists(socket));
+        assertNull(CommandDaemon.forward(socket, List.of("--check")));
+        assertFalse(CommandDaemon.stop(socket));
+    }
+
+    @Test
+    void longRunningAndStdinCommandsAreNotForwarded() {
+        assertTrue(CloudEncryptCLI.forwardable(new String[] {"--check", "config"}));
+        assertFalse(CloudEncryptCLI.forwardable(new String[] {"daemon"}));
+        assertFalse(CloudEncryptCLI.forwardable(new String[] {"watch", "config"}));
+        assertFalse(CloudEncryptCLI.forwardable(new String[] {"store", "--stdin"}));
+        assertFalse(CloudEncryptCLI.forwardable(new String[] {"--check", "--json=stream", "config"}));
+        assertTrue(CloudEncryptCLI.forwardable(new String[] {"--check", "--json", "config"}));
+        assertTrue(CloudEncryptCLI.forwardable(new String[] {"--check", "--jfr=daemon.jfr", "watch/app.env"}));
+        assertTrue(CloudEncryptCLI.forwardable(new String[] {"encrypt", "--file", "daemon", "--out", "watch"}));
+    }
+}
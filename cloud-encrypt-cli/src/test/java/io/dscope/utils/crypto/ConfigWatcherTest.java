@@ -0,0 +1,87 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigWatcherTest {
+
+    @Test
+    void deliversDebouncedBatchesOfMatchingFilesIncludingNewDirectories() throws Exception {
+        Path dir = Files.createTempDirectory("watch").toRealPath();
+        BlockingQueue<List<Path>> batches = new LinkedBlockingQueue<>();
+        try (ConfigWatcher watcher = new ConfigWatcher(List.of(dir),
+                file -> file.getFileName().toString().endsWith(".env"), d -> false, 200)) {
+            Thread thread = Thread.ofVirtual().start(() -> {
+                try {
+                    watcher.run(batches::add);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            Path env = dir.resolve("app.env");
+            for (int i = 0; i < 5; i++) {
+                Files.writeString(env, "PASSWORD=" + i + "\n");
+            }
+            Files.writeString(dir.resolve("notes.txt"), "ignored\n");
+            List<Path> batch = batches.poll(30, TimeUnit.SECONDS);
+            assertEquals(List.of(env), batch);
+
+            Path nested = Files.createDirectories(dir.resolve("config"));
+            Thread.sleep(500); // let the watcher register the new directory
+            Files.writeString(nested.resolve("db.env"), "DB_PASSWORD=x\n");
+            batch = batches.poll(30, TimeUnit.SECONDS);
+            assertEquals(List.of(nested.resolve("db.env")), batch);
+
+            watcher.close();
+            thread.join(5000);
+            assertFalse(thread.isAlive());
+            assertTrue(batches.isEmpty());
+        }
+    }
+
+    @Test
+    void reportsFilesWrittenIntoANewDirectoryBeforeItIsWatched() throws Exception {
+        Path dir = Files.createTempDirectory("watch").toRealPath();
+        BlockingQueue<List<Path>> batches = new LinkedBlockingQueue<>();
+        try (ConfigWatcher watcher = new ConfigWatcher(List.of(dir),
+                file -> file.getFileName().toString().endsWith(".env"), d -> false, 200)) {
+            Thread.ofVirtual().start(() -> {
+                try {
+                    watcher.run(batches::add);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            Path nested = Files.createDirectories(dir.resolve("a").resolve("b"));
+            Files.writeString(nested.resolve("db.env"), "DB_PASSWORD=x\n");
+
+            assertEquals(List.of(nested.resolve("db.env")), batches.poll(30, TimeUnit.SECONDS));
+            assertEquals(3, watcher.watchedDirectories());
+        }
+    }
+
+    @Test
+    void doesNotWatchGitExcludedOrIgnoredDirectories() throws Exception {
+        Path dir = Files.createTempDirectory("watch").toRealPath();
+        Files.createDirectories(dir.resolve(".git").resolve("objects"));
+        Files.createDirectories(dir.resolve("target").resolve("classes"));
+        Files.createDirectories(dir.resolve("web").resolve("node_modules").resolve("lib"));
+        Files.createDirectories(dir.resolve("src").resolve("main"));
+        Files.writeString(dir.resolve(".gitignore"), "target/\n");
+        FileDiscovery discovery = new FileDiscovery(List.of("**/node_modules/**"), true);
+
+        try (ConfigWatcher watcher = new ConfigWatcher(List.of(dir), file -> true, discovery::skipped, 200)) {
+            assertEquals(4, watcher.watchedDirectories()); // dir, web, src, src/main
+        }
+    }
+}
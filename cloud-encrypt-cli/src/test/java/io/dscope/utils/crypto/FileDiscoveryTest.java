@@ -0,0 +1,124 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileDiscoveryTest {
+
+    @Test
+    void directoryWalkHonoursGitignoreAndPrunesExcludedTrees() throws Exception {
+        Path repo = tree("app.yml", "README.md", "config/db.properties", "config/local.env", "config/keep.env",
+                "logs/app.yml", "node_modules/pkg/config.yml", "target/classes/app.yml", "module/target/app.yml",
+                ".git/config.yml");
+        Files.writeString(repo.resolve(".gitignore"), "# build output\nlogs/\n*.env\n!keep.env\n");
+        Files.writeString(repo.resolve("module/.gitignore"), "/target\n");
+
+        FileDiscovery discovery = new FileDiscovery(List.of("**/node_modules/**", "regex:.*/classes/.*"), true);
+        assertEquals(List.of(repo.resolve("app.yml"), repo.resolve("config/db.properties"),
+                repo.resolve("config/keep.env")), discovery.resolve(repo.toString()));
+
+        FileDiscovery everything = new FileDiscovery(null, false);
+        assertEquals(8, everything.resolve(repo.toString()).size(), ".git is never walked");
+
+        assertTrue(discovery.ignored(repo.resolve("config/local.env")));
+        assertTrue(discovery.ignored(repo.resolve("logs/app.yml")));
+        assertTrue(discovery.ignored(repo.resolve("module/target/app.yml")));
+        assertFalse(discovery.ignored(repo.resolve("config/keep.env")));
+        // files named explicitly are taken even when ignored
+        assertEquals(List.of(repo.resolve("logs/app.yml")), discovery.resolve(repo.resolve("logs/app.yml").toString()));
+    }
+
+    @Test
+    void globsSpanDirectoriesOnlyWithDoubleStar() throws Exception {
+        Path root = tree("res/app.yml", "res/dev/app.yml", "res/dev/notes.txt", "res/a/b/c.yml");
+
+        assertEquals(List.of(root.resolve("res/app.yml"), root.resolve("res/a/b/c.yml"), root.resolve("res/dev/app.yml")),
+                new FileDiscovery(null, true).resolve(root + "/res/**/*.yml"));
+        assertEquals(List.of(root.resolve("res/app.yml")), new FileDiscovery(null, true).resolve(root + "/res/*.yml"));
+        assertEquals(List.of(root.resolve("res/dev/notes.txt")),
+                new FileDiscovery(null, true).resolve(root + "/res/*/*.{txt,md}"));
+        assertTrue(FileDiscovery.matchesGlob(root + "/res/**/*.yml", root.resolve("res/a/b/c.yml")));
+        assertFalse(FileDiscovery.matchesGlob(root + "/res/*.yml", root.resolve("res/dev/app.yml")));
+        assertEquals(Path.of("src/main"), FileDiscovery.base("src/main/**/*.yml"));
+    }
+
+    @Test
+    void globsMatchTheSameFilesWrittenRelativeOrAbsolute() throws Exception {
+        Path cwd = Path.of("").toAbsolutePath();
+        Path dir = Files.createTempDirectory(cwd, "discovery");
+        try {
+            Files.createDirectories(dir.resolve("res/dev"));
+            Files.writeString(dir.resolve("res/a.yml"), "key=value\n");
+            Files.writeString(dir.resolve("res/dev/b.yml"), "key=value\n");
+            String name = dir.getFileName().toString();
+            Path a = Path.of(name, "res", "a.yml");
+
+            FileDiscovery discovery = new FileDiscovery(null, false);
+            assertEquals(List.of(a), discovery.resolve(name + "/res/*.yml"));
+            assertEquals(List.of(Path.of(".").resolve(a)), discovery.resolve("./" + name + "/res/*.yml"));
+            assertEquals(List.of(a.toAbsolutePath()), discovery.resolve(cwd + "/" + name + "/res/*.yml"));
+            assertTrue(FileDiscovery.matchesGlob(cwd + "/" + name + "/res/*.yml", a));
+            assertTrue(FileDiscovery.matchesGlob(name + "/res/*.yml", a.toAbsolutePath()));
+            assertFalse(FileDiscovery.matchesGlob(cwd + "/" + name + "/res/*.yml", Path.of(name, "res/dev/b.yml")));
+
+            FileDiscovery absoluteExclude = new FileDiscovery(List.of(cwd + "/" + name + "/res/dev/**"), false);
+            assertEquals(List.of(a), absoluteExclude.resolve(name));
+        } finally {
+            try (Stream<Path> paths = Files.walk(dir)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    void excludesAreGlobsUnlessPrefixedWithRegex() {
+        FileDiscovery discovery = new FileDiscovery(List.of("regex:.*/secret\\.yml", "*.local.env", "glob:build/**",
+                "secrets.*", ".env.*", "regex:(^|/)tmp/.*$"), false);
+
+        assertTrue(discovery.excluded(Path.of("./config/secret.yml")));
+        assertFalse(discovery.excluded(Path.of("config/secret.yaml")));
+        assertTrue(discovery.excluded(Path.of("config/dev/app.local.env")));
+        assertTrue(discovery.excluded(Path.of("./build/out/app.yml")));
+        assertFalse(discovery.excluded(Path.of("src/build/app.yml")));
+        assertTrue(discovery.excluded(Path.of("config/secrets.yml")));
+        assertTrue(discovery.excluded(Path.of("deploy/.env.prod")));
+        assertFalse(discovery.excluded(Path.of("deploy/app.env")));
+        assertTrue(discovery.excluded(Path.of("tmp/app.yml")));
+        assertEquals(List.of(), discovery.ambiguousExcludes());
+
+        FileDiscovery ambiguous = new FileDiscovery(List.of(".*/fixtures/.*", "regex:.*/target/.*", "glob:.*/x",
+                "c++/**", "Program Files (x86)/**", "glob:(old)/**"), false);
+        assertEquals(List.of(".*/fixtures/.*", "c++/**", "Program Files (x86)/**"), ambiguous.ambiguousExcludes());
+        assertTrue(ambiguous.excluded(Path.of("c++/src/app.yml")));
+        assertFalse(ambiguous.excluded(Path.of("cc/src/app.yml")));
+        assertTrue(ambiguous.excluded(Path.of("Program Files (x86)/tool/app.yml")));
+        assertTrue(ambiguous.excluded(Path.of("(old)/app.yml")));
+        assertThrows(IllegalArgumentException.class, () -> new FileDiscovery(List.of("regex:(unclosed"), false));
+    }
+
+    @Test
+    void onlyDoubleStarAndDotStarExcludesPruneDirectories() throws Exception {
+        Path root = tree("build/app.yml", "dist/app.yml", "out/app.yml");
+
+        FileDiscovery discovery = new FileDiscovery(List.of("build", "**/dist/**", "regex:.*/out/.*"), false);
+        assertEquals(List.of(root.resolve("build/app.yml")), discovery.resolve(root.toString()));
+    }
+
+    private static Path tree(String... files) throws Exception {
+        Path root = Files.createTempDirectory("discovery");
+        Files.createDirectories(root.resolve(".git"));
+        for (String file : files) {
+            Path path = root.resolve(file);
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, "key=value\n");
+        }
+        return root;
+    }
+}
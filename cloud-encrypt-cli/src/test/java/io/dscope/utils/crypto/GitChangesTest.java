@@ -0,0 +1,61 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitChangesTest {
+
+    @Test
+    void listsStagedAndBranchChangesWithoutDeletedFiles() throws Exception {
+        Path repo = Files.createTempDirectory("git").toRealPath();
+        git(repo, "init", "-q", "-b", "main");
+        Files.writeString(repo.resolve("base.env"), "A=1\n");
+        Files.writeString(repo.resolve("gone.env"), "B=1\n");
+        git(repo, "add", ".");
+        git(repo, "-c", "user.name=t", "-c", "user.email=t@example.com", "commit", "-q", "-m", "base");
+
+        git(repo, "checkout", "-q", "-b", "feature");
+        Files.writeString(repo.resolve("base.env"), "A=2\n");
+        Files.delete(repo.resolve("gone.env"));
+        Files.createDirectories(repo.resolve("config"));
+        Files.writeString(repo.resolve("config/new.yml"), "token: x\n");
+        git(repo, "add", "base.env");
+
+        assertEquals(List.of(repo.resolve("base.env")), GitChanges.staged(repo));
+        assertEquals(List.of(repo.resolve("base.env"), repo.resolve("config/new.yml")),
+                GitChanges.changedSince(repo, "main"));
+        assertThrows(IllegalArgumentException.class, () -> GitChanges.changedSince(repo, "--output=x"));
+        assertThrows(IllegalArgumentException.class, () -> GitChanges.changedSince(repo, "no-such-ref"));
+    }
+
+    @Test
+    void reportsPartiallyStagedFilesAndRestagesRewrittenOnes() throws Exception {
+        Path repo = Files.createTempDirectory("git").toRealPath();
+        git(repo, "init", "-q", "-b", "main");
+        Path env = Files.writeString(repo.resolve("app.env"), "TOKEN=plain\n");
+        Path yml = Files.writeString(repo.resolve("app.yml"), "token: plain\n");
+        git(repo, "add", ".");
+        assertEquals(List.of(), GitChanges.unstaged(repo, List.of(env, yml)));
+
+        Files.writeString(env, "TOKEN=ENC(abc)\n");
+        assertEquals(List.of(env), GitChanges.unstaged(repo, List.of(env, yml)));
+
+        GitChanges.add(repo, List.of(env));
+        assertEquals(List.of(), GitChanges.unstaged(repo, List.of(env, yml)));
+        assertEquals(List.of(env, yml), GitChanges.staged(repo));
+    }
+
+    private static void git(Path dir, String... args) throws Exception {
+        String[] command = new String[args.length + 3];
+        command[0] = "git";
+        command[1] = "-C";
+        command[2] = dir.toString();
+        System.arraycopy(args, 0, command, 3, args.length);
+        assertEquals(0, new ProcessBuilder(command).inheritIO().start().waitFor());
+    }
+}
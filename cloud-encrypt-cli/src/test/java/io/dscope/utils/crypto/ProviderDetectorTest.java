@@ -0,0 +1,104 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProviderDetectorTest {
+
+    @Test
+    void environmentAndCredentialFilesAreFoundWithoutTheMetadataEndpoints() throws Exception {
+        Path home = Files.createTempDirectory("home");
+        AtomicBoolean probed = new AtomicBoolean();
+        ProviderDetector.MetadataProbe recording = (provider, timeout) -> {
+            probed.set(true);
+            return true;
+        };
+
+        assertEquals("gcp", detector(Map.of("K_SERVICE", "api"), home, recording).probe());
+        // a credentials variable naming a missing file does not count
+        assertEquals("oci", detector(Map.of("GOOGLE_APPLICATION_CREDENTIALS", "/missing.json",
+                "OCI_RESOURCE_PRINCIPAL_VERSION", "2.2"), home, recording).probe());
+
+        Path gcloud = Files.createDirectories(home.resolve(".config/gcloud/configurations"));
+        Files.writeString(gcloud.resolve("config_default"), "[core]\naccount = dev@example.com\nproject = demo\n");
+        assertEquals("gcp", detector(Map.of(), home, recording).probe());
+
+        Files.createDirectories(home.resolve(".aws"));
+        Files.writeString(home.resolve(".aws/credentials"), "[default]\n");
+        // both have credentials: the earlier provider in ORDER wins
+        assertEquals("aws", detector(Map.of(), home, recording).probe());
+        assertFalse(probed.get(), "metadata endpoints should not be probed when local credentials exist");
+    }
+
+    @Test
+    void gcloudConfigWithoutAnAccountIsNotCredentials() throws Exception {
+        Path home = Files.createTempDirectory("home");
+        Path gcloud = Files.createDirectories(home.resolve(".config/gcloud/configurations"));
+        Files.writeString(gcloud.resolve("config_default"), "[core]\nproject = demo\n# account = old@example.com\n");
+        assertNull(detector(Map.of(), home, (p, t) -> false).probe());
+    }
+
+    @Test
+    void metadataProbesRunInParallelAndSlowOnesMissTheDeadline() throws Exception {
+        Path home = Files.createTempDirectory("home");
+        Set<String> probed = ConcurrentHashMap.newKeySet();
+        ProviderDetector.MetadataProbe metadata = (provider, timeout) -> {
+            probed.add(provider);
+            if (provider.equals("aws")) {
+                Thread.sleep(10_000); // unreachable endpoint that never answers
+            }
+            return provider.equals("gcp") || provider.equals("oci");
+        };
+
+        long started = System.nanoTime();
+        assertEquals("gcp", detector(Map.of(), home, metadata).probe());
+        long elapsed = Duration.ofNanos(System.nanoTime() - started).toMillis();
+        assertTrue(elapsed < 2_000, "took " + elapsed + " ms");
+        assertEquals(Set.of("aws", "azure", "gcp", "oci"), probed);
+
+        assertNull(detector(Map.of("AWS_EC2_METADATA_DISABLED", "true"), home, (p, t) -> false).probe());
+    }
+
+    @Test
+    void resultIsCachedUntilTheCredentialsChange() throws Exception {
+        Path home = Files.createTempDirectory("home");
+        Path cache = home.resolve(".cache/cloud-encrypt/provider-test.json");
+        AtomicInteger probes = new AtomicInteger();
+        ProviderDetector.MetadataProbe metadata = (provider, timeout) -> {
+            probes.incrementAndGet();
+            return false;
+        };
+
+        ProviderDetector detector = new ProviderDetector(Map.of(), home, metadata, Duration.ofMillis(200), cache,
+                Duration.ofHours(1));
+        assertNull(detector.detect());
+        assertEquals(4, probes.get());
+        assertNull(detector.detect());
+        assertEquals(4, probes.get(), "second lookup should come from the cache");
+        assertTrue(Files.isRegularFile(cache));
+
+        ProviderDetector expired = new ProviderDetector(Map.of(), home, metadata, Duration.ofMillis(200), cache,
+                Duration.ZERO);
+        assertNull(expired.detect());
+        assertEquals(8, probes.get(), "an expired entry should be probed again");
+
+        Files.createDirectories(home.resolve(".oci"));
+        Files.writeString(home.resolve(".oci/config"), "[DEFAULT]\n");
+        assertEquals("oci", detector.detect());
+    }
+
+    private static ProviderDetector detector(Map<String, String> env, Path home,
+                                             ProviderDetector.MetadataProbe metadata) {
+        return new ProviderDetector(env, home, metadata, Duration.ofMillis(500), null, Duration.ZERO);
+    }
+}
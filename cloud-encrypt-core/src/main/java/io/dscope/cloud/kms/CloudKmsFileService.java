@@ -5,6 +5,8 @@ import io.dscope.utils.crypto.CloudDecryptor;
 import io.dscope.utils.crypto.CloudEncryptFactory;
 import io.dscope.utils.crypto.CloudEncryptor;
 import io.dscope.utils.crypto.CloudKmsConfig;
+import io.dscope.utils.crypto.EnvelopeSegmentEvent;
+import io.dscope.utils.crypto.OperationMetrics;
 
 import javax.crypto.Cipher;
 import javax.crypto.CipherInputStream;
@@ -91,9 +93,18 @@ public class CloudKmsFileService {
 
             writeHeader(buffered, config.getProvider(), encryptedKey, iv);
 
+            long started = OperationMetrics.start();
+            EnvelopeSegmentEvent event = new EnvelopeSegmentEvent();
+            event.begin();
+            long bytes = 0;
+            boolean failed = true;
             try (CipherInputStream cipherIn = new CipherInputStream(in, cipher);
                  OutputStream base64Out = Base64.getMimeEncoder().wrap(buffered)) {
-                cipherIn.transferTo(base64Out);
+                bytes = cipherIn.transferTo(base64Out);
+                failed = false;
+            } finally {
+                OperationMetrics.record("cipher.encrypt", config.getProvider(), started, bytes, failed);
+                event.finish(config.getProvider(), "encrypt", bytes, !failed);
             }
         }
     }
@@ -128,7 +139,19 @@ public class CloudKmsFileService {
         }
 
         byte[] ciphertext = readCiphertextSection(input);
-        byte[] plaintext = cipher.doFinal(ciphertext);
+        long started = OperationMetrics.start();
+        EnvelopeSegmentEvent event = new EnvelopeSegmentEvent();
+        event.begin();
+        byte[] plaintext;
+        try {
+            plaintext = cipher.doFinal(ciphertext);
+        } catch (GeneralSecurityException e) {
+            OperationMetrics.record("cipher.decrypt", metadata.provider, started, ciphertext.length, true);
+            event.finish(metadata.provider, "decrypt", ciphertext.length, false);
+            throw e;
+        }
+        OperationMetrics.record("cipher.decrypt", metadata.provider, started, plaintext.length, false);
+        event.finish(metadata.provider, "decrypt", plaintext.length, true);
         try (OutputStream out = Files.newOutputStream(output, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
             out.write(plaintext);
         }
@@ -0,0 +1,31 @@
+package io.dscope.cloud.secret;
+
+import io.dscope.utils.crypto.ProviderRegistry;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Factory that instantiates the appropriate {@link CloudSecretStorageService} for the configured
+ * cloud provider. Providers are discovered through {@link SecretStorageProvider}.
+ */
+public final class CloudSecretStorageFactory {
+
+    private static final ProviderRegistry<SecretStorageProvider> PROVIDERS =
+            new ProviderRegistry<>(SecretStorageProvider.class, SecretStorageProvider::names);
+
+    private CloudSecretStorageFactory() {
+    }
+
+    public static CloudSecretStorageService create(CloudSecretConfig config) throws Exception {
+        Objects.requireNonNull(config, "config");
+        String provider = config.getProvider().toLowerCase(Locale.ROOT);
+        SecretStorageProvider storageProvider = PROVIDERS.find(provider);
+        if (storageProvider == null) {
+            throw new IllegalArgumentException("Unsupported secret storage provider: " + provider + " (available: "
+                    + String.join(", ", PROVIDERS.names()) + ")");
+        }
+        // always wrapped, like the KMS clients: metrics or a recording may be switched on after the service is created
+        return new InstrumentedSecretStorageService(provider, storageProvider.create(config));
+    }
+}
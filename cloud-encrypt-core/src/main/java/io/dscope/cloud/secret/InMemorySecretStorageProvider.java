@@ -0,0 +1,19 @@
+package io.dscope.cloud.secret;
+
+import java.util.Set;
+
+/**
+ * {@link SecretStorageProvider} for the process-local in-memory store.
+ */
+public final class InMemorySecretStorageProvider implements SecretStorageProvider {
+
+    @Override
+    public Set<String> names() {
+        return Set.of("memory", "local");
+    }
+
+    @Override
+    public CloudSecretStorageService create(CloudSecretConfig config) throws Exception {
+        return new InMemorySecretStorageService();
+    }
+}
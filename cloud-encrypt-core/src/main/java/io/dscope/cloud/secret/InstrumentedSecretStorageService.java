@@ -0,0 +1,91 @@
+package io.dscope.cloud.secret;
+
+import io.dscope.utils.crypto.OperationMetrics;
+import io.dscope.utils.crypto.SecretFetchEvent;
+
+import java.util.Map;
+
+/**
+ * Times the calls of another {@link CloudSecretStorageService} as {@code secret.put}, {@code secret.get} and
+ * {@code secret.delete} in {@link OperationMetrics} and as {@link SecretFetchEvent}s. Wraps every service the factory
+ * creates; while metrics are off and no recording captures secret events, each call costs a volatile read and an
+ * event that is never committed.
+ */
+final class InstrumentedSecretStorageService implements CloudSecretStorageService {
+
+    private final String provider;
+    private final CloudSecretStorageService delegate;
+
+    InstrumentedSecretStorageService(String provider, CloudSecretStorageService delegate) {
+        this.provider = provider;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void putSecret(String name, byte[] data, Map<String, String> metadata) throws Exception {
+        long started = OperationMetrics.start();
+        SecretFetchEvent event = new SecretFetchEvent();
+        event.begin();
+        long bytes = data != null ? data.length : 0;
+        boolean failed = true;
+        try {
+            delegate.putSecret(name, data, metadata);
+            failed = false;
+        } finally {
+            OperationMetrics.record("secret.put", provider, started, bytes, failed);
+            event.finish(provider, "put", name, bytes, !failed);
+        }
+    }
+
+    @Override
+    public SecretRecord getSecret(String name) throws Exception {
+        long started = OperationMetrics.start();
+        SecretFetchEvent event = new SecretFetchEvent();
+        event.begin();
+        SecretRecord record = null;
+        try {
+            record = delegate.getSecret(name);
+            return record;
+        } finally {
+            long bytes = record != null ? record.data().length : 0;
+            OperationMetrics.record("secret.get", provider, started, bytes, record == null);
+            event.finish(provider, "get", name, bytes, record != null);
+        }
+    }
+
+    @Override
+    public byte[] getSecretBytes(String name) throws Exception {
+        long started = OperationMetrics.start();
+        SecretFetchEvent event = new SecretFetchEvent();
+        event.begin();
+        byte[] data = null;
+        try {
+            data = delegate.getSecretBytes(name);
+            return data;
+        } finally {
+            long bytes = data != null ? data.length : 0;
+            OperationMetrics.record("secret.get", provider, started, bytes, data == null);
+            event.finish(provider, "get", name, bytes, data != null);
+        }
+    }
+
+    @Override
+    public void deleteSecret(String name) throws Exception {
+        long started = OperationMetrics.start();
+        SecretFetchEvent event = new SecretFetchEvent();
+        event.begin();
+        boolean failed = true;
+        try {
+            delegate.deleteSecret(name);
+            failed = false;
+        } finally {
+            OperationMetrics.record("secret.delete", provider, started, 0, failed);
+            event.finish(provider, "delete", name, 0, !failed);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        delegate.close();
+    }
+}
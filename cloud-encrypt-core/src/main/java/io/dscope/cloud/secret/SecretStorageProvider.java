@@ -0,0 +1,18 @@
+package io.dscope.cloud.secret;
+
+import java.util.Set;
+
+/**
+ * Service provider interface for secret manager backends, discovered with {@link java.util.ServiceLoader} from
+ * {@code META-INF/services/io.dscope.cloud.secret.SecretStorageProvider}. As with
+ * {@link io.dscope.utils.crypto.KmsProvider}, implementations should only touch their SDK inside {@link #create}.
+ */
+public interface SecretStorageProvider {
+
+    /**
+     * Provider names (lower case) accepted in {@code secret.provider} and {@code --provider}.
+     */
+    Set<String> names();
+
+    CloudSecretStorageService create(CloudSecretConfig config) throws Exception;
+}
@@ -0,0 +1,19 @@
+package io.dscope.cloud.secret;
+
+import java.util.Set;
+
+/**
+ * {@link SecretStorageProvider} for the latency and fault-injecting {@code sim} store.
+ */
+public final class SimulatedSecretStorageProvider implements SecretStorageProvider {
+
+    @Override
+    public Set<String> names() {
+        return Set.of("sim", "simulator");
+    }
+
+    @Override
+    public CloudSecretStorageService create(CloudSecretConfig config) throws Exception {
+        return new SimulatedSecretStorageService(config.getSettings());
+    }
+}
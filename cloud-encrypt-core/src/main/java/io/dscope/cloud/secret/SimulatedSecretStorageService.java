@@ -0,0 +1,50 @@
+package io.dscope.cloud.secret;
+
+import io.dscope.utils.crypto.SimulatedBackend;
+
+import java.util.Map;
+
+/**
+ * In-memory secret store that behaves like a remote secret manager: every operation pays a simulated round trip and
+ * is subject to the configured quota and error rate (see {@link SimulatedBackend}). Selected with the {@code sim}
+ * secret provider.
+ */
+public class SimulatedSecretStorageService extends InMemorySecretStorageService {
+
+    private final SimulatedBackend backend;
+
+    public SimulatedSecretStorageService(Map<String, String> settings) {
+        this(SimulatedBackend.from(settings, "secret"));
+    }
+
+    SimulatedSecretStorageService(SimulatedBackend backend) {
+        this.backend = backend;
+    }
+
+    @Override
+    public void putSecret(String name, byte[] data, Map<String, String> metadata) {
+        roundTrip("PutSecretValue");
+        super.putSecret(name, data, metadata);
+    }
+
+    @Override
+    public SecretRecord getSecret(String name) {
+        roundTrip("GetSecretValue");
+        return super.getSecret(name);
+    }
+
+    @Override
+    public void deleteSecret(String name) {
+        roundTrip("DeleteSecret");
+        super.deleteSecret(name);
+    }
+
+    private void roundTrip(String operation) {
+        try {
+            backend.roundTrip(operation);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during simulated " + operation, ex);
+        }
+    }
+}
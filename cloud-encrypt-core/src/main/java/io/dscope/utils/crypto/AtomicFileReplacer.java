@@ -0,0 +1,69 @@
+package io.dscope.utils.crypto;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes the new content of {@code target} to a temporary file in the same directory (carrying over the POSIX
+ * permissions of the original) and atomically renames it over the target on {@link #commit()}. A symbolic link is
+ * followed first, so the file it points to is replaced and the link stays a link. Closing without committing deletes
+ * the temporary file and leaves the target untouched.
+ */
+final class AtomicFileReplacer implements Closeable {
+
+    private final Path target;
+    private final Path temp;
+    private final OutputStream out;
+    private boolean done;
+
+    AtomicFileReplacer(Path target) throws IOException {
+        this.target = target.toRealPath();
+        this.temp = Files.createTempFile(this.target.getParent(), "." + this.target.getFileName() + ".", ".tmp");
+        try {
+            try {
+                Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(this.target));
+            } catch (UnsupportedOperationException ignored) {
+                // non-POSIX file system: keep the default permissions
+            }
+            this.out = new BufferedOutputStream(Files.newOutputStream(temp));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    OutputStream out() {
+        return out;
+    }
+
+    void commit() throws IOException {
+        long started = OperationMetrics.start();
+        out.close();
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        done = true;
+        OperationMetrics.record("file.commit", "", started, 0, false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (done) {
+            return;
+        }
+        done = true;
+        try {
+            out.close();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package io.dscope.utils.crypto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memoizing {@link CloudDecryptor} decorator. Results are keyed by the SHA-256 digest of the ciphertext, so repeated
+ * occurrences of the same {@code ENC(...)} value (across files, environments or calls on a long-lived client) cost
+ * one KMS call. Concurrent requests for a ciphertext that is already being decrypted wait for that call instead of
+ * issuing their own.
+ *
+ * <p>The cache holds at most {@code maxEntries} plaintexts in least-recently-used order. Plaintexts are stored as
+ * UTF-8 byte arrays that are zero-filled when they are evicted or when the decryptor is {@linkplain #close() closed}.
+ * Strings already handed to callers are immutable and cannot be wiped. Failures are never cached.</p>
+ */
+public final class CachingDecryptor implements CloudDecryptor, AutoCloseable {
+
+    private final CloudDecryptor delegate;
+    private final int maxEntries;
+    private final Map<ByteBuffer, byte[]> cache;
+    private final Map<ByteBuffer, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CachingDecryptor(CloudDecryptor delegate, int maxEntries) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.maxEntries = maxEntries;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, byte[]> eldest) {
+                if (size() > CachingDecryptor.this.maxEntries) {
+                    Arrays.fill(eldest.getValue(), (byte) 0);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public String decrypt(String cipherBase64) throws Exception {
+        KmsDecryptEvent event = new KmsDecryptEvent();
+        event.begin();
+        ByteBuffer key = digest(cipherBase64);
+        synchronized (cache) {
+            byte[] plain = cache.get(key);
+            if (plain != null) {
+                hits.incrementAndGet();
+                event.finish(null, null, cipherBase64.length(), true, true);
+                return new String(plain, StandardCharsets.UTF_8);
+            }
+        }
+
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> pending = inFlight.putIfAbsent(key, mine);
+        if (pending != null) {
+            hits.incrementAndGet();
+            boolean failed = true;
+            try {
+                String plain = await(pending);
+                failed = false;
+                return plain;
+            } finally {
+                event.finish(null, null, cipherBase64.length(), true, !failed);
+            }
+        }
+
+        misses.incrementAndGet();
+        try {
+            String plain = delegate.decrypt(cipherBase64);
+            synchronized (cache) {
+                cache.put(key, plain.getBytes(StandardCharsets.UTF_8));
+            }
+            mine.complete(plain);
+            return plain;
+        } catch (Exception | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /** Decrypts served from the cache or from another caller's in-flight request. */
+    public long hits() {
+        return hits.get();
+    }
+
+    /** Decrypts that reached the delegate. */
+    public long misses() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /** Wipes and drops every cached plaintext. */
+    @Override
+    public void close() {
+        synchronized (cache) {
+            for (byte[] plain : cache.values()) {
+                Arrays.fill(plain, (byte) 0);
+            }
+            cache.clear();
+        }
+    }
+
+    private static String await(CompletableFuture<String> pending) throws Exception {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a KMS decrypt", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception ex) throw ex;
+            if (cause instanceof Error err) throw err;
+            throw e;
+        }
+    }
+
+    private static ByteBuffer digest(String ciphertext) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(sha256.digest(ciphertext.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
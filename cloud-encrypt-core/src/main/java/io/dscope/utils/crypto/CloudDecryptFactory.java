@@ -0,0 +1,34 @@
+package io.dscope.utils.crypto;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class CloudDecryptFactory {
+    public static CloudDecryptor create(String provider, Map<String, String> config) {
+        String p = provider == null ? "" : provider.toLowerCase();
+        if (config == null) config = new HashMap<>();
+        CloudDecryptor decryptor = CloudEncryptFactory.kmsProvider(provider).createDecryptor(config);
+        return metered(p, CloudEncryptFactory.keyAlias(config), KmsRateGovernor.shared().governDecryptor(p, config, decryptor));
+    }
+
+    /**
+     * Times each call, throttling waits and retries included, for {@link OperationMetrics} and as a
+     * {@link KmsDecryptEvent}.
+     */
+    static CloudDecryptor metered(String provider, String keyAlias, CloudDecryptor decryptor) {
+        return cipherBase64 -> {
+            long started = OperationMetrics.start();
+            KmsDecryptEvent event = new KmsDecryptEvent();
+            event.begin();
+            boolean failed = true;
+            try {
+                String plainText = decryptor.decrypt(cipherBase64);
+                failed = false;
+                return plainText;
+            } finally {
+                OperationMetrics.record("kms.decrypt", provider, started, cipherBase64.length(), failed);
+                event.finish(provider, keyAlias, cipherBase64.length(), false, !failed);
+            }
+        };
+    }
+}
@@ -0,0 +1,689 @@
+package io.dscope.utils.crypto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class CloudEncryptCore {
+
+    static final int DEFAULT_CONCURRENCY = 16;
+    static final int DEFAULT_DECRYPT_CACHE = 4096;
+
+    public static class Result {
+        public List<String> outputLines;
+        public int changedCount;
+        public int unencryptedCount;
+        public List<String> affectedKeys;
+        /** The file looked binary and was skipped. */
+        public boolean binary;
+        /** Answered from the {@link RunCache} without processing the file. */
+        public boolean cached;
+    }
+
+    public static Map<String, Object> processFile(Path path, String provider,
+                                                  Map<String, String> kmsConfig,
+                                                  boolean dryRun, boolean decryptMode,
+                                                  boolean jsonMode, boolean checkMode) throws Exception {
+        Options options = Options.builder(provider)
+                .kmsConfig(kmsConfig)
+                .dryRun(dryRun)
+                .decryptMode(decryptMode)
+                .jsonMode(jsonMode)
+                .checkMode(checkMode)
+                .threads(1)
+                .build();
+        return processFiles(List.of(path), options).get(0);
+    }
+
+    /**
+     * Processes {@code files} concurrently on virtual threads, at most {@link Options#threads()} files at a time.
+     * One encryptor (or decryptor) is created for the whole run and shared by every file, and all files together keep
+     * at most {@link Options#maxInFlight()} KMS calls outstanding. Results are returned in the order of {@code files}
+     * regardless of completion order; the first failure (in file order) is rethrown.
+     *
+     * <p>With {@link Options#envelope()} (or {@code kms.envelope: true}) new values are written as {@code ENC2(...)}:
+     * each file gets one KMS-wrapped data key in a header comment and its values are sealed locally under it.
+     * Decryption reads both formats, so files may mix legacy {@code ENC(...)} and {@code ENC2(...)} values.</p>
+     *
+     * <p>Decrypts go through a run-scoped {@link CachingDecryptor} ({@code kms.decryptCache} entries, default
+     * {@value #DEFAULT_DECRYPT_CACHE}; {@code 0} disables it), so each distinct ciphertext costs one KMS call however
+     * often it occurs. The cache is wiped when the run ends.</p>
+     *
+     * <p>Check runs use a pool of platform threads (at most one per core) instead of the KMS pipeline. YAML and JSON
+     * files are checked by the processors that would encrypt them, other files by {@link SecretAuditScanner}. Binary files are skipped in every mode. {@link Options#onResult()} receives each result as
+     * soon as it and all earlier files are done, so output can be streamed while keeping file order. At most twice
+     * {@link Options#threads()} files are in progress or waiting to be reported at any time, and with
+     * {@link Options#retainResults()} off nothing is kept afterwards, so memory does not grow with the number of
+     * files.</p>
+     *
+     * <p>With a {@link Options#runCache()}, check and encrypt runs skip files the cache vouches for; their results
+     * carry {@code cached: true}. The KMS clients are only created once a file actually needs them, so a run that is
+     * answered entirely from the cache makes no provider calls. With {@link Options#clients()} they are taken from
+     * (and kept in) that pool instead of being created for this run.</p>
+     */
+    public static List<Map<String, Object>> processFiles(List<Path> files, Options options) throws Exception {
+        Map<String, String> cfg = new HashMap<>(options.kmsConfig());
+        boolean envelope = options.envelope() || Boolean.parseBoolean(cfg.get("envelope"));
+        Function<String,String> enc = null;
+        Function<String,String> dec = null;
+        CachingDecryptor decryptCache = null;
+
+        if (!options.checkMode() && !files.isEmpty()) {
+            Semaphore inFlight = options.maxInFlight() > 0 ? new Semaphore(options.maxInFlight()) : null;
+            if (options.decryptMode() || envelope) {
+                Supplier<CloudDecryptor> d = memoize(() -> options.clients() != null
+                        ? options.clients().decryptor(options.provider(), cfg)
+                        : CloudDecryptFactory.create(options.provider(), cfg));
+                CloudDecryptor kms = c -> limited(inFlight, () -> d.get().decrypt(c));
+                int cacheSize = decryptCacheSize(cfg);
+                if (cacheSize > 0) {
+                    decryptCache = new CachingDecryptor(kms, cacheSize);
+                }
+                CloudDecryptor runDecryptor = decryptCache != null ? decryptCache : kms;
+                dec = s -> limited(null, () -> runDecryptor.decrypt(stripEnc(s)));
+            }
+            if (!options.decryptMode()) {
+                Supplier<CloudEncryptor> e = memoize(() -> options.clients() != null
+                        ? options.clients().encryptor(options.provider(), cfg)
+                        : CloudEncryptFactory.create(options.provider(), cfg));
+                enc = s -> limited(inFlight, () -> e.get().encrypt(s));
+            }
+        }
+
+        try {
+            return processFiles(files, options, envelope, enc, dec, concurrency(cfg));
+        } finally {
+            if (decryptCache != null) decryptCache.close();
+        }
+    }
+
+    private static List<Map<String, Object>> processFiles(List<Path> files, Options options, boolean envelope,
+                                                          Function<String,String> encryptFn,
+                                                          Function<String,String> decryptFn,
+                                                          int perFile) throws Exception {
+        List<Map<String, Object>> results = new ArrayList<>(options.retainResults() ? files.size() : 0);
+        if (files.size() == 1 || options.threads() <= 1) {
+            for (Path file : files) {
+                Map<String, Object> result = meteredProcessFile(file, options, envelope, encryptFn, decryptFn, perFile);
+                options.onResult().accept(result);
+                if (options.retainResults()) results.add(result);
+            }
+            return results;
+        }
+
+        // Checks are CPU-bound byte scans, so they get one platform thread per core; KMS work waits on the network
+        // and runs on virtual threads.
+        Semaphore fileSlots = new Semaphore(options.threads());
+        ExecutorService executor = options.checkMode()
+                ? Executors.newFixedThreadPool(Math.min(options.threads(), Runtime.getRuntime().availableProcessors()))
+                : Executors.newVirtualThreadPerTaskExecutor();
+        // Files are submitted as a sliding window over the list, so a huge run never has more than a couple of
+        // batches of tasks (and finished results waiting for a slow earlier file) in memory.
+        int window = options.threads() * 2;
+        Deque<Future<Map<String, Object>>> futures = new ArrayDeque<>(window);
+        Iterator<Path> pending = files.iterator();
+        try {
+            while (pending.hasNext() || !futures.isEmpty()) {
+                while (pending.hasNext() && futures.size() < window) {
+                    Path file = pending.next();
+                    futures.add(executor.submit(() -> {
+                        fileSlots.acquire();
+                        try {
+                            return meteredProcessFile(file, options, envelope, encryptFn, decryptFn, perFile);
+                        } finally {
+                            fileSlots.release();
+                        }
+                    }));
+                }
+                Map<String, Object> result = futures.poll().get();
+                options.onResult().accept(result);
+                if (options.retainResults()) results.add(result);
+            }
+            return results;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception ex) throw ex;
+            if (cause instanceof Error err) throw err;
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** {@link #processFile}, timed as {@code file.<mode>}, or {@code file.cached} when the run cache answered. */
+    private static Map<String, Object> meteredProcessFile(Path path, Options options, boolean envelope,
+                                                          Function<String,String> enc, Function<String,String> dec,
+                                                          int concurrency) throws IOException {
+        long started = OperationMetrics.start();
+        if (started == 0) {
+            return processFile(path, options, envelope, enc, dec, concurrency);
+        }
+        String mode = options.checkMode() ? "check" : (options.decryptMode() ? "decrypt" : "encrypt");
+        Map<String, Object> result = null;
+        try {
+            result = processFile(path, options, envelope, enc, dec, concurrency);
+            return result;
+        } finally {
+            String operation = result != null && result.containsKey("cached") ? "file.cached" : "file." + mode;
+            long bytes;
+            try {
+                bytes = Files.size(path);
+            } catch (IOException e) {
+                bytes = 0;
+            }
+            OperationMetrics.record(operation, options.provider(), started, bytes, result == null);
+        }
+    }
+
+    private static Map<String, Object> processFile(Path path, Options options, boolean envelope,
+                                                   Function<String,String> enc, Function<String,String> dec,
+                                                   int concurrency) throws IOException {
+        RunCache cache = options.decryptMode() ? null : options.runCache();
+        if (options.checkMode()) {
+            Result cached = cache != null ? cache.checked(path) : null;
+            if (cached != null) {
+                cached.cached = true;
+                return result(path, options, cached);
+            }
+            Result r = check(path, options.sensitiveKeys());
+            if (cache != null) cache.recordCheck(path, r);
+            return result(path, options, r);
+        }
+        Result clean = cache != null ? cache.encrypted(path) : null;
+        if (clean != null) {
+            clean.cached = true;
+            return result(path, options, clean);
+        }
+        if (SecretAuditScanner.looksBinary(path)) {
+            Result skipped = new Result();
+            skipped.affectedKeys = List.of();
+            skipped.binary = true;
+            if (cache != null) cache.recordEncrypted(path, true);
+            return result(path, options, skipped);
+        }
+        // JSON has no comments, so there is nowhere to keep a data key header: its values stay plain ENC(...)
+        boolean sealNew = envelope && !options.decryptMode() && ConfigFileProcessor.supportsHeader(path);
+
+        // The data key is only unwrapped (or generated) once a value actually needs it, so dry runs and files
+        // without secrets cost no KMS call and gain no header.
+        DataKeySlot slot = new DataKeySlot(() -> {
+            String header = findHeader(path);
+            if (header != null) {
+                return FileDataKey.unwrap(header, dec);
+            }
+            if (sealNew) {
+                return FileDataKey.generate(enc);
+            }
+            throw new IllegalStateException(path + ": ENC2(...) values found but the file has no data key header");
+        });
+
+        Result r;
+        try {
+            BiFunction<String,String,String> encryptFn = enc == null ? null
+                    : sealNew ? (k, v) -> slot.get().seal(k, v) : (k, v) -> enc.apply(v);
+            BiFunction<String,String,String> decryptFn = dec == null ? null
+                    : options.decryptMode() ? (k, v) -> FileDataKey.isSealed(v) ? slot.get().open(k, v) : dec.apply(v)
+                    : (k, v) -> dec.apply(v);
+            ConfigFileProcessor processor = ConfigFileProcessor.forFile(path, options.dryRun(), options.decryptMode(),
+                    options.checkMode(), encryptFn, decryptFn, sealNew ? 1 : concurrency, sealNew, slot::newHeaderLine,
+                    options.sensitiveKeys());
+            r = processor.process(path);
+        } finally {
+            slot.close();
+        }
+        if (cache != null && (!options.dryRun() || r.changedCount == 0)) {
+            cache.recordEncrypted(path, false);
+        }
+        return result(path, options, r);
+    }
+
+    /**
+     * YAML and JSON are checked by the same processors that encrypt them, so a check reports exactly the values an
+     * encrypt run would seal; everything else goes through the byte scanner.
+     */
+    private static Result check(Path path, SensitiveKeyMatcher sensitiveKeys) throws IOException {
+        if (ConfigFileProcessor.structured(path) && !SecretAuditScanner.looksBinary(path)) {
+            return ConfigFileProcessor.forFile(path, false, false, true, null, null, 1, false, null, sensitiveKeys)
+                    .process(path);
+        }
+        return new SecretAuditScanner(sensitiveKeys).scan(path);
+    }
+
+    private static Map<String, Object> result(Path path, Options options, Result r) {
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("file", path.toString());
+        res.put("provider", options.provider());
+        res.put("mode", options.checkMode() ? "check" : (options.decryptMode() ? "decrypt" : "encrypt"));
+        res.put("dryRun", options.dryRun());
+        res.put("changed", r.changedCount);
+        res.put("unencrypted", r.unencryptedCount);
+        res.put("keys", r.affectedKeys);
+        if (r.binary) {
+            res.put("skipped", "binary");
+        }
+        if (r.cached) {
+            res.put("cached", true);
+        }
+        return res;
+    }
+
+    /** Creates the value on first use, once, even when first used by several threads at the same time. */
+    private static <T> Supplier<T> memoize(Supplier<T> factory) {
+        return new Supplier<>() {
+            private T value;
+
+            @Override
+            public synchronized T get() {
+                if (value == null) {
+                    value = factory.get();
+                }
+                return value;
+            }
+        };
+    }
+
+    private static String limited(Semaphore inFlight, Callable<String> call) {
+        try {
+            if (inFlight != null) inFlight.acquire();
+            try {
+                return call.call();
+            } finally {
+                if (inFlight != null) inFlight.release();
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a KMS slot", e);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** Pure transformation logic used by tests. */
+    public static Result processLines(List<String> lines, boolean dryRun, boolean decryptMode,
+                                      boolean checkMode, Function<String,String> encryptFn,
+                                      Function<String,String> decryptFn) {
+        return processLines(lines, dryRun, decryptMode, checkMode, encryptFn, decryptFn, 1);
+    }
+
+    /**
+     * Two-phase variant of {@link #processLines(List, boolean, boolean, boolean, Function, Function)}: the first pass
+     * classifies every line and collects the values that need a KMS call, the second runs those calls with up to
+     * {@code concurrency} in flight and writes the results back in line order. Counts and output are identical to the
+     * serial pass; only the wall-clock time changes (roughly one round trip per {@code concurrency} values).
+     */
+    public static Result processLines(List<String> lines, boolean dryRun, boolean decryptMode,
+                                      boolean checkMode, Function<String,String> encryptFn,
+                                      Function<String,String> decryptFn, int concurrency) {
+        return processLines(lines, dryRun, decryptMode, checkMode, encryptFn, decryptFn, concurrency,
+                SensitiveKeyMatcher.defaults());
+    }
+
+    /** As above, with {@code sensitiveKeys} deciding which keys hold secrets. */
+    public static Result processLines(List<String> lines, boolean dryRun, boolean decryptMode,
+                                      boolean checkMode, Function<String,String> encryptFn,
+                                      Function<String,String> decryptFn, int concurrency,
+                                      SensitiveKeyMatcher sensitiveKeys) {
+        String[] out = new String[lines.size()];
+        List<Pending> pending = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        int changed = 0;
+        int unenc = 0;
+
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            out[i] = line;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("=", 2);
+            if (parts.length != 2) {
+                continue;
+            }
+            String key = parts[0].trim();
+            String value = parts[1].trim();
+            boolean sensitive = sensitiveKeys.isSensitive(key);
+
+            boolean encrypted = isEncrypted(value);
+
+            if (checkMode && sensitive && !encrypted) {
+                unenc++;
+                keys.add(key);
+                continue;
+            }
+
+            if (decryptMode && encrypted) {
+                changed++;
+                keys.add(key);
+                if (!dryRun && decryptFn != null) pending.add(new Pending(i, key, value));
+            } else if (!decryptMode && sensitive && !encrypted) {
+                changed++;
+                keys.add(key);
+                if (!dryRun && encryptFn != null) pending.add(new Pending(i, key, value));
+            }
+        }
+
+        Function<String,String> fn = decryptMode ? decryptFn : encryptFn;
+        List<String> results = transformAll(pending, (k, v) -> fn.apply(v), concurrency);
+        for (int j = 0; j < pending.size(); j++) {
+            Pending p = pending.get(j);
+            String result = results.get(j);
+            out[p.index] = p.key + "=" + (decryptMode ? result : "ENC(" + result + ")");
+        }
+
+        Result r = new Result();
+        r.outputLines = new ArrayList<>(Arrays.asList(out));
+        r.changedCount = changed;
+        r.unencryptedCount = unenc;
+        r.affectedKeys = keys;
+        return r;
+    }
+
+    static List<String> transformAll(List<Pending> pending, BiFunction<String,String,String> fn, int concurrency) {
+        List<String> results = new ArrayList<>(pending.size());
+        if (pending.size() <= 1 || concurrency <= 1) {
+            for (Pending p : pending) {
+                results.add(fn.apply(p.key, p.value));
+            }
+            return results;
+        }
+
+        Semaphore permits = new Semaphore(concurrency);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<String>> futures = new ArrayList<>(pending.size());
+            for (Pending p : pending) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return fn.apply(p.key, p.value);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<String> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for KMS calls", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new RuntimeException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    record Pending(int index, String key, String value) { }
+
+    /** Values encrypted or decrypted concurrently within one file: {@code kms.concurrency}, default 16. */
+    static int concurrency(Map<String, String> cfg) {
+        String value = cfg.get("concurrency");
+        if (value == null || value.isBlank()) return DEFAULT_CONCURRENCY;
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid kms.concurrency: " + value, e);
+        }
+    }
+
+    /** Distinct ciphertexts memoized per run: {@code kms.decryptCache}, default 4096, {@code 0} disables. */
+    static int decryptCacheSize(Map<String, String> cfg) {
+        String value = cfg.get("decryptCache");
+        if (value == null || value.isBlank()) return DEFAULT_DECRYPT_CACHE;
+        try {
+            return Math.max(0, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid kms.decryptCache: " + value, e);
+        }
+    }
+
+    private static String findHeader(Path path) {
+        try (InputStream in = Files.newInputStream(path)) {
+            StreamingLineProcessor.RawLineReader reader = new StreamingLineProcessor.RawLineReader(in);
+            byte[] raw;
+            while ((raw = reader.next()) != null) {
+                String header = StreamingLineProcessor.header(raw);
+                if (header != null) return header;
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isEncrypted(String value) {
+        return value.startsWith("ENC(") || FileDataKey.isSealed(value);
+    }
+
+    private static String stripEnc(String v) {
+        if (v.startsWith("ENC(") && v.endsWith(")")) return v.substring(4, v.length() - 1);
+        return v;
+    }
+
+    /** Lazily loaded {@link FileDataKey} shared by the concurrent value transforms of one file. */
+    private static final class DataKeySlot {
+        private final Supplier<FileDataKey> loader;
+        private FileDataKey key;
+        private String headerLine;
+
+        DataKeySlot(Supplier<FileDataKey> loader) {
+            this.loader = loader;
+        }
+
+        synchronized FileDataKey get() {
+            if (key == null) {
+                key = loader.get();
+                headerLine = key.headerLine();
+            }
+            return key;
+        }
+
+        /** Header for a key generated during this run, or {@code null} if none was needed or one already existed. */
+        synchronized String newHeaderLine() {
+            return key != null && key.generated() ? headerLine : null;
+        }
+
+        synchronized void close() {
+            if (key != null) key.close();
+        }
+    }
+
+    /**
+     * Settings for a {@link #processFiles(List, Options)} run.
+     */
+    public static final class Options {
+        static final int DEFAULT_THREADS = 16;
+        static final int DEFAULT_MAX_IN_FLIGHT = 64;
+
+        private final String provider;
+        private final Map<String, String> kmsConfig;
+        private final boolean dryRun;
+        private final boolean decryptMode;
+        private final boolean jsonMode;
+        private final boolean checkMode;
+        private final int threads;
+        private final int maxInFlight;
+        private final boolean envelope;
+        private final SensitiveKeyMatcher sensitiveKeys;
+        private final Consumer<Map<String, Object>> onResult;
+        private final RunCache runCache;
+        private final KmsClientPool clients;
+        private final boolean retainResults;
+
+        private Options(Builder builder) {
+            this.provider = builder.provider;
+            this.kmsConfig = Collections.unmodifiableMap(new HashMap<>(builder.kmsConfig));
+            this.dryRun = builder.dryRun;
+            this.decryptMode = builder.decryptMode;
+            this.jsonMode = builder.jsonMode;
+            this.checkMode = builder.checkMode;
+            this.threads = builder.threads;
+            this.maxInFlight = builder.maxInFlight;
+            this.envelope = builder.envelope;
+            this.sensitiveKeys = builder.sensitiveKeys;
+            this.onResult = builder.onResult;
+            this.runCache = builder.runCache;
+            this.clients = builder.clients;
+            this.retainResults = builder.retainResults;
+        }
+
+        public static Builder builder(String provider) {
+            return new Builder(provider);
+        }
+
+        public String provider() { return provider; }
+
+        public Map<String, String> kmsConfig() { return kmsConfig; }
+
+        public boolean dryRun() { return dryRun; }
+
+        public boolean decryptMode() { return decryptMode; }
+
+        public boolean jsonMode() { return jsonMode; }
+
+        public boolean checkMode() { return checkMode; }
+
+        /** Files processed concurrently. */
+        public int threads() { return threads; }
+
+        /** KMS calls outstanding across all files; {@code 0} means unbounded. */
+        public int maxInFlight() { return maxInFlight; }
+
+        /** Encrypt new values as {@code ENC2(...)} under a per-file data key. */
+        public boolean envelope() { return envelope; }
+
+        /** Rules deciding which keys hold secrets; {@link SensitiveKeyMatcher#defaults()} unless configured. */
+        public SensitiveKeyMatcher sensitiveKeys() { return sensitiveKeys; }
+
+        /** Called with each file's result, in file order, as soon as it is available. */
+        public Consumer<Map<String, Object>> onResult() { return onResult; }
+
+        /** Outcomes of earlier runs used to skip unchanged files, or {@code null} to process every file. */
+        public RunCache runCache() { return runCache; }
+
+        /** Warm KMS clients shared across runs, or {@code null} to create them for this run only. */
+        public KmsClientPool clients() { return clients; }
+
+        /**
+         * Whether {@code processFiles} returns the per-file results; when off it returns an empty list and results
+         * only reach {@link #onResult()}.
+         */
+        public boolean retainResults() { return retainResults; }
+
+        public static final class Builder {
+            private final String provider;
+            private Map<String, String> kmsConfig = Map.of();
+            private boolean dryRun;
+            private boolean decryptMode;
+            private boolean jsonMode;
+            private boolean checkMode;
+            private int threads = DEFAULT_THREADS;
+            private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+            private boolean envelope;
+            private SensitiveKeyMatcher sensitiveKeys = SensitiveKeyMatcher.defaults();
+            private Consumer<Map<String, Object>> onResult = result -> { };
+            private RunCache runCache;
+            private KmsClientPool clients;
+            private boolean retainResults = true;
+
+            private Builder(String provider) {
+                this.provider = provider;
+            }
+
+            public Builder kmsConfig(Map<String, String> kmsConfig) {
+                this.kmsConfig = kmsConfig != null ? kmsConfig : Map.of();
+                return this;
+            }
+
+            public Builder dryRun(boolean dryRun) {
+                this.dryRun = dryRun;
+                return this;
+            }
+
+            public Builder decryptMode(boolean decryptMode) {
+                this.decryptMode = decryptMode;
+                return this;
+            }
+
+            public Builder jsonMode(boolean jsonMode) {
+                this.jsonMode = jsonMode;
+                return this;
+            }
+
+            public Builder checkMode(boolean checkMode) {
+                this.checkMode = checkMode;
+                return this;
+            }
+
+            public Builder threads(int threads) {
+                if (threads < 1) {
+                    throw new IllegalArgumentException("threads must be at least 1");
+                }
+                this.threads = threads;
+                return this;
+            }
+
+            public Builder maxInFlight(int maxInFlight) {
+                if (maxInFlight < 0) {
+                    throw new IllegalArgumentException("maxInFlight must not be negative");
+                }
+                this.maxInFlight = maxInFlight;
+                return this;
+            }
+
+            public Builder envelope(boolean envelope) {
+                this.envelope = envelope;
+                return this;
+            }
+
+            public Builder sensitiveKeys(SensitiveKeyMatcher sensitiveKeys) {
+                this.sensitiveKeys = sensitiveKeys != null ? sensitiveKeys : SensitiveKeyMatcher.defaults();
+                return this;
+            }
+
+            public Builder onResult(Consumer<Map<String, Object>> onResult) {
+                this.onResult = onResult != null ? onResult : result -> { };
+                return this;
+            }
+
+            public Builder runCache(RunCache runCache) {
+                this.runCache = runCache;
+                return this;
+            }
+
+            public Builder clients(KmsClientPool clients) {
+                this.clients = clients;
+                return this;
+            }
+
+            public Builder retainResults(boolean retainResults) {
+                this.retainResults = retainResults;
+                return this;
+            }
+
+            public Options build() {
+                return new Options(this);
+            }
+        }
+    }
+}
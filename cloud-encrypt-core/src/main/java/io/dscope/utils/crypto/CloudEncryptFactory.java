@@ -0,0 +1,57 @@
+package io.dscope.utils.crypto;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class CloudEncryptFactory {
+
+    static final ProviderRegistry<KmsProvider> PROVIDERS = new ProviderRegistry<>(KmsProvider.class, KmsProvider::names);
+
+    public static CloudEncryptor create(String provider, Map<String, String> config) {
+        String p = provider == null ? "" : provider.toLowerCase();
+        if (config == null) config = new HashMap<>();
+        CloudEncryptor encryptor = kmsProvider(provider).createEncryptor(config);
+        return metered(p, keyAlias(config), KmsRateGovernor.shared().governEncryptor(p, config, encryptor));
+    }
+
+    /**
+     * Times each call, throttling waits and retries included, for {@link OperationMetrics} and as a
+     * {@link KmsEncryptEvent}.
+     */
+    static CloudEncryptor metered(String provider, String keyAlias, CloudEncryptor encryptor) {
+        return plainText -> {
+            long started = OperationMetrics.start();
+            KmsEncryptEvent event = new KmsEncryptEvent();
+            event.begin();
+            boolean failed = true;
+            try {
+                String cipherText = encryptor.encrypt(plainText);
+                failed = false;
+                return cipherText;
+            } finally {
+                OperationMetrics.record("kms.encrypt", provider, started, plainText.length(), failed);
+                event.finish(provider, keyAlias, plainText.length(), !failed);
+            }
+        };
+    }
+
+    /** The configured key, as shown in events: {@code keyId}, {@code key} or {@code keyRing}. */
+    static String keyAlias(Map<String, String> config) {
+        for (String name : new String[] {"keyId", "key", "keyRing"}) {
+            String value = config.get(name);
+            if (value != null && !value.isBlank()) {
+                return value;
+            }
+        }
+        return "";
+    }
+
+    static KmsProvider kmsProvider(String provider) {
+        KmsProvider kmsProvider = PROVIDERS.find(provider);
+        if (kmsProvider == null) {
+            throw new IllegalArgumentException("Unsupported provider: " + provider + " (available: "
+                    + String.join(", ", PROVIDERS.names()) + ")");
+        }
+        return kmsProvider;
+    }
+}
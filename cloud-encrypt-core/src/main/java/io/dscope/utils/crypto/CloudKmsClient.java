@@ -0,0 +1,87 @@
+package io.dscope.utils.crypto;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Convenience API for encrypting and decrypting secrets with the supported cloud KMS providers.
+ *
+ * <p>A client created with a positive {@code decryptCacheSize} keeps one {@link CachingDecryptor} per configuration
+ * for its lifetime, so a long-lived client (for example a Spring bean) decrypts each distinct ciphertext once.
+ * {@link #close()} wipes the cached plaintexts.</p>
+ */
+public class CloudKmsClient implements AutoCloseable {
+
+    private final int decryptCacheSize;
+    private final Map<Map.Entry<String, Map<String, String>>, CachingDecryptor> decryptors = new ConcurrentHashMap<>();
+
+    public CloudKmsClient() {
+        this(0);
+    }
+
+    /**
+     * @param decryptCacheSize distinct ciphertexts remembered per configuration; {@code 0} disables caching
+     */
+    public CloudKmsClient(int decryptCacheSize) {
+        if (decryptCacheSize < 0) {
+            throw new IllegalArgumentException("decryptCacheSize must not be negative");
+        }
+        this.decryptCacheSize = decryptCacheSize;
+    }
+
+    /**
+     * Decrypts a ciphertext that may optionally be wrapped in {@code ENC(...)}.
+     *
+     * @param config     provider configuration
+     * @param ciphertext encrypted value, optionally wrapped with ENC(...)
+     * @return plaintext secret
+     */
+    public String decryptValue(CloudKmsConfig config, String ciphertext) throws Exception {
+        Objects.requireNonNull(config, "config");
+        Objects.requireNonNull(ciphertext, "ciphertext");
+
+        if (FileDataKey.isSealed(ciphertext.trim())) {
+            throw new IllegalArgumentException(
+                    "ENC2(...) values are sealed under their file's data key; decrypt the whole file instead");
+        }
+        String payload = unwrap(ciphertext);
+        return decryptor(config).decrypt(payload);
+    }
+
+    /**
+     * Encrypts a plaintext value and optionally wraps it in {@code ENC(...)}.
+     */
+    public String encryptValue(CloudKmsConfig config, String plaintext, boolean wrap) throws Exception {
+        Objects.requireNonNull(config, "config");
+        Objects.requireNonNull(plaintext, "plaintext");
+        CloudEncryptor encryptor = CloudEncryptFactory.create(config.getProvider(), config.asMutableMap());
+        String ciphertext = encryptor.encrypt(plaintext);
+        return wrap ? "ENC(" + ciphertext + ")" : ciphertext;
+    }
+
+    /** Wipes the plaintexts cached by this client. */
+    @Override
+    public void close() {
+        decryptors.values().forEach(CachingDecryptor::close);
+        decryptors.clear();
+    }
+
+    private CloudDecryptor decryptor(CloudKmsConfig config) {
+        if (decryptCacheSize == 0) {
+            return CloudDecryptFactory.create(config.getProvider(), config.asMutableMap());
+        }
+        return decryptors.computeIfAbsent(Map.entry(config.getProvider(), config.getSettings()),
+                key -> new CachingDecryptor(
+                        CloudDecryptFactory.create(config.getProvider(), config.asMutableMap()), decryptCacheSize));
+    }
+
+    private String unwrap(String value) {
+        String trimmed = value.trim();
+        if (trimmed.toUpperCase(Locale.ROOT).startsWith("ENC(") && trimmed.endsWith(")")) {
+            return trimmed.substring(4, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+}
@@ -0,0 +1,292 @@
+package io.dscope.utils.crypto;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Encrypts, decrypts or checks the secrets of one configuration file in place, in bounded memory. The format is
+ * chosen from the file name: {@link YamlConfigProcessor} for {@code .yml}/{@code .yaml}, {@link JsonConfigProcessor}
+ * for {@code .json} and {@link StreamingLineProcessor} ({@code KEY=value}) for everything else.
+ *
+ * <p>Implementations collect the values that need a KMS call in batches and run each batch through
+ * {@link CloudEncryptCore#transformAll} with up to {@code concurrency} calls in flight. A file is only replaced
+ * (atomically) when something changed.</p>
+ */
+abstract class ConfigFileProcessor {
+
+    protected final boolean dryRun;
+    protected final boolean decryptMode;
+    protected final boolean checkMode;
+    protected final BiFunction<String,String,String> transform;
+    protected final int concurrency;
+    protected final boolean sealedOutput;
+    protected final Supplier<String> insertedHeader;
+    protected final SensitiveKeyMatcher sensitiveKeys;
+
+    /**
+     * @param encryptFn      called with the property key and the plain value
+     * @param decryptFn      called with the property key and the encrypted value
+     * @param sealedOutput   {@code encryptFn} returns complete {@code ENC2(...)} values
+     * @param insertedHeader header line to put at the top of a rewritten file, or {@code null} for none; consulted
+     *                       when the output is first written, i.e. after the first batch of KMS calls
+     */
+    ConfigFileProcessor(boolean dryRun, boolean decryptMode, boolean checkMode,
+                        BiFunction<String,String,String> encryptFn, BiFunction<String,String,String> decryptFn,
+                        int concurrency, boolean sealedOutput, Supplier<String> insertedHeader,
+                        SensitiveKeyMatcher sensitiveKeys) {
+        this.dryRun = dryRun;
+        this.decryptMode = decryptMode;
+        this.checkMode = checkMode;
+        this.transform = decryptMode ? decryptFn : encryptFn;
+        this.concurrency = concurrency;
+        this.sealedOutput = sealedOutput;
+        this.insertedHeader = insertedHeader;
+        this.sensitiveKeys = sensitiveKeys;
+    }
+
+    static ConfigFileProcessor forFile(Path path, boolean dryRun, boolean decryptMode, boolean checkMode,
+                                       BiFunction<String,String,String> encryptFn, BiFunction<String,String,String> decryptFn,
+                                       int concurrency, boolean sealedOutput, Supplier<String> insertedHeader,
+                                       SensitiveKeyMatcher sensitiveKeys) {
+        return switch (format(path)) {
+            case "yaml" -> new YamlConfigProcessor(dryRun, decryptMode, checkMode, encryptFn, decryptFn,
+                    concurrency, sealedOutput, insertedHeader, sensitiveKeys);
+            case "json" -> new JsonConfigProcessor(dryRun, decryptMode, checkMode, encryptFn, decryptFn,
+                    concurrency, sealedOutput, insertedHeader, sensitiveKeys);
+            default -> new StreamingLineProcessor(dryRun, decryptMode, checkMode, encryptFn, decryptFn,
+                    concurrency, sealedOutput, insertedHeader, sensitiveKeys);
+        };
+    }
+
+    /** {@code false} for formats without comments, which therefore cannot carry an {@code ENC2} data key header. */
+    static boolean supportsHeader(Path path) {
+        return !"json".equals(format(path));
+    }
+
+    /** {@code true} for YAML and JSON, whose values are located by parsing rather than line by line. */
+    static boolean structured(Path path) {
+        return !"lines".equals(format(path));
+    }
+
+    private static String format(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".yml") || name.endsWith(".yaml")) return "yaml";
+        if (name.endsWith(".json")) return "json";
+        return "lines";
+    }
+
+    /**
+     * Processes {@code path} in place. The returned result carries the counts and affected keys; its
+     * {@code outputLines} are not populated because the output is the file itself.
+     */
+    abstract CloudEncryptCore.Result process(Path path) throws IOException;
+
+    boolean writing() {
+        return !dryRun && !checkMode;
+    }
+
+    /** Values collected before a batch of KMS calls is run. */
+    int batchSize() {
+        return Math.max(64, concurrency * 4);
+    }
+
+    /** The text that replaces a value given the KMS result. */
+    String replacement(String result) {
+        return decryptMode || sealedOutput ? result : "ENC(" + result + ")";
+    }
+
+    static boolean isEncrypted(String value) {
+        return value.startsWith("ENC(") || FileDataKey.isSealed(value);
+    }
+
+    /**
+     * Applies the encrypt / decrypt / check rules to the values a structured processor finds, and rewrites the file
+     * by splicing the new values into a copy of the original text. Value positions are code point offsets into the
+     * file; everything outside the replaced spans, comments and formatting included, is copied unchanged. A
+     * {@value FileDataKey#HEADER_PREFIX}header is dropped when decrypting if only blank and comment lines precede
+     * it.
+     */
+    final class ValueSplicer implements Closeable {
+        private final Path path;
+        private final long[] header;
+        private final List<CloudEncryptCore.Pending> pending = new ArrayList<>();
+        private final List<Span> spans = new ArrayList<>();
+        private final List<String> keys = new ArrayList<>();
+        private int changed;
+        private int unencrypted;
+        private AtomicFileReplacer output;
+        private Writer out;
+        private Reader original;
+        private long position;
+
+        ValueSplicer(Path path) throws IOException {
+            this.path = path;
+            this.header = decryptMode && writing() ? headerSpan(path) : null;
+        }
+
+        /**
+         * Offers the value of {@code key} stored at {@code [start, end)}.
+         *
+         * @param render turns the new value and the original text of the span into the text written in its place
+         */
+        void value(String key, String value, long start, long end, BiFunction<String,String,String> render)
+                throws IOException {
+            boolean encrypted = isEncrypted(value);
+            boolean sensitive = !encrypted && key != null && sensitiveKeys.isSensitive(key);
+            if (checkMode) {
+                if (sensitive) {
+                    unencrypted++;
+                    keys.add(key);
+                }
+                return;
+            }
+            if (decryptMode ? !encrypted : !sensitive) {
+                return;
+            }
+            changed++;
+            keys.add(key);
+            if (writing() && transform != null) {
+                pending.add(new CloudEncryptCore.Pending(spans.size(), key, value));
+                spans.add(new Span(start, end, render));
+                if (pending.size() >= batchSize()) {
+                    flush();
+                }
+            }
+        }
+
+        private void flush() throws IOException {
+            List<String> results = CloudEncryptCore.transformAll(pending, transform, concurrency);
+            if (out == null && !pending.isEmpty()) {
+                open();
+            }
+            for (int i = 0; i < spans.size(); i++) {
+                Span span = spans.get(i);
+                copyTo(span.start());
+                String replaced = skipTo(span.end());
+                out.write(span.render().apply(replacement(results.get(i)), replaced));
+            }
+            pending.clear();
+            spans.clear();
+        }
+
+        /** Runs the outstanding KMS calls, replaces the file if anything changed and returns the counts. */
+        CloudEncryptCore.Result finish() throws IOException {
+            flush();
+            if (out == null && header != null) {
+                open();
+            }
+            if (out != null) {
+                copyTo(Long.MAX_VALUE);
+                out.flush();
+                output.commit();
+            }
+            CloudEncryptCore.Result r = new CloudEncryptCore.Result();
+            r.changedCount = changed;
+            r.unencryptedCount = unencrypted;
+            r.affectedKeys = keys;
+            return r;
+        }
+
+        private void open() throws IOException {
+            output = new AtomicFileReplacer(path);
+            out = new BufferedWriter(new OutputStreamWriter(output.out(), StandardCharsets.UTF_8));
+            original = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+            String inserted = insertedHeader != null ? insertedHeader.get() : null;
+            if (inserted != null) {
+                out.write(inserted + System.lineSeparator());
+            }
+            if (header != null) {
+                copyTo(header[0]);
+                skipTo(header[1]);
+            }
+        }
+
+        private void copyTo(long index) throws IOException {
+            while (position < index) {
+                int c = original.read();
+                if (c < 0) {
+                    if (index == Long.MAX_VALUE) return;
+                    throw new IOException("File changed while it was being processed");
+                }
+                out.write(c);
+                if (Character.isHighSurrogate((char) c)) {
+                    out.write(original.read());
+                }
+                position++;
+            }
+        }
+
+        private String skipTo(long index) throws IOException {
+            StringBuilder skipped = new StringBuilder();
+            while (position < index) {
+                int c = original.read();
+                if (c < 0) {
+                    throw new IOException("File changed while it was being processed");
+                }
+                skipped.append((char) c);
+                if (Character.isHighSurrogate((char) c)) {
+                    skipped.append((char) original.read());
+                }
+                position++;
+            }
+            return skipped.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (original != null) {
+                    original.close();
+                }
+            } finally {
+                if (output != null) {
+                    output.close();
+                }
+            }
+        }
+    }
+
+    private record Span(long start, long end, BiFunction<String,String,String> render) { }
+
+    /**
+     * Code point range {@code [start, end)} of the data key header line, terminator included, or {@code null} when
+     * there is none before the first line that is neither blank nor a comment.
+     */
+    private static long[] headerSpan(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            StringBuilder line = new StringBuilder();
+            long start = 0;
+            while (true) {
+                line.setLength(0);
+                long length = 0;
+                int c;
+                while ((c = reader.read()) >= 0) {
+                    line.append((char) c);
+                    if (!Character.isLowSurrogate((char) c)) length++;
+                    if (c == '\n') break;
+                }
+                String text = line.toString().strip();
+                if (FileDataKey.isHeader(text)) {
+                    return new long[] {start, start + length};
+                }
+                if (c < 0 || !text.isEmpty() && !text.startsWith("#")) {
+                    return null;
+                }
+                start += length;
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package io.dscope.utils.crypto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks observed latency and health per KMS endpoint (for example {@code aws:us-east-1}). The statistics are shared
+ * process-wide so that short-lived encryptor instances still route to the fastest healthy endpoint.
+ */
+final class EndpointLatencyTracker {
+
+    private static final EndpointLatencyTracker SHARED = new EndpointLatencyTracker();
+
+    private static final int WINDOW = 64;
+    private static final int MIN_SAMPLES_FOR_P95 = 8;
+    private static final int FAILURES_BEFORE_EJECT = 3;
+    private static final long EJECT_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    static EndpointLatencyTracker shared() {
+        return SHARED;
+    }
+
+    void recordSuccess(String endpoint, long nanos) {
+        stats(endpoint).success(nanos);
+    }
+
+    void recordFailure(String endpoint) {
+        stats(endpoint).failure();
+    }
+
+    /**
+     * Orders endpoints so that healthy ones come first, fastest first. Endpoints without samples keep their configured
+     * order after the measured ones.
+     */
+    List<String> rank(List<String> endpoints) {
+        long now = System.nanoTime();
+        List<String> ordered = new ArrayList<>(endpoints);
+        ordered.sort(Comparator
+                .comparing((String endpoint) -> !stats(endpoint).healthy(now))
+                .thenComparingDouble(endpoint -> stats(endpoint).ewma()));
+        return ordered;
+    }
+
+    /**
+     * Returns the p95 latency in milliseconds, or {@code -1} when too few samples have been collected.
+     */
+    long p95Millis(String endpoint) {
+        return stats(endpoint).p95Millis();
+    }
+
+    private Stats stats(String endpoint) {
+        return stats.computeIfAbsent(endpoint, key -> new Stats());
+    }
+
+    private static final class Stats {
+        private final long[] samples = new long[WINDOW];
+        private int count;
+        private int next;
+        private double ewmaNanos = Double.MAX_VALUE;
+        private int consecutiveFailures;
+        private long ejectedUntil;
+
+        synchronized void success(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % WINDOW;
+            count = Math.min(WINDOW, count + 1);
+            ewmaNanos = ewmaNanos == Double.MAX_VALUE ? nanos : EWMA_ALPHA * nanos + (1 - EWMA_ALPHA) * ewmaNanos;
+            consecutiveFailures = 0;
+            ejectedUntil = 0;
+        }
+
+        synchronized void failure() {
+            consecutiveFailures++;
+            if (consecutiveFailures >= FAILURES_BEFORE_EJECT) {
+                ejectedUntil = System.nanoTime() + EJECT_NANOS;
+            }
+        }
+
+        synchronized boolean healthy(long now) {
+            return ejectedUntil == 0 || now >= ejectedUntil;
+        }
+
+        synchronized double ewma() {
+            return ewmaNanos;
+        }
+
+        synchronized long p95Millis() {
+            if (count < MIN_SAMPLES_FOR_P95) {
+                return -1;
+            }
+            long[] copy = Arrays.copyOf(samples, count);
+            Arrays.sort(copy);
+            int index = (int) Math.ceil(count * 0.95) - 1;
+            return TimeUnit.NANOSECONDS.toMillis(copy[Math.max(0, index)]);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package io.dscope.utils.crypto;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for the AES-GCM pass over a payload in {@link io.dscope.cloud.kms.CloudKmsFileService}, after its data
+ * key has been wrapped or unwrapped. Divide {@code bytes} by the duration for cipher throughput.
+ */
+@Name("io.dscope.EnvelopeSegment")
+@Label("Envelope Segment")
+@Category({"DScope", "Cloud Encrypt"})
+@Description("Data encrypted or decrypted locally under a KMS-wrapped data key")
+@StackTrace(false)
+public final class EnvelopeSegmentEvent extends Event {
+
+    @Label("Provider")
+    String provider;
+
+    @Label("Operation")
+    @Description("encrypt or decrypt")
+    String operation;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Success")
+    boolean success;
+
+    /** Ends the event and commits it if a recording wants it. */
+    public void finish(String provider, String operation, long bytes, boolean success) {
+        end();
+        if (shouldCommit()) {
+            this.provider = provider;
+            this.operation = operation;
+            this.bytes = bytes;
+            this.success = success;
+            commit();
+        }
+    }
+}
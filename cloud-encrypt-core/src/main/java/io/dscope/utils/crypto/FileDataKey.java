@@ -0,0 +1,144 @@
+package io.dscope.utils.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Per-file AES-256 data key used for {@code ENC2(...)} values. The key is wrapped once by the configured KMS and
+ * kept in a comment line at the top of the file ({@value #HEADER_PREFIX}{@code <kms ciphertext>}); every value is
+ * then sealed locally with AES-GCM, so a file costs one KMS call however many secrets it holds.
+ *
+ * <p>Value layout (Base64 inside {@code ENC2(...)}): {@code IV(12) | AES-GCM ciphertext}. The AAD is
+ * {@value #VALUE_PREFIX}{@code  | SHA-256(wrapped data key) | property key}, so a value only opens under the key name
+ * it was sealed for and with the header it was sealed under: moving it to another property or another file fails
+ * authentication instead of silently handing out the wrong secret.</p>
+ */
+final class FileDataKey implements AutoCloseable {
+
+    static final String HEADER_PREFIX = "# cloud-encrypt-dek: ";
+    static final String VALUE_PREFIX = "ENC2(";
+
+    private static final int DATA_KEY_BYTES = 32;
+    private static final int IV_BYTES = 12;
+    private static final int GCM_TAG_BITS = 128;
+    private static final byte[] AAD_PREFIX = VALUE_PREFIX.getBytes(StandardCharsets.US_ASCII);
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final byte[] key;
+    private final String wrapped;
+    private final boolean generated;
+    private final byte[] wrappedHash;
+
+    private FileDataKey(byte[] key, String wrapped, boolean generated) {
+        this.key = key;
+        this.wrapped = wrapped;
+        this.generated = generated;
+        try {
+            this.wrappedHash = MessageDigest.getInstance("SHA-256").digest(wrapped.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /** Generates a fresh data key and wraps it with {@code kmsEncrypt} (one KMS call). */
+    static FileDataKey generate(Function<String, String> kmsEncrypt) {
+        byte[] key = new byte[DATA_KEY_BYTES];
+        RANDOM.nextBytes(key);
+        return new FileDataKey(key, kmsEncrypt.apply(Base64.getEncoder().encodeToString(key)), true);
+    }
+
+    /** Recovers the data key recorded in {@code headerLine} with {@code kmsDecrypt} (one KMS call). */
+    static FileDataKey unwrap(String headerLine, Function<String, String> kmsDecrypt) {
+        String wrapped = headerLine.trim().substring(HEADER_PREFIX.length()).trim();
+        byte[] key = Base64.getDecoder().decode(kmsDecrypt.apply(wrapped));
+        if (key.length != DATA_KEY_BYTES) {
+            throw new IllegalStateException("Unexpected data key length: " + key.length);
+        }
+        return new FileDataKey(key, wrapped, false);
+    }
+
+    static boolean isHeader(String line) {
+        return line.trim().startsWith(HEADER_PREFIX.trim());
+    }
+
+    static boolean isSealed(String value) {
+        return value.startsWith(VALUE_PREFIX) && value.endsWith(")");
+    }
+
+    /** {@code true} for a key created by {@link #generate}, i.e. one whose header is not in the file yet. */
+    boolean generated() {
+        return generated;
+    }
+
+    String headerLine() {
+        return HEADER_PREFIX + wrapped;
+    }
+
+    /** Encrypts {@code plainText} for the property {@code name} and returns the complete {@code ENC2(...)} value. */
+    String seal(String name, String plainText) {
+        long started = OperationMetrics.start();
+        boolean failed = true;
+        try {
+            byte[] iv = new byte[IV_BYTES];
+            RANDOM.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new GCMParameterSpec(GCM_TAG_BITS, iv));
+            cipher.updateAAD(aad(name));
+            byte[] sealed = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+            byte[] out = ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array();
+            failed = false;
+            return VALUE_PREFIX + Base64.getEncoder().encodeToString(out) + ")";
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to seal value with the file data key", e);
+        } finally {
+            OperationMetrics.record("cipher.seal", "", started, plainText.length(), failed);
+        }
+    }
+
+    /** Decrypts an {@code ENC2(...)} value sealed under this key for the property {@code name}. */
+    String open(String name, String value) {
+        if (!isSealed(value)) {
+            throw new IllegalArgumentException("Not an ENC2(...) value");
+        }
+        byte[] in = Base64.getDecoder().decode(value.substring(VALUE_PREFIX.length(), value.length() - 1));
+        if (in.length <= IV_BYTES) {
+            throw new IllegalArgumentException("ENC2 value is truncated");
+        }
+        long started = OperationMetrics.start();
+        boolean failed = true;
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, "AES"),
+                    new GCMParameterSpec(GCM_TAG_BITS, in, 0, IV_BYTES));
+            cipher.updateAAD(aad(name));
+            byte[] plain = cipher.doFinal(in, IV_BYTES, in.length - IV_BYTES);
+            failed = false;
+            return new String(plain, StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("ENC2 value does not match the file data key and property '" + name + "'", e);
+        } finally {
+            OperationMetrics.record("cipher.open", "", started, in.length, failed);
+        }
+    }
+
+    private byte[] aad(String name) {
+        byte[] bound = (name == null ? "" : name).getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(AAD_PREFIX.length + wrappedHash.length + bound.length)
+                .put(AAD_PREFIX).put(wrappedHash).put(bound).array();
+    }
+
+    /** Clears the raw key bytes. */
+    @Override
+    public void close() {
+        Arrays.fill(key, (byte) 0);
+    }
+}
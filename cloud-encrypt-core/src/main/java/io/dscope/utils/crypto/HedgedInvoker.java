@@ -0,0 +1,259 @@
+package io.dscope.utils.crypto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a KMS call against an ordered list of equivalent endpoints (regions of a multi-region key, regional endpoints
+ * of a global key ring). The fastest healthy endpoint is tried first; when hedging is enabled a second request is
+ * sent if the first has not answered within that endpoint's observed p95 latency, and the first successful response
+ * wins. Retryable failures fail over to the next endpoint immediately. Latency and failures are tracked per scope and
+ * endpoint. A hedge is an extra request, so it takes its own permit from the {@link KmsRateGovernor} lane that paces
+ * the call and is not sent when the lane has no token or concurrency slot to spare.
+ *
+ * <p>Settings: {@code hedge.enabled} (default {@code true}), {@code hedge.delayMs} (used until enough samples exist,
+ * default 100), {@code hedge.minDelayMs} (default 10) and {@code hedge.maxDelayMs} (default 2000).</p>
+ */
+final class HedgedInvoker {
+
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final List<String> endpoints;
+    private final String scope;
+    private final boolean hedge;
+    private final long defaultDelayMs;
+    private final long minDelayMs;
+    private final long maxDelayMs;
+    private final EndpointLatencyTracker tracker;
+    private final KmsRateGovernor governor;
+    private final Map<String, String> config;
+
+    @FunctionalInterface
+    interface EndpointCall<T> {
+        T call(String endpoint) throws Exception;
+    }
+
+    HedgedInvoker(String scope, List<String> endpoints, Map<String, String> config) {
+        this(scope, endpoints, config, EndpointLatencyTracker.shared());
+    }
+
+    HedgedInvoker(String scope, List<String> endpoints, Map<String, String> config, EndpointLatencyTracker tracker) {
+        this(scope, endpoints, config, tracker, KmsRateGovernor.shared());
+    }
+
+    HedgedInvoker(String scope, List<String> endpoints, Map<String, String> config, EndpointLatencyTracker tracker,
+                  KmsRateGovernor governor) {
+        if (endpoints == null || endpoints.isEmpty()) {
+            throw new IllegalArgumentException("At least one endpoint is required for " + scope);
+        }
+        Map<String, String> cfg = config != null ? config : Map.of();
+        this.scope = scope;
+        this.endpoints = List.copyOf(endpoints);
+        this.hedge = !"false".equalsIgnoreCase(cfg.get("hedge.enabled"));
+        this.defaultDelayMs = parseLong(cfg.get("hedge.delayMs"), 100);
+        this.minDelayMs = parseLong(cfg.get("hedge.minDelayMs"), 10);
+        this.maxDelayMs = parseLong(cfg.get("hedge.maxDelayMs"), 2000);
+        this.tracker = tracker;
+        this.governor = governor;
+        this.config = cfg;
+    }
+
+    List<String> endpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Invokes {@code call} with failover only: endpoints are tried one after another in latency order.
+     */
+    <T> T failover(EndpointCall<T> call) throws Exception {
+        return invoke(call, false);
+    }
+
+    /**
+     * Invokes {@code call} with hedging (when enabled) and failover.
+     */
+    <T> T hedged(EndpointCall<T> call) throws Exception {
+        return invoke(call, hedge);
+    }
+
+    private <T> T invoke(EndpointCall<T> call, boolean hedging) throws Exception {
+        if (endpoints.size() == 1) {
+            return timed(endpoints.get(0), call);
+        }
+        List<String> ordered = ranked();
+        CompletionService<T> completion = new ExecutorCompletionService<>(EXECUTOR);
+        List<Future<T>> launched = new ArrayList<>();
+        List<Hedge<T>> hedges = new ArrayList<>();
+        int next = 0;
+        int pending = 0;
+        Exception lastFailure = null;
+
+        launched.add(completion.submit(submitted(ordered.get(next++), call)));
+        pending++;
+
+        boolean hedgeNext = hedging;
+        while (pending > 0) {
+            Future<T> done;
+            if (hedgeNext && next < ordered.size()) {
+                done = completion.poll(hedgeDelayMs(ordered.get(next - 1)), TimeUnit.MILLISECONDS);
+                if (done == null) {
+                    KmsRateGovernor.Permit permit = governor.tryAcquire(scope, config);
+                    if (permit == null) {
+                        // the lane has no quota to spare: wait for the requests already in flight
+                        hedgeNext = false;
+                    } else {
+                        Hedge<T> hedge = new Hedge<>(ordered.get(next++), call, permit);
+                        hedges.add(hedge);
+                        launched.add(completion.submit(hedge));
+                        pending++;
+                    }
+                    continue;
+                }
+            } else {
+                done = completion.take();
+            }
+            pending--;
+            try {
+                T result = done.get();
+                for (Future<T> future : launched) {
+                    future.cancel(false);
+                }
+                for (Hedge<T> hedge : hedges) {
+                    hedge.abandon();
+                }
+                return result;
+            } catch (ExecutionException ex) {
+                Exception cause = ex.getCause() instanceof Exception e ? e : ex;
+                lastFailure = cause;
+                if (next < ordered.size() && ThrottlingClassifier.isRetryable(cause)) {
+                    launched.add(completion.submit(submitted(ordered.get(next++), call)));
+                    pending++;
+                }
+            }
+        }
+        throw lastFailure != null ? lastFailure : new IllegalStateException("No endpoint answered for " + scope);
+    }
+
+    private <T> Callable<T> submitted(String endpoint, EndpointCall<T> call) {
+        return () -> timed(endpoint, call);
+    }
+
+    /** A hedged request holding a governor permit, which is given back exactly once whether or not it ran. */
+    private final class Hedge<T> implements Callable<T> {
+        private final String endpoint;
+        private final EndpointCall<T> call;
+        private final KmsRateGovernor.Permit permit;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        Hedge(String endpoint, EndpointCall<T> call, KmsRateGovernor.Permit permit) {
+            this.endpoint = endpoint;
+            this.call = call;
+            this.permit = permit;
+        }
+
+        @Override
+        public T call() throws Exception {
+            if (!claimed.compareAndSet(false, true)) {
+                throw new CancellationException("Hedge to " + endpoint + " no longer needed");
+            }
+            boolean throttled = false;
+            try {
+                return timed(endpoint, call);
+            } catch (Exception ex) {
+                throttled = ThrottlingClassifier.isThrottling(ex);
+                throw ex;
+            } finally {
+                permit.release(throttled);
+            }
+        }
+
+        /** Returns the permit unused if the request has not started yet. */
+        void abandon() {
+            if (claimed.compareAndSet(false, true)) {
+                permit.cancel();
+            }
+        }
+    }
+
+    /** The endpoints, healthiest and fastest first, by the samples {@link #timed} recorded for this scope. */
+    private List<String> ranked() {
+        List<String> keys = new ArrayList<>(endpoints.size());
+        for (String endpoint : endpoints) {
+            keys.add(key(endpoint));
+        }
+        List<String> ordered = new ArrayList<>(endpoints.size());
+        for (String key : tracker.rank(keys)) {
+            ordered.add(key.substring(scope.length() + 1));
+        }
+        return ordered;
+    }
+
+    private String key(String endpoint) {
+        return scope + ":" + endpoint;
+    }
+
+    private <T> T timed(String endpoint, EndpointCall<T> call) throws Exception {
+        String key = key(endpoint);
+        long start = System.nanoTime();
+        try {
+            T result = call.call(endpoint);
+            tracker.recordSuccess(key, System.nanoTime() - start);
+            return result;
+        } catch (Exception ex) {
+            if (ThrottlingClassifier.isRetryable(ex)) {
+                tracker.recordFailure(key);
+            }
+            throw ex;
+        }
+    }
+
+    private long hedgeDelayMs(String endpoint) {
+        long p95 = tracker.p95Millis(key(endpoint));
+        long delay = p95 >= 0 ? p95 : defaultDelayMs;
+        return Math.max(minDelayMs, Math.min(maxDelayMs, delay));
+    }
+
+    /**
+     * Reads an ordered endpoint list from {@code listKey} (comma separated, as flattened from a YAML list), falling
+     * back to the single-valued {@code singleKey} and finally {@code fallback}.
+     */
+    static List<String> endpointList(Map<String, String> config, String listKey, String singleKey, String fallback) {
+        List<String> values = new ArrayList<>();
+        String list = config != null ? config.get(listKey) : null;
+        if (list != null) {
+            for (String part : list.split(",")) {
+                if (!part.isBlank()) {
+                    values.add(part.trim());
+                }
+            }
+        }
+        if (values.isEmpty()) {
+            String single = config != null ? config.get(singleKey) : null;
+            if (single != null && !single.isBlank()) {
+                values.add(single.trim());
+            } else if (fallback != null) {
+                values.add(fallback);
+            }
+        }
+        return values;
+    }
+
+    private static long parseLong(String value, long fallback) {
+        try {
+            return value != null && !value.isBlank() ? Long.parseLong(value.trim()) : fallback;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid hedge setting: " + value, ex);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package io.dscope.utils.crypto;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Processes {@code .json} files with a small streaming tokenizer that records where each value starts and ends, so
+ * new values are spliced into the original text and indentation, key order and number formatting stay exactly as
+ * they were. String and number values are sensitive when their member name is; array elements belong to the member
+ * that holds the array. Encrypted values are always written as JSON strings.
+ *
+ * <p>JSON has no comments, so a file cannot carry an {@code ENC2} data key header and is always encrypted with
+ * plain {@code ENC(...)} values (see {@link #supportsHeader(Path)}). The tokenizer checks structure only as far as it
+ * needs to; malformed input fails with an {@link IllegalArgumentException}.</p>
+ */
+final class JsonConfigProcessor extends ConfigFileProcessor {
+
+    JsonConfigProcessor(boolean dryRun, boolean decryptMode, boolean checkMode,
+                        BiFunction<String,String,String> encryptFn, BiFunction<String,String,String> decryptFn,
+                        int concurrency, boolean sealedOutput, Supplier<String> insertedHeader,
+                        SensitiveKeyMatcher sensitiveKeys) {
+        super(dryRun, decryptMode, checkMode, encryptFn, decryptFn, concurrency, sealedOutput, insertedHeader,
+                sensitiveKeys);
+    }
+
+    @Override
+    CloudEncryptCore.Result process(Path path) throws IOException {
+        try (Tokenizer in = new Tokenizer(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+             ValueSplicer splicer = new ValueSplicer(path)) {
+            Deque<Frame> frames = new ArrayDeque<>();
+            int c;
+            while ((c = in.skipWhitespace()) >= 0) {
+                long start = in.index;
+                in.next();
+                Frame top = frames.peek();
+                switch (c) {
+                    case '{', '[' -> frames.push(new Frame(c == '{', top == null ? null : top.owner()));
+                    case '}', ']' -> {
+                        if (top == null || top.object != (c == '}')) throw in.malformed(c);
+                        frames.pop();
+                    }
+                    case ',' -> {
+                        if (top == null) throw in.malformed(c);
+                        top.expectKey = top.object;
+                    }
+                    case ':' -> {
+                        if (top == null || !top.object || top.expectKey) throw in.malformed(c);
+                    }
+                    case '"' -> {
+                        String value = in.string();
+                        if (top != null && top.object && top.expectKey) {
+                            top.key = value;
+                            top.expectKey = false;
+                        } else if (top != null) {
+                            splicer.value(top.owner(), value, start, in.index,
+                                    (replacement, original) -> quoted(replacement));
+                        }
+                    }
+                    default -> {
+                        if (c == '-' || (c >= '0' && c <= '9')) {
+                            String number = in.literal((char) c);
+                            if (top != null) {
+                                splicer.value(top.owner(), number, start, in.index,
+                                        (replacement, original) -> quoted(replacement));
+                            }
+                        } else if (c == 't' || c == 'f' || c == 'n') {
+                            String literal = in.literal((char) c);
+                            if (!literal.equals("true") && !literal.equals("false") && !literal.equals("null")) {
+                                throw new IllegalArgumentException(path + ": invalid JSON literal '" + literal + "'");
+                            }
+                        } else {
+                            throw in.malformed(c);
+                        }
+                    }
+                }
+            }
+            if (!frames.isEmpty()) {
+                throw new IllegalArgumentException(path + ": unexpected end of JSON");
+            }
+            return splicer.finish();
+        }
+    }
+
+    static String quoted(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                case '\b' -> out.append("\\b");
+                case '\f' -> out.append("\\f");
+                default -> {
+                    if (c < ' ') {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    private static final class Frame {
+        final boolean object;
+        /** Member holding this array, for its elements. */
+        final String owner;
+        boolean expectKey = true;
+        String key;
+
+        Frame(boolean object, String owner) {
+            this.object = object;
+            this.owner = owner;
+        }
+
+        /** The member name that a value at the current position belongs to. */
+        String owner() {
+            return object ? key : owner;
+        }
+    }
+
+    /** Character source that counts code points, matching the positions {@link ValueSplicer} works with. */
+    private static final class Tokenizer implements AutoCloseable {
+        private final Reader in;
+        private int peeked = -2;
+        long index;
+
+        Tokenizer(Reader in) {
+            this.in = in;
+        }
+
+        int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = in.read();
+            }
+            return peeked;
+        }
+
+        int next() throws IOException {
+            int c = peek();
+            peeked = -2;
+            if (c >= 0 && !Character.isHighSurrogate((char) c)) {
+                index++;
+            }
+            return c;
+        }
+
+        int skipWhitespace() throws IOException {
+            int c;
+            while ((c = peek()) == ' ' || c == '\t' || c == '\n' || c == '\r' || c == 0xFEFF) {
+                next();
+            }
+            return c;
+        }
+
+        /** Reads the rest of a string whose opening quote has been consumed. */
+        String string() throws IOException {
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                int c = next();
+                if (c < 0) throw new IllegalArgumentException("Unterminated JSON string");
+                if (c == '"') return value.toString();
+                if (c != '\\') {
+                    value.append((char) c);
+                    continue;
+                }
+                int e = next();
+                switch (e) {
+                    case '"', '\\', '/' -> value.append((char) e);
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'u' -> {
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(next(), 16);
+                            if (digit < 0) throw new IllegalArgumentException("Invalid \\u escape in JSON string");
+                            code = code * 16 + digit;
+                        }
+                        value.append((char) code);
+                    }
+                    default -> throw new IllegalArgumentException("Invalid escape in JSON string at " + index);
+                }
+            }
+        }
+
+        /** Reads a number or keyword whose first character has been consumed. */
+        String literal(char first) throws IOException {
+            StringBuilder value = new StringBuilder().append(first);
+            int c;
+            while ((c = peek()) >= 0 && (Character.isLetterOrDigit(c) || c == '.' || c == '-' || c == '+')) {
+                value.append((char) next());
+            }
+            return value.toString();
+        }
+
+        IllegalArgumentException malformed(int c) {
+            return new IllegalArgumentException("Malformed JSON: unexpected '" + (char) c + "' at " + (index - 1));
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package io.dscope.utils.crypto;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the encryptors and decryptors created for each provider configuration, so that long-lived callers (the
+ * {@code watch} command, the daemon) pay for SDK initialisation, credential resolution and connection set-up once
+ * instead of on every {@link CloudEncryptCore#processFiles} run. Pass it through
+ * {@link CloudEncryptCore.Options.Builder#clients(KmsClientPool)}. Plaintexts are never pooled: each run still gets
+ * its own decrypt cache, wiped when the run ends. Instances are thread-safe.
+ */
+public final class KmsClientPool implements AutoCloseable {
+
+    private final Map<Map.Entry<String, Map<String, String>>, CloudEncryptor> encryptors = new ConcurrentHashMap<>();
+    private final Map<Map.Entry<String, Map<String, String>>, CloudDecryptor> decryptors = new ConcurrentHashMap<>();
+
+    public CloudEncryptor encryptor(String provider, Map<String, String> settings) {
+        return encryptors.computeIfAbsent(key(provider, settings),
+                key -> CloudEncryptFactory.create(provider, new HashMap<>(settings)));
+    }
+
+    public CloudDecryptor decryptor(String provider, Map<String, String> settings) {
+        return decryptors.computeIfAbsent(key(provider, settings),
+                key -> CloudDecryptFactory.create(provider, new HashMap<>(settings)));
+    }
+
+    /** Number of pooled encryptors and decryptors. */
+    public int size() {
+        return encryptors.size() + decryptors.size();
+    }
+
+    /** Drops every pooled client; the next run creates new ones. */
+    @Override
+    public void close() {
+        encryptors.clear();
+        decryptors.clear();
+    }
+
+    private static Map.Entry<String, Map<String, String>> key(String provider, Map<String, String> settings) {
+        String p = provider == null ? "" : provider;
+        return Map.entry(p, Collections.unmodifiableMap(new HashMap<>(settings)));
+    }
+}
@@ -0,0 +1,50 @@
+package io.dscope.utils.crypto;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one decrypt request: a KMS call from a {@link CloudDecryptFactory} decryptor, or a request that a
+ * {@link CachingDecryptor} answered without one ({@code cacheHit}; provider and key are not known at that layer).
+ */
+@Name("io.dscope.KmsDecrypt")
+@Label("KMS Decrypt")
+@Category({"DScope", "Cloud Encrypt"})
+@Description("A KMS decrypt call, including rate limiting and retries, or a decrypt cache hit")
+@StackTrace(false)
+public final class KmsDecryptEvent extends Event {
+
+    @Label("Provider")
+    String provider;
+
+    @Label("Key Alias")
+    String keyAlias;
+
+    @Label("Ciphertext Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Cache Hit")
+    boolean cacheHit;
+
+    @Label("Success")
+    boolean success;
+
+    /** Ends the event and commits it if a recording wants it. */
+    public void finish(String provider, String keyAlias, long bytes, boolean cacheHit, boolean success) {
+        end();
+        if (shouldCommit()) {
+            this.provider = provider;
+            this.keyAlias = keyAlias;
+            this.bytes = bytes;
+            this.cacheHit = cacheHit;
+            this.success = success;
+            commit();
+        }
+    }
+}
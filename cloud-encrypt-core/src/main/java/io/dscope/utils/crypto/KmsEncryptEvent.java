@@ -0,0 +1,46 @@
+package io.dscope.utils.crypto;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one KMS encrypt call as the caller sees it, throttling waits and retries included. Emitted by every
+ * encryptor from {@link CloudEncryptFactory}; costs nothing measurable while no recording is running.
+ */
+@Name("io.dscope.KmsEncrypt")
+@Label("KMS Encrypt")
+@Category({"DScope", "Cloud Encrypt"})
+@Description("A KMS encrypt call, including rate limiting and retries")
+@StackTrace(false)
+public final class KmsEncryptEvent extends Event {
+
+    @Label("Provider")
+    String provider;
+
+    @Label("Key Alias")
+    String keyAlias;
+
+    @Label("Plaintext Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Success")
+    boolean success;
+
+    /** Ends the event and commits it if a recording wants it. */
+    public void finish(String provider, String keyAlias, long bytes, boolean success) {
+        end();
+        if (shouldCommit()) {
+            this.provider = provider;
+            this.keyAlias = keyAlias;
+            this.bytes = bytes;
+            this.success = success;
+            commit();
+        }
+    }
+}
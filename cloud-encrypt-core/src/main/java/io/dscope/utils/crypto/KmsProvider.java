@@ -0,0 +1,25 @@
+package io.dscope.utils.crypto;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service provider interface for KMS backends. Implementations are discovered with {@link java.util.ServiceLoader}
+ * from {@code META-INF/services/io.dscope.utils.crypto.KmsProvider}, so third parties can plug in a backend by adding
+ * a jar to the classpath.
+ *
+ * <p>Implementations should keep SDK types out of their fields and signatures so that loading the provider class
+ * does not load the cloud SDK; the SDK is only linked when {@link #createEncryptor} or {@link #createDecryptor} runs
+ * for the selected provider.</p>
+ */
+public interface KmsProvider {
+
+    /**
+     * Provider names (lower case) accepted in {@code provider:} and {@code --provider}.
+     */
+    Set<String> names();
+
+    CloudEncryptor createEncryptor(Map<String, String> config);
+
+    CloudDecryptor createDecryptor(Map<String, String> config);
+}
@@ -0,0 +1,345 @@
+package io.dscope.utils.crypto;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide pacing for KMS calls. Every provider encryptor and decryptor created by the factories is routed
+ * through a lane keyed by provider, region and key. Each lane combines a token bucket (steady request rate), an
+ * AIMD concurrency limit that backs off when the provider signals throttling, and jittered exponential retries for
+ * transient failures so bulk runs settle at the highest rate the provider will sustain instead of aborting.
+ *
+ * <p>Settings are read from the {@code kms.throttle} block of {@code .cloudencrypt.yml} (flattened to
+ * {@code throttle.*} keys) or supplied via {@code --set throttle.rate=50}.</p>
+ */
+public final class KmsRateGovernor {
+
+    private static final KmsRateGovernor SHARED = new KmsRateGovernor();
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    KmsRateGovernor() {
+    }
+
+    public static KmsRateGovernor shared() {
+        return SHARED;
+    }
+
+    /**
+     * Wraps {@code encryptor} so that every call is paced and retried according to the throttle settings in
+     * {@code config}. Returns the encryptor unchanged when throttling is disabled.
+     */
+    public CloudEncryptor governEncryptor(String provider, Map<String, String> config, CloudEncryptor encryptor) {
+        Settings settings = Settings.from(config);
+        if (!settings.enabled()) {
+            return encryptor;
+        }
+        String lane = laneKey(provider, config);
+        return plainText -> call(lane, settings, () -> encryptor.encrypt(plainText));
+    }
+
+    /**
+     * Wraps {@code decryptor} so that every call is paced and retried according to the throttle settings in
+     * {@code config}. Returns the decryptor unchanged when throttling is disabled.
+     */
+    public CloudDecryptor governDecryptor(String provider, Map<String, String> config, CloudDecryptor decryptor) {
+        Settings settings = Settings.from(config);
+        if (!settings.enabled()) {
+            return decryptor;
+        }
+        String lane = laneKey(provider, config);
+        return cipherBase64 -> call(lane, settings, () -> decryptor.decrypt(cipherBase64));
+    }
+
+    /**
+     * Executes {@code operation} inside the given lane, waiting for a rate token and a concurrency slot, and retrying
+     * retryable failures with full-jitter exponential backoff.
+     */
+    <T> T call(String laneKey, Settings settings, Callable<T> operation) throws Exception {
+        Objects.requireNonNull(operation, "operation");
+        Lane lane = lanes.computeIfAbsent(laneKey, key -> new Lane(settings));
+        lane.configure(settings);
+
+        int attempt = 0;
+        while (true) {
+            lane.bucket.acquire();
+            lane.limiter.acquire();
+            try {
+                T result = operation.call();
+                lane.limiter.release(false);
+                return result;
+            } catch (Exception ex) {
+                // only throttling shrinks the concurrency limit; transient failures are retried at the same limit
+                boolean throttled = ThrottlingClassifier.isThrottling(ex);
+                lane.limiter.release(throttled);
+                if (attempt >= settings.maxRetries() || !ThrottlingClassifier.isRetryable(ex)) {
+                    throw ex;
+                }
+                if (OperationMetrics.enabled()) {
+                    int end = laneKey.indexOf('|');
+                    OperationMetrics.count(throttled ? "kms.throttled" : "kms.retry",
+                            end >= 0 ? laneKey.substring(0, end) : laneKey);
+                }
+            }
+            sleepBackoff(settings, attempt++);
+        }
+    }
+
+    /** A concurrency slot taken with {@link #tryAcquire}; released with the outcome of the request it admitted. */
+    interface Permit {
+        void release(boolean throttled);
+
+        /** Gives the slot back unused, when the request was never sent. */
+        void cancel();
+    }
+
+    private static final Permit UNPACED = new Permit() {
+        @Override
+        public void release(boolean throttled) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    /**
+     * Admits one extra request to the lane of {@code provider} and {@code config} without waiting: a hedged duplicate
+     * of a call that {@link #call} is already pacing. The request needs its own rate token and concurrency slot, and
+     * gets {@code null} when either is not free right now, so it is simply not sent. Always admitted when throttling
+     * is disabled.
+     */
+    Permit tryAcquire(String provider, Map<String, String> config) {
+        Settings settings = Settings.from(config);
+        if (!settings.enabled()) {
+            return UNPACED;
+        }
+        Lane lane = lanes.computeIfAbsent(laneKey(provider, config), key -> new Lane(settings));
+        lane.configure(settings);
+        if (!lane.limiter.tryAcquire()) {
+            return null;
+        }
+        if (!lane.bucket.tryAcquire()) {
+            lane.limiter.cancel();
+            return null;
+        }
+        AimdLimiter limiter = lane.limiter;
+        return new Permit() {
+            @Override
+            public void release(boolean throttled) {
+                limiter.release(throttled);
+            }
+
+            @Override
+            public void cancel() {
+                limiter.cancel();
+            }
+        };
+    }
+
+    double currentLimit(String laneKey) {
+        Lane lane = lanes.get(laneKey);
+        return lane != null ? lane.limiter.limit() : -1;
+    }
+
+    static String laneKey(String provider, Map<String, String> config) {
+        Map<String, String> cfg = config != null ? config : Map.of();
+        String location = firstNonBlank(cfg, "region", "regions", "location", "endpoint", "endpoints", "vault");
+        String key = firstNonBlank(cfg, "keyId", "key", "keyRing");
+        return provider + "|" + location + "|" + key;
+    }
+
+    private static String firstNonBlank(Map<String, String> cfg, String... keys) {
+        for (String key : keys) {
+            String value = cfg.get(key);
+            if (value != null && !value.isBlank()) {
+                return value;
+            }
+        }
+        return "";
+    }
+
+    private static void sleepBackoff(Settings settings, int attempt) throws InterruptedException {
+        long ceiling = Math.min(settings.maxDelayMs(), settings.baseDelayMs() << Math.min(attempt, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        if (delay > 0) {
+            TimeUnit.MILLISECONDS.sleep(delay);
+        }
+    }
+
+    /**
+     * Throttle settings resolved from flattened {@code throttle.*} provider settings.
+     */
+    record Settings(boolean enabled, double rate, double burst, int initialConcurrency, int minConcurrency,
+                    int maxConcurrency, int maxRetries, long baseDelayMs, long maxDelayMs) {
+
+        static Settings from(Map<String, String> config) {
+            Map<String, String> cfg = config != null ? config : Map.of();
+            double rate = parseDouble(cfg.get("throttle.rate"), 0);
+            int maxConcurrency = Math.max(1, parseInt(cfg.get("throttle.maxConcurrency"), 64));
+            int minConcurrency = Math.max(1, Math.min(maxConcurrency, parseInt(cfg.get("throttle.minConcurrency"), 1)));
+            int initial = parseInt(cfg.get("throttle.initialConcurrency"), Math.min(8, maxConcurrency));
+            return new Settings(
+                    !"false".equalsIgnoreCase(cfg.get("throttle.enabled")),
+                    rate,
+                    parseDouble(cfg.get("throttle.burst"), Math.max(1, rate)),
+                    Math.max(minConcurrency, Math.min(maxConcurrency, initial)),
+                    minConcurrency,
+                    maxConcurrency,
+                    Math.max(0, parseInt(cfg.get("throttle.maxRetries"), 5)),
+                    Math.max(0, parseLong(cfg.get("throttle.baseDelayMs"), 100)),
+                    Math.max(0, parseLong(cfg.get("throttle.maxDelayMs"), 10_000)));
+        }
+
+        private static double parseDouble(String value, double fallback) {
+            try {
+                return value != null && !value.isBlank() ? Double.parseDouble(value.trim()) : fallback;
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid throttle setting: " + value, ex);
+            }
+        }
+
+        private static int parseInt(String value, int fallback) {
+            return (int) parseDouble(value, fallback);
+        }
+
+        private static long parseLong(String value, long fallback) {
+            return (long) parseDouble(value, fallback);
+        }
+    }
+
+    private static final class Lane {
+        private final TokenBucket bucket = new TokenBucket();
+        private final AimdLimiter limiter = new AimdLimiter();
+        private volatile Settings settings;
+
+        private Lane(Settings settings) {
+            configure(settings);
+        }
+
+        private void configure(Settings next) {
+            if (next.equals(settings)) {
+                return;
+            }
+            synchronized (this) {
+                if (!next.equals(settings)) {
+                    bucket.configure(next.rate(), next.burst());
+                    limiter.configure(next.initialConcurrency(), next.minConcurrency(), next.maxConcurrency());
+                    settings = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reservation-based token bucket: callers reserve a token under the lock and sleep outside it.
+     */
+    private static final class TokenBucket {
+        private double ratePerNano;
+        private double capacity;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        synchronized void configure(double ratePerSecond, double burst) {
+            this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = Math.max(1, burst);
+            this.tokens = Math.min(tokens, capacity);
+        }
+
+        void acquire() throws InterruptedException {
+            long waitNanos = reserve();
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+
+        synchronized boolean tryAcquire() {
+            if (ratePerNano <= 0) {
+                return true;
+            }
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+            lastRefill = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+
+        private synchronized long reserve() {
+            if (ratePerNano <= 0) {
+                return 0;
+            }
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+            lastRefill = now;
+            tokens -= 1;
+            return tokens >= 0 ? 0 : (long) (-tokens / ratePerNano);
+        }
+    }
+
+    /**
+     * Additive-increase / multiplicative-decrease concurrency limit. Successful calls grow the limit by roughly one
+     * slot per window, throttled calls halve it (at most once per cooldown so a burst of rejections counts once).
+     */
+    private static final class AimdLimiter {
+        private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+        private double limit = 1;
+        private int min = 1;
+        private int max = 1;
+        private int inFlight;
+        private long lastDecrease;
+
+        synchronized void configure(int initial, int min, int max) {
+            this.min = min;
+            this.max = max;
+            this.limit = initial;
+            notifyAll();
+        }
+
+        synchronized void acquire() throws InterruptedException {
+            while (inFlight >= (int) limit) {
+                wait();
+            }
+            inFlight++;
+        }
+
+        synchronized boolean tryAcquire() {
+            if (inFlight >= (int) limit) {
+                return false;
+            }
+            inFlight++;
+            return true;
+        }
+
+        /** Gives back a slot that was never used, without counting it as an outcome. */
+        synchronized void cancel() {
+            inFlight--;
+            notifyAll();
+        }
+
+        synchronized void release(boolean throttled) {
+            inFlight--;
+            if (throttled) {
+                long now = System.nanoTime();
+                if (lastDecrease == 0 || now - lastDecrease >= DECREASE_COOLDOWN_NANOS) {
+                    limit = Math.max(min, limit / 2);
+                    lastDecrease = now;
+                }
+            } else {
+                limit = Math.min(max, limit + 1.0 / limit);
+            }
+            notifyAll();
+        }
+
+        synchronized double limit() {
+            return limit;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package io.dscope.utils.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Offline KMS decryptor for ciphertexts produced by {@link LocalEncryptor}. The key version is read from the
+ * ciphertext header, so {@code keyId} is not required for decryption.
+ */
+public class LocalDecryptor implements CloudDecryptor {
+
+    private final Map<String, String> config;
+
+    public LocalDecryptor(Map<String, String> config) {
+        this.config = config;
+    }
+
+    @Override
+    public String decrypt(String cipherBase64) throws Exception {
+        byte[] data = Base64.getDecoder().decode(cipherBase64);
+        if (data.length < 2 || data[0] != LocalEncryptor.FORMAT_VERSION) {
+            throw new IllegalArgumentException("Ciphertext was not produced by the local provider");
+        }
+        int kidLength = data[1] & 0xFF;
+        int headerLength = 2 + kidLength;
+        if (data.length < headerLength) {
+            throw new IllegalArgumentException("Truncated local ciphertext");
+        }
+        String kid = new String(data, 2, kidLength, StandardCharsets.UTF_8);
+        LocalKeyStore.LocalKey key = LocalKeyStore.open(config).resolve(kid);
+
+        byte[] plain;
+        if (key.isRsa()) {
+            if (key.privateKey() == null) {
+                throw new IllegalStateException("Local key " + kid + " has no private key for decryption");
+            }
+            Cipher cipher = Cipher.getInstance("RSA/ECB/OAEPPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key.privateKey(), LocalEncryptor.RSA_OAEP_SHA256);
+            plain = cipher.doFinal(data, headerLength, data.length - headerLength);
+        } else {
+            int ivEnd = headerLength + LocalEncryptor.IV_BYTES;
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key.secretKey(),
+                    new GCMParameterSpec(LocalEncryptor.GCM_TAG_BITS, Arrays.copyOfRange(data, headerLength, ivEnd)));
+            cipher.updateAAD(data, 0, headerLength);
+            plain = cipher.doFinal(data, ivEnd, data.length - ivEnd);
+        }
+        return new String(plain, StandardCharsets.UTF_8);
+    }
+}
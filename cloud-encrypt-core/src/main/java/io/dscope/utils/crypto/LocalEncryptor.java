@@ -0,0 +1,79 @@
+package io.dscope.utils.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.security.spec.MGF1ParameterSpec;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Offline KMS encryptor backed by a {@link LocalKeyStore}. Values are encrypted under the latest version of
+ * {@code keyId} (or the version pinned as {@code keyId: name:N}). The ciphertext records the key version so that
+ * {@link LocalDecryptor} keeps working after rotation.
+ *
+ * <p>Ciphertext layout (Base64): {@code 0x01 | kid length | kid | payload}, where the payload is
+ * {@code IV(12) | AES-GCM ciphertext} for AES keys (the header is authenticated as AAD) or an RSA-OAEP/SHA-256
+ * block for RSA keys.</p>
+ */
+public class LocalEncryptor implements CloudEncryptor {
+
+    static final byte FORMAT_VERSION = 1;
+    static final int GCM_TAG_BITS = 128;
+    static final int IV_BYTES = 12;
+    static final OAEPParameterSpec RSA_OAEP_SHA256 = new OAEPParameterSpec(
+            "SHA-256", "MGF1", MGF1ParameterSpec.SHA256, PSource.PSpecified.DEFAULT);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Map<String, String> config;
+    private final String keyId;
+
+    public LocalEncryptor(Map<String, String> config) {
+        this.config = config;
+        String key = config.get("keyId");
+        if (key == null || key.isBlank()) {
+            throw new IllegalArgumentException("Local keyId is required. Provide kms.keyId in configuration.");
+        }
+        this.keyId = key;
+    }
+
+    @Override
+    public String encrypt(String plainText) throws Exception {
+        LocalKeyStore.LocalKey key = LocalKeyStore.open(config).resolve(keyId);
+        byte[] header = header(key.kid());
+        byte[] plainBytes = plainText.getBytes(StandardCharsets.UTF_8);
+        byte[] payload;
+        if (key.isRsa()) {
+            Cipher cipher = Cipher.getInstance("RSA/ECB/OAEPPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key.publicKey(), RSA_OAEP_SHA256);
+            payload = cipher.doFinal(plainBytes);
+        } else {
+            byte[] iv = new byte[IV_BYTES];
+            RANDOM.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key.secretKey(), new GCMParameterSpec(GCM_TAG_BITS, iv));
+            cipher.updateAAD(header);
+            byte[] sealed = cipher.doFinal(plainBytes);
+            payload = ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array();
+        }
+        byte[] out = ByteBuffer.allocate(header.length + payload.length).put(header).put(payload).array();
+        return Base64.getEncoder().encodeToString(out);
+    }
+
+    static byte[] header(String kid) {
+        byte[] kidBytes = kid.getBytes(StandardCharsets.UTF_8);
+        if (kidBytes.length > 255) {
+            throw new IllegalArgumentException("Local key id too long: " + kid);
+        }
+        return ByteBuffer.allocate(2 + kidBytes.length)
+                .put(FORMAT_VERSION)
+                .put((byte) kidBytes.length)
+                .put(kidBytes)
+                .array();
+    }
+}
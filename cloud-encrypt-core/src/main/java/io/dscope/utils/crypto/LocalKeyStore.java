@@ -0,0 +1,407 @@
+package io.dscope.utils.crypto;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.AclEntry;
+import java.nio.file.attribute.AclEntryPermission;
+import java.nio.file.attribute.AclEntryType;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.RSAPrivateCrtKeySpec;
+import java.security.spec.RSAPrivateKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Versioned wrapping keys for the offline {@code local} KMS provider. Keys live either in a PKCS12 keystore
+ * ({@code .p12}/{@code .pfx}) or in a JWK key set (JSON). Each entry is named {@code <key>:<version>}; an entry without
+ * a version suffix is version 1. AES ({@code oct}) and RSA keys are supported.
+ *
+ * <p>Settings: {@code keystore} (path, required), {@code format} ({@code pkcs12} or {@code jwk}, inferred from the file
+ * extension), {@code password} or {@code passwordEnv} (PKCS12 only, default env var
+ * {@code CLOUD_ENCRYPT_KEYSTORE_PASSWORD}).</p>
+ */
+public final class LocalKeyStore {
+
+    public static final String DEFAULT_PASSWORD_ENV = "CLOUD_ENCRYPT_KEYSTORE_PASSWORD";
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+    private static final Map<Path, Loaded> CACHE = new ConcurrentHashMap<>();
+
+    private final Map<String, NavigableMap<Integer, LocalKey>> keys;
+
+    private LocalKeyStore(Map<String, NavigableMap<Integer, LocalKey>> keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * A single key version. Exactly one of {@code secretKey} or {@code publicKey} is set; {@code privateKey} is present
+     * for RSA keys that can decrypt.
+     */
+    public record LocalKey(String name, int version, SecretKey secretKey, PublicKey publicKey, PrivateKey privateKey) {
+        public String kid() {
+            return name + ":" + version;
+        }
+
+        public boolean isRsa() {
+            return publicKey != null;
+        }
+    }
+
+    /**
+     * Loads the keystore referenced by {@code settings}, reusing the parsed copy while the file is unchanged.
+     */
+    public static LocalKeyStore open(Map<String, String> settings) throws IOException, GeneralSecurityException {
+        Path path = keystorePath(settings);
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        long size = Files.size(path);
+        Loaded cached = CACHE.get(path);
+        if (cached != null && cached.modified == modified && cached.size == size) {
+            return cached.store;
+        }
+        LocalKeyStore store = isPkcs12(path, settings)
+                ? loadPkcs12(path, password(settings))
+                : loadJwk(path);
+        CACHE.put(path, new Loaded(modified, size, store));
+        return store;
+    }
+
+    /**
+     * Returns the requested version, or the latest one when {@code keyRef} has no {@code :version} suffix.
+     */
+    public LocalKey resolve(String keyRef) {
+        Objects.requireNonNull(keyRef, "keyRef");
+        KeyRef ref = KeyRef.parse(keyRef);
+        NavigableMap<Integer, LocalKey> versions = keys.get(ref.name);
+        if (versions == null || versions.isEmpty()) {
+            throw new IllegalArgumentException("Local key not found: " + ref.name);
+        }
+        if (ref.version == null) {
+            return versions.lastEntry().getValue();
+        }
+        LocalKey key = versions.get(ref.version);
+        if (key == null) {
+            throw new IllegalArgumentException("Local key version not found: " + keyRef);
+        }
+        return key;
+    }
+
+    public List<String> kids() {
+        List<String> kids = new ArrayList<>();
+        for (NavigableMap<Integer, LocalKey> versions : keys.values()) {
+            for (LocalKey key : versions.values()) {
+                kids.add(key.kid());
+            }
+        }
+        Collections.sort(kids);
+        return kids;
+    }
+
+    /**
+     * Adds a new version of {@code name} to the keystore (creating the file if needed) and returns its kid. This is the
+     * rotation primitive: ciphertexts produced with older versions stay decryptable.
+     */
+    public static String generate(Map<String, String> settings, String name, String algorithm)
+            throws IOException, GeneralSecurityException {
+        Objects.requireNonNull(name, "name");
+        if (name.isBlank() || name.contains(":")) {
+            throw new IllegalArgumentException("Key name must be non-empty and must not contain ':'");
+        }
+        Path path = keystorePath(settings);
+        boolean rsa = "rsa".equalsIgnoreCase(algorithm);
+        boolean pkcs12 = isPkcs12(path, settings);
+        if (rsa && pkcs12) {
+            throw new IllegalArgumentException("RSA keys for PKCS12 keystores must be created with keytool; use a JWK key set to generate them here");
+        }
+
+        int version = 1;
+        if (Files.exists(path)) {
+            LocalKeyStore existing = pkcs12 ? loadPkcs12(path, password(settings)) : loadJwk(path);
+            NavigableMap<Integer, LocalKey> versions = existing.keys.get(name.toLowerCase(Locale.ROOT));
+            if (versions != null && !versions.isEmpty()) {
+                version = versions.lastKey() + 1;
+            }
+        }
+        String kid = name.toLowerCase(Locale.ROOT) + ":" + version;
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+        if (pkcs12) {
+            char[] password = password(settings);
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            if (Files.exists(path)) {
+                try (InputStream in = Files.newInputStream(path)) {
+                    keyStore.load(in, password);
+                }
+            } else {
+                keyStore.load(null, password);
+            }
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(256);
+            keyStore.setEntry(kid, new KeyStore.SecretKeyEntry(generator.generateKey()),
+                    new KeyStore.PasswordProtection(password));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            keyStore.store(out, password);
+            writeOwnerOnly(path, out.toByteArray());
+        } else {
+            JwkSet set = Files.exists(path)
+                    ? GSON.fromJson(Files.readString(path, StandardCharsets.UTF_8), JwkSet.class)
+                    : new JwkSet();
+            if (set.keys == null) {
+                set.keys = new ArrayList<>();
+            }
+            set.keys.add(rsa ? Jwk.rsa(kid) : Jwk.aes(kid));
+            writeOwnerOnly(path, GSON.toJson(set).getBytes(StandardCharsets.UTF_8));
+        }
+        CACHE.remove(path);
+        return kid;
+    }
+
+    /**
+     * Writes key material to a temporary file that only the owner can read and moves it over {@code path}, so the
+     * keystore never exists with the umask's (often world-readable) permissions, not even briefly.
+     */
+    private static void writeOwnerOnly(Path path, byte[] content) throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        Path temp;
+        if (dir.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            temp = Files.createTempFile(dir, ".keystore", ".tmp",
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            temp = Files.createTempFile(dir, ".keystore", ".tmp");
+            AclFileAttributeView acl = Files.getFileAttributeView(temp, AclFileAttributeView.class);
+            if (acl != null) {
+                acl.setAcl(List.of(AclEntry.newBuilder()
+                        .setType(AclEntryType.ALLOW)
+                        .setPrincipal(Files.getOwner(temp))
+                        .setPermissions(AclEntryPermission.values())
+                        .build()));
+            }
+        }
+        try {
+            Files.write(temp, content);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static Path keystorePath(Map<String, String> settings) {
+        String value = settings != null ? settings.get("keystore") : null;
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Local keystore is required. Provide kms.keystore in configuration.");
+        }
+        return Paths.get(value.trim());
+    }
+
+    private static boolean isPkcs12(Path path, Map<String, String> settings) {
+        String format = settings != null ? settings.get("format") : null;
+        if (format != null && !format.isBlank()) {
+            return format.trim().equalsIgnoreCase("pkcs12") || format.trim().equalsIgnoreCase("p12");
+        }
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".p12") || name.endsWith(".pfx");
+    }
+
+    private static char[] password(Map<String, String> settings) {
+        String password = settings.get("password");
+        if (password == null || password.isBlank()) {
+            String env = settings.getOrDefault("passwordEnv", DEFAULT_PASSWORD_ENV);
+            password = System.getenv(env);
+        }
+        if (password == null || password.isBlank()) {
+            throw new IllegalArgumentException("PKCS12 keystore password missing. Set kms.password or the "
+                    + settings.getOrDefault("passwordEnv", DEFAULT_PASSWORD_ENV) + " environment variable.");
+        }
+        return password.toCharArray();
+    }
+
+    private static LocalKeyStore loadPkcs12(Path path, char[] password) throws IOException, GeneralSecurityException {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(path)) {
+            keyStore.load(in, password);
+        }
+        Map<String, NavigableMap<Integer, LocalKey>> keys = new HashMap<>();
+        Enumeration<String> aliases = keyStore.aliases();
+        while (aliases.hasMoreElements()) {
+            String alias = aliases.nextElement();
+            KeyRef ref = KeyRef.parse(alias);
+            int version = ref.version != null ? ref.version : 1;
+            Key key = keyStore.getKey(alias, password);
+            LocalKey localKey;
+            if (key instanceof SecretKey secretKey) {
+                localKey = new LocalKey(ref.name, version, new SecretKeySpec(secretKey.getEncoded(), "AES"), null, null);
+            } else if (key instanceof PrivateKey privateKey) {
+                Certificate certificate = keyStore.getCertificate(alias);
+                if (certificate == null) {
+                    continue;
+                }
+                localKey = new LocalKey(ref.name, version, null, certificate.getPublicKey(), privateKey);
+            } else {
+                continue;
+            }
+            keys.computeIfAbsent(ref.name, k -> new TreeMap<>()).put(version, localKey);
+        }
+        return new LocalKeyStore(keys);
+    }
+
+    private static LocalKeyStore loadJwk(Path path) throws IOException, GeneralSecurityException {
+        JwkSet set = GSON.fromJson(Files.readString(path, StandardCharsets.UTF_8), JwkSet.class);
+        Map<String, NavigableMap<Integer, LocalKey>> keys = new HashMap<>();
+        if (set == null || set.keys == null) {
+            return new LocalKeyStore(keys);
+        }
+        for (Jwk jwk : set.keys) {
+            if (jwk == null || jwk.kid == null || jwk.kty == null) {
+                continue;
+            }
+            KeyRef ref = KeyRef.parse(jwk.kid);
+            int version = ref.version != null ? ref.version : 1;
+            LocalKey localKey = switch (jwk.kty) {
+                case "oct" -> new LocalKey(ref.name, version, new SecretKeySpec(decode(jwk.k), "AES"), null, null);
+                case "RSA" -> new LocalKey(ref.name, version, null, jwk.toPublicKey(), jwk.toPrivateKey());
+                default -> throw new IllegalArgumentException("Unsupported JWK key type: " + jwk.kty);
+            };
+            keys.computeIfAbsent(ref.name, k -> new TreeMap<>()).put(version, localKey);
+        }
+        return new LocalKeyStore(keys);
+    }
+
+    private static byte[] decode(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("JWK is missing key material");
+        }
+        return Base64.getUrlDecoder().decode(value);
+    }
+
+    private static String encode(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private record Loaded(long modified, long size, LocalKeyStore store) { }
+
+    private record KeyRef(String name, Integer version) {
+        static KeyRef parse(String value) {
+            String trimmed = value.trim().toLowerCase(Locale.ROOT);
+            int colon = trimmed.lastIndexOf(':');
+            if (colon > 0) {
+                try {
+                    return new KeyRef(trimmed.substring(0, colon), Integer.parseInt(trimmed.substring(colon + 1)));
+                } catch (NumberFormatException ex) {
+                    return new KeyRef(trimmed, null);
+                }
+            }
+            return new KeyRef(trimmed, null);
+        }
+    }
+
+    static final class JwkSet {
+        List<Jwk> keys;
+    }
+
+    static final class Jwk {
+        String kty;
+        String kid;
+        String k;
+        String n;
+        String e;
+        String d;
+        String p;
+        String q;
+        String dp;
+        String dq;
+        String qi;
+
+        static Jwk aes(String kid) throws GeneralSecurityException {
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(256);
+            Jwk jwk = new Jwk();
+            jwk.kty = "oct";
+            jwk.kid = kid;
+            jwk.k = Base64.getUrlEncoder().withoutPadding().encodeToString(generator.generateKey().getEncoded());
+            return jwk;
+        }
+
+        static Jwk rsa(String kid) throws GeneralSecurityException {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(3072);
+            KeyPair pair = generator.generateKeyPair();
+            RSAPublicKey publicKey = (RSAPublicKey) pair.getPublic();
+            RSAPrivateCrtKey privateKey = (RSAPrivateCrtKey) pair.getPrivate();
+            Jwk jwk = new Jwk();
+            jwk.kty = "RSA";
+            jwk.kid = kid;
+            jwk.n = encode(publicKey.getModulus());
+            jwk.e = encode(publicKey.getPublicExponent());
+            jwk.d = encode(privateKey.getPrivateExponent());
+            jwk.p = encode(privateKey.getPrimeP());
+            jwk.q = encode(privateKey.getPrimeQ());
+            jwk.dp = encode(privateKey.getPrimeExponentP());
+            jwk.dq = encode(privateKey.getPrimeExponentQ());
+            jwk.qi = encode(privateKey.getCrtCoefficient());
+            return jwk;
+        }
+
+        PublicKey toPublicKey() throws GeneralSecurityException {
+            return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(big(n), big(e)));
+        }
+
+        PrivateKey toPrivateKey() throws GeneralSecurityException {
+            if (d == null) {
+                return null;
+            }
+            KeyFactory factory = KeyFactory.getInstance("RSA");
+            if (p != null && q != null && dp != null && dq != null && qi != null) {
+                return factory.generatePrivate(new RSAPrivateCrtKeySpec(
+                        big(n), big(e), big(d), big(p), big(q), big(dp), big(dq), big(qi)));
+            }
+            return factory.generatePrivate(new RSAPrivateKeySpec(big(n), big(d)));
+        }
+
+        private static BigInteger big(String value) {
+            return new BigInteger(1, decode(value));
+        }
+    }
+}
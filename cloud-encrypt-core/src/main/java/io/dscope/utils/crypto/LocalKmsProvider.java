@@ -0,0 +1,25 @@
+package io.dscope.utils.crypto;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link KmsProvider} for the offline keystore-backed {@code local} provider.
+ */
+public final class LocalKmsProvider implements KmsProvider {
+
+    @Override
+    public Set<String> names() {
+        return Set.of("local");
+    }
+
+    @Override
+    public CloudEncryptor createEncryptor(Map<String, String> config) {
+        return new LocalEncryptor(config);
+    }
+
+    @Override
+    public CloudDecryptor createDecryptor(Map<String, String> config) {
+        return new LocalDecryptor(config);
+    }
+}
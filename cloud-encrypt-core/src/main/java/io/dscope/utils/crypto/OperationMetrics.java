@@ -0,0 +1,100 @@
+package io.dscope.utils.crypto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide latency and throughput figures per operation ({@code kms.encrypt}, {@code file.check},
+ * {@code secret.get}, ...) and provider. Off by default: while disabled, {@link #start()} is a single volatile read
+ * and {@link #record} returns at once, so the instrumentation can stay in hot paths. Once enabled, recording is
+ * lock-free (adders and a {@link LatencyHistogram} per operation and provider).
+ *
+ * <pre>{@code
+ * long started = OperationMetrics.start();
+ * ... do the work ...
+ * OperationMetrics.record("kms.encrypt", provider, started, plainText.length(), false);
+ * }</pre>
+ */
+public final class OperationMetrics {
+
+    private static volatile boolean enabled;
+    private static final Map<String, Operation> OPERATIONS = new ConcurrentHashMap<>();
+
+    private OperationMetrics() {
+    }
+
+    public static void enable(boolean enable) {
+        enabled = enable;
+    }
+
+    public static boolean enabled() {
+        return enabled;
+    }
+
+    /** Start timestamp for {@link #record}, or {@code 0} while metrics are disabled. */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records one operation that began at {@code started} (from {@link #start()}; {@code 0} records nothing).
+     *
+     * @param bytes payload size the operation handled, {@code 0} if not applicable
+     */
+    public static void record(String operation, String provider, long started, long bytes, boolean failed) {
+        if (started == 0) {
+            return;
+        }
+        long elapsed = System.nanoTime() - started;
+        Operation op = OPERATIONS.computeIfAbsent(operation + '\0' + (provider == null ? "" : provider),
+                key -> new Operation(operation, provider == null ? "" : provider));
+        op.latency.record(elapsed);
+        if (bytes > 0) op.bytes.add(bytes);
+        if (failed) op.errors.increment();
+    }
+
+    /** Counts an event that has no duration of its own, e.g. a throttled KMS call that will be retried. */
+    public static void count(String operation, String provider) {
+        if (enabled) {
+            long now = System.nanoTime();
+            record(operation, provider, now, 0, false);
+        }
+    }
+
+    /** Figures recorded so far, ordered by operation and provider. */
+    public static List<Stat> snapshot() {
+        List<Stat> stats = new ArrayList<>();
+        for (Operation op : OPERATIONS.values()) {
+            LatencyHistogram h = op.latency;
+            stats.add(new Stat(op.name, op.provider, h.count(), op.errors.sum(), op.bytes.sum(), h.sum(),
+                    h.percentile(50), h.percentile(95), h.percentile(99), h.max()));
+        }
+        stats.sort(Comparator.comparing(Stat::operation).thenComparing(Stat::provider));
+        return stats;
+    }
+
+    public static void reset() {
+        OPERATIONS.clear();
+    }
+
+    /** Totals for one operation and provider; all durations in nanoseconds. */
+    public record Stat(String operation, String provider, long count, long errors, long bytes, long totalNanos,
+                       long p50Nanos, long p95Nanos, long p99Nanos, long maxNanos) { }
+
+    private static final class Operation {
+        final String name;
+        final String provider;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder errors = new LongAdder();
+
+        Operation(String name, String provider) {
+            this.name = name;
+            this.provider = provider;
+        }
+    }
+}
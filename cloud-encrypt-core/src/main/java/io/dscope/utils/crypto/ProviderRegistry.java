@@ -0,0 +1,88 @@
+package io.dscope.utils.crypto;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Lazily built name-to-provider index over a {@link ServiceLoader}. The loader runs once, on first lookup, and the
+ * first provider registered for a name wins, so a plugin cannot silently replace a built-in backend.
+ *
+ * @param <P> service provider interface type
+ */
+public final class ProviderRegistry<P> {
+
+    private final Class<P> type;
+    private final Function<P, Set<String>> names;
+    private volatile Map<String, P> providers;
+
+    public ProviderRegistry(Class<P> type, Function<P, Set<String>> names) {
+        this.type = type;
+        this.names = names;
+    }
+
+    /**
+     * Returns the provider registered under {@code name} (case-insensitive), or {@code null} when none is.
+     */
+    public P find(String name) {
+        return name == null ? null : providers().get(name.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Sorted names of every discovered provider, for error messages and help output.
+     */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(new TreeSet<>(providers().keySet()));
+    }
+
+    private Map<String, P> providers() {
+        Map<String, P> current = providers;
+        if (current == null) {
+            synchronized (this) {
+                current = providers;
+                if (current == null) {
+                    current = load();
+                    providers = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Map<String, P> load() {
+        Map<String, P> index = new LinkedHashMap<>();
+        ClassLoader loader = type.getClassLoader();
+        ClassLoader context = Thread.currentThread().getContextClassLoader();
+        register(index, ServiceLoader.load(type, loader));
+        if (context != null && context != loader) {
+            register(index, ServiceLoader.load(type, context));
+        }
+        return Collections.unmodifiableMap(index);
+    }
+
+    private void register(Map<String, P> index, ServiceLoader<P> loader) {
+        Iterator<P> iterator = loader.iterator();
+        while (true) {
+            P provider;
+            try {
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                provider = iterator.next();
+            } catch (ServiceConfigurationError | LinkageError ex) {
+                // A provider whose classes cannot be loaded is unavailable; the loader moves on to the next entry.
+                continue;
+            }
+            for (String name : names.apply(provider)) {
+                index.putIfAbsent(name.toLowerCase(Locale.ROOT), provider);
+            }
+        }
+    }
+}
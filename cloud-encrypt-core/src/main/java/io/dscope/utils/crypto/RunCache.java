@@ -0,0 +1,275 @@
+package io.dscope.utils.crypto;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent record of what earlier runs found in each file (default {@value #FILE_NAME}), so repeat runs over an
+ * unchanged tree skip the files they already know about. Entries are keyed by absolute path and remember the file's
+ * size, modification time and SHA-256, plus the outcome of the last check (plaintext keys) and whether the last
+ * encrypt run left nothing to encrypt.
+ *
+ * <p>A file whose size and modification time match is trusted without being read, unless it was modified within
+ * {@value #RACY_MILLIS} ms of being recorded (file systems with coarse timestamps could hide a second write); then, or
+ * when only the timestamp differs, its content hash decides. The whole cache is discarded when the rules fingerprint
+ * it was written with differs from the current one, so changing the configuration or the sensitive key rules
+ * invalidates it automatically. Decrypt runs never consult it. Instances are thread-safe.</p>
+ */
+public final class RunCache {
+
+    public static final String FILE_NAME = ".cloudencrypt.cache";
+
+    /** Bump when a change to the processors could change the outcome for an unchanged file. */
+    static final int FORMAT = 1;
+    static final long RACY_MILLIS = 2000;
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private final Path file;
+    private final String rules;
+    private final Map<String, Entry> entries;
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile boolean dirty;
+
+    private RunCache(Path file, String rules, Map<String, Entry> entries) {
+        this.file = file;
+        this.rules = rules;
+        this.entries = new ConcurrentHashMap<>(entries);
+    }
+
+    /**
+     * Loads {@code file}. A missing or unreadable cache, or one written under different {@code rules}, starts empty.
+     *
+     * @param rules fingerprint of everything that decides an outcome, see {@link #fingerprint(String...)}
+     */
+    public static RunCache load(Path file, String rules) {
+        if (Files.isRegularFile(file)) {
+            try {
+                Stored stored = GSON.fromJson(Files.readString(file, StandardCharsets.UTF_8), Stored.class);
+                if (stored != null && stored.format == FORMAT && rules.equals(stored.rules) && stored.files != null) {
+                    return new RunCache(file, rules, stored.files);
+                }
+            } catch (IOException | JsonParseException e) {
+                // unusable cache: start over
+            }
+        }
+        return new RunCache(file, rules, Map.of());
+    }
+
+    /** SHA-256 over {@code parts} and the cache format, e.g. the sensitive key rules and the config file text. */
+    public static String fingerprint(String... parts) {
+        MessageDigest sha256 = sha256();
+        sha256.update(Integer.toString(FORMAT).getBytes(StandardCharsets.UTF_8));
+        for (String part : parts) {
+            sha256.update((byte) 0);
+            sha256.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    /** Files answered from the cache so far. */
+    public int hits() {
+        return hits.get();
+    }
+
+    /**
+     * The recorded check outcome for {@code path} if the file is unchanged, with {@code outputLines} unset and
+     * {@code changedCount} zero; {@code null} otherwise.
+     */
+    CloudEncryptCore.Result checked(Path path) throws IOException {
+        Entry entry = current(path);
+        if (entry == null || entry.unencrypted == null) {
+            return null;
+        }
+        hits.incrementAndGet();
+        CloudEncryptCore.Result r = new CloudEncryptCore.Result();
+        r.unencryptedCount = entry.unencrypted;
+        r.affectedKeys = new ArrayList<>(entry.keys);
+        r.binary = entry.binary;
+        return r;
+    }
+
+    /**
+     * An empty result if {@code path} is unchanged since an encrypt run found nothing (left) to encrypt in it;
+     * {@code null} otherwise.
+     */
+    CloudEncryptCore.Result encrypted(Path path) throws IOException {
+        Entry entry = current(path);
+        if (entry == null || !entry.encrypted) {
+            return null;
+        }
+        hits.incrementAndGet();
+        CloudEncryptCore.Result r = new CloudEncryptCore.Result();
+        r.affectedKeys = new ArrayList<>();
+        r.binary = entry.binary;
+        return r;
+    }
+
+    void recordCheck(Path path, CloudEncryptCore.Result r) throws IOException {
+        record(path, r.unencryptedCount, r.affectedKeys, r.binary, false);
+    }
+
+    /** Records that {@code path}, as it is now, holds nothing an encrypt run would change. */
+    void recordEncrypted(Path path, boolean binary) throws IOException {
+        record(path, null, List.of(), binary, true);
+    }
+
+    private void record(Path path, Integer unencrypted, List<String> keys, boolean binary, boolean encrypted)
+            throws IOException {
+        String key = key(path);
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        String hash = hash(path);
+        Entry previous = entries.get(key);
+        Entry entry = new Entry();
+        entry.size = attrs.size();
+        entry.modified = attrs.lastModifiedTime().toMillis();
+        entry.sha256 = hash;
+        entry.recorded = System.currentTimeMillis();
+        entry.binary = binary;
+        entry.unencrypted = unencrypted;
+        entry.keys = keys == null ? List.of() : List.copyOf(keys);
+        entry.encrypted = encrypted;
+        if (previous != null && hash.equals(previous.sha256)) {
+            // the same content: keep what the other mode found out about it
+            if (unencrypted == null) {
+                entry.unencrypted = previous.unencrypted;
+                entry.keys = previous.keys;
+            }
+            entry.encrypted |= previous.encrypted;
+        }
+        entries.put(key, entry);
+        dirty = true;
+    }
+
+    /** The entry for {@code path} if the file still has the recorded content. */
+    private Entry current(Path path) throws IOException {
+        String key = key(path);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        if (attrs.size() != entry.size) {
+            return null;
+        }
+        long modified = attrs.lastModifiedTime().toMillis();
+        if (modified == entry.modified && modified < entry.recorded - RACY_MILLIS) {
+            return entry;
+        }
+        if (!hash(path).equals(entry.sha256)) {
+            return null;
+        }
+        // touched but unchanged: remember the new timestamp so the next run need not hash it again
+        Entry refreshed = entry.copy();
+        refreshed.modified = modified;
+        refreshed.recorded = System.currentTimeMillis();
+        entries.put(key, refreshed);
+        dirty = true;
+        return refreshed;
+    }
+
+    /**
+     * Writes the cache if anything changed, dropping entries for files that no longer exist. The file is replaced
+     * atomically, so a concurrent or interrupted run never sees a partial cache.
+     */
+    public void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        Stored stored = new Stored();
+        stored.format = FORMAT;
+        stored.rules = rules;
+        stored.files = new TreeMap<>();
+        entries.forEach((key, entry) -> {
+            if (Files.exists(Path.of(key))) {
+                stored.files.put(key, entry);
+            }
+        });
+        if (!Files.exists(file)) {
+            Files.createFile(file);
+        }
+        try (AtomicFileReplacer output = new AtomicFileReplacer(file)) {
+            Writer writer = new OutputStreamWriter(output.out(), StandardCharsets.UTF_8);
+            GSON.toJson(stored, writer);
+            writer.flush();
+            output.commit();
+        }
+        dirty = false;
+    }
+
+    private static String key(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+
+    static String hash(Path path) throws IOException {
+        MessageDigest sha256 = sha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(path)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                sha256.update(buffer, 0, n);
+            }
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class Stored {
+        int format;
+        String rules;
+        Map<String, Entry> files = new LinkedHashMap<>();
+    }
+
+    private static final class Entry {
+        long size;
+        long modified;
+        String sha256;
+        long recorded;
+        boolean binary;
+        /** Plaintext keys found by the last check, {@code null} if the content was never checked. */
+        Integer unencrypted;
+        List<String> keys = List.of();
+        /** An encrypt run found nothing to encrypt in this content. */
+        boolean encrypted;
+
+        Entry copy() {
+            Entry copy = new Entry();
+            copy.size = size;
+            copy.modified = modified;
+            copy.sha256 = sha256;
+            copy.recorded = recorded;
+            copy.binary = binary;
+            copy.unencrypted = unencrypted;
+            copy.keys = keys;
+            copy.encrypted = encrypted;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package io.dscope.utils.crypto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Audit engine behind {@code --check}. Files are memory-mapped and scanned as bytes for {@code key=value},
+ * {@code key: value} and {@code - key: value} lines; nothing is decoded except the names of keys that are reported.
+ * Values after a {@code :} that are empty or open a structure ({@code {}, {@code [}, {@code |}, {@code >}) are
+ * ignored, a trailing {@code ,} (JSON members) and surrounding quotes are stripped, and {@code ENC(...)} /
+ * {@code ENC2(...)} values count as encrypted. YAML and JSON files are checked by their processors instead, see
+ * {@link CloudEncryptCore}.
+ *
+ * <p>Files whose first {@value #SNIFF_BYTES} bytes contain a NUL byte are treated as binary and skipped. Files larger
+ * than {@value #CHUNK_BYTES} bytes are mapped in chunks that end on a line boundary. Instances are stateless apart
+ * from the matcher and may scan many files concurrently.</p>
+ */
+final class SecretAuditScanner {
+
+    static final int SNIFF_BYTES = 8192;
+    static final int CHUNK_BYTES = 1 << 30;
+
+    private static final int MAX_KEY_BYTES = 1024;
+
+    private final SensitiveKeyMatcher sensitiveKeys;
+
+    SecretAuditScanner(SensitiveKeyMatcher sensitiveKeys) {
+        this.sensitiveKeys = sensitiveKeys;
+    }
+
+    /** Scans {@code path}; {@link CloudEncryptCore.Result#binary} is set when the file was skipped. */
+    CloudEncryptCore.Result scan(Path path) throws IOException {
+        CloudEncryptCore.Result r = new CloudEncryptCore.Result();
+        r.affectedKeys = new ArrayList<>();
+        byte[] key = new byte[MAX_KEY_BYTES];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(CHUNK_BYTES, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                if (position == 0 && isBinary(buffer, (int) Math.min(SNIFF_BYTES, length))) {
+                    r.binary = true;
+                    return r;
+                }
+                int limit = (int) length;
+                if (position + length < size) {
+                    int lastNewline = lastIndexOf(buffer, limit, (byte) '\n');
+                    if (lastNewline >= 0) limit = lastNewline + 1;
+                }
+                scanLines(buffer, limit, key, r);
+                position += limit;
+            }
+        }
+        return r;
+    }
+
+    /** {@code true} if the first {@value #SNIFF_BYTES} bytes of {@code path} contain a NUL byte. */
+    static boolean looksBinary(Path path) throws IOException {
+        byte[] head = new byte[SNIFF_BYTES];
+        int n;
+        try (InputStream in = Files.newInputStream(path)) {
+            n = in.readNBytes(head, 0, head.length);
+        }
+        for (int i = 0; i < n; i++) {
+            if (head[i] == 0) return true;
+        }
+        return false;
+    }
+
+    private void scanLines(MappedByteBuffer buffer, int limit, byte[] key, CloudEncryptCore.Result r) {
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') lineEnd++;
+            int contentEnd = lineEnd;
+            if (contentEnd > lineStart && buffer.get(contentEnd - 1) == '\r') contentEnd--;
+            scanLine(buffer, lineStart, contentEnd, key, r);
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    private void scanLine(MappedByteBuffer buffer, int start, int end, byte[] key, CloudEncryptCore.Result r) {
+        start = skipBlank(buffer, start, end);
+        if (start == end || buffer.get(start) == '#') {
+            return;
+        }
+        if (buffer.get(start) == '-' && start + 1 < end && isBlank(buffer.get(start + 1))) {
+            start = skipBlank(buffer, start + 1, end);
+        }
+
+        int separator = -1;
+        boolean colon = false;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '=') {
+                separator = i;
+                break;
+            }
+            if (b == ':' && (i + 1 == end || isBlank(buffer.get(i + 1)))) {
+                separator = i;
+                colon = true;
+                break;
+            }
+        }
+        if (separator < 0) {
+            return;
+        }
+
+        int valueStart = skipBlank(buffer, separator + 1, end);
+        int valueEnd = end;
+        while (valueEnd > valueStart && isBlank(buffer.get(valueEnd - 1))) valueEnd--;
+        if (colon && valueEnd > valueStart && buffer.get(valueEnd - 1) == ',') {
+            // JSON member followed by another one
+            valueEnd--;
+            while (valueEnd > valueStart && isBlank(buffer.get(valueEnd - 1))) valueEnd--;
+        }
+        if (colon && (valueStart == valueEnd || isOpener(buffer.get(valueStart)))) {
+            // a mapping, flow collection or block scalar, not a value of its own
+            return;
+        }
+        if (valueEnd - valueStart >= 2 && isQuote(buffer.get(valueStart))
+                && buffer.get(valueEnd - 1) == buffer.get(valueStart)) {
+            valueStart++;
+            valueEnd--;
+        }
+        if (isEncrypted(buffer, valueStart, valueEnd)) {
+            return;
+        }
+
+        int keyStart = start;
+        int keyEnd = separator;
+        while (keyEnd > keyStart && isBlank(buffer.get(keyEnd - 1))) keyEnd--;
+        if (keyEnd - keyStart >= 2 && isQuote(buffer.get(keyStart)) && buffer.get(keyEnd - 1) == buffer.get(keyStart)) {
+            keyStart++;
+            keyEnd--;
+        }
+        int keyLength = Math.min(keyEnd - keyStart, key.length);
+        buffer.get(keyStart, key, 0, keyLength);
+        if (sensitiveKeys.isSensitive(key, 0, keyLength)) {
+            r.unencryptedCount++;
+            r.affectedKeys.add(new String(key, 0, keyLength, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static boolean isOpener(byte b) {
+        return b == '{' || b == '[' || b == '|' || b == '>';
+    }
+
+    private static boolean isEncrypted(MappedByteBuffer buffer, int from, int to) {
+        if (startsWith(buffer, from, to, "ENC(")) return true;
+        return startsWith(buffer, from, to, FileDataKey.VALUE_PREFIX) && buffer.get(to - 1) == ')';
+    }
+
+    private static boolean startsWith(MappedByteBuffer buffer, int from, int to, String prefix) {
+        if (to - from < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buffer.get(from + i) != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isBinary(MappedByteBuffer buffer, int length) {
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(i) == 0) return true;
+        }
+        return false;
+    }
+
+    private static int lastIndexOf(MappedByteBuffer buffer, int limit, byte b) {
+        for (int i = limit - 1; i >= 0; i--) {
+            if (buffer.get(i) == b) return i;
+        }
+        return -1;
+    }
+
+    private static int skipBlank(MappedByteBuffer buffer, int from, int to) {
+        while (from < to && isBlank(buffer.get(from))) from++;
+        return from;
+    }
+
+    private static boolean isBlank(byte b) {
+        return (b & 0xff) <= ' ';
+    }
+
+    private static boolean isQuote(byte b) {
+        return b == '"' || b == '\'';
+    }
+}
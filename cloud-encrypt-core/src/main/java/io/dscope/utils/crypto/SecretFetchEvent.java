@@ -0,0 +1,48 @@
+package io.dscope.utils.crypto;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** JFR event for one secret manager call: fetching, storing or deleting a secret. */
+@Name("io.dscope.SecretFetch")
+@Label("Secret Manager I/O")
+@Category({"DScope", "Cloud Encrypt"})
+@Description("A secret manager get, put or delete")
+@StackTrace(false)
+public final class SecretFetchEvent extends Event {
+
+    @Label("Provider")
+    String provider;
+
+    @Label("Operation")
+    @Description("get, put or delete")
+    String operation;
+
+    @Label("Secret")
+    String secret;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Success")
+    boolean success;
+
+    /** Ends the event and commits it if a recording wants it. */
+    public void finish(String provider, String operation, String secret, long bytes, boolean success) {
+        end();
+        if (shouldCommit()) {
+            this.provider = provider;
+            this.operation = operation;
+            this.secret = secret;
+            this.bytes = bytes;
+            this.success = success;
+            commit();
+        }
+    }
+}
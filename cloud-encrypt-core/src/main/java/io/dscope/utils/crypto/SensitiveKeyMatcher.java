@@ -0,0 +1,358 @@
+package io.dscope.utils.crypto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Decides which property keys hold secrets. Rules, all case-insensitive:
+ * <ul>
+ *     <li>{@code deny} &ndash; keys that are always sensitive (exact match);</li>
+ *     <li>{@code allow} &ndash; keys that are never sensitive (exact match), unless denied;</li>
+ *     <li>{@code keywords} &ndash; the key contains one of them (default {@code password, secret, token, key});</li>
+ *     <li>{@code suffixes} &ndash; the key ends with one of them;</li>
+ *     <li>{@code patterns} &ndash; the whole key matches one of these regular expressions.</li>
+ * </ul>
+ *
+ * <p>Keywords, suffixes and both exact lists are compiled into one Aho-Corasick automaton over ASCII-folded UTF-8
+ * bytes, so a key is classified in a single pass without allocating, whether it is given as a {@link CharSequence}
+ * or as a slice of a raw byte line. The regular expressions are combined into one {@link Pattern} and only evaluated
+ * when the automaton has not already decided; {@code java.util.regex} backtracks, so keep them simple. Instances are
+ * immutable and thread-safe.</p>
+ */
+public final class SensitiveKeyMatcher {
+
+    static final List<String> DEFAULT_KEYWORDS = List.of("password", "secret", "token", "key");
+
+    private static final SensitiveKeyMatcher DEFAULTS = builder().build();
+
+    private static final byte KEYWORD = 1;
+    private static final byte SUFFIX = 2;
+    private static final byte ALLOW = 4;
+    private static final byte DENY = 8;
+
+    /** Transitions, {@code 256} per state, with failure links already folded in. */
+    private final int[] delta;
+    /** Keyword / suffix flags of each state, including those inherited along its failure chain. */
+    private final byte[] reached;
+    /** Exact-list flags of the trie node itself. */
+    private final byte[] exact;
+    private final int[] depth;
+    private final Pattern pattern;
+    private final ThreadLocal<Matcher> charMatcher;
+    private final ThreadLocal<ByteView> byteView;
+    private final String rules;
+
+    private SensitiveKeyMatcher(Builder builder) {
+        Trie trie = new Trie();
+        builder.keywords.forEach(k -> trie.add(k, KEYWORD));
+        builder.suffixes.forEach(k -> trie.add(k, SUFFIX));
+        builder.allow.forEach(k -> trie.add(k, ALLOW));
+        builder.deny.forEach(k -> trie.add(k, DENY));
+        trie.link();
+        this.delta = trie.delta();
+        this.reached = trie.reached();
+        this.exact = trie.exact();
+        this.depth = trie.depth();
+
+        if (builder.patterns.isEmpty()) {
+            this.pattern = null;
+        } else {
+            StringBuilder combined = new StringBuilder();
+            for (String regex : builder.patterns) {
+                if (combined.length() > 0) combined.append('|');
+                combined.append("(?:").append(regex).append(')');
+            }
+            try {
+                this.pattern = Pattern.compile(combined.toString(), Pattern.CASE_INSENSITIVE);
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("Invalid sensitive key pattern: " + e.getMessage(), e);
+            }
+        }
+        this.charMatcher = pattern == null ? null : ThreadLocal.withInitial(() -> pattern.matcher(""));
+        this.byteView = pattern == null ? null : ThreadLocal.withInitial(ByteView::new);
+        this.rules = "keywords=" + builder.keywords + ", suffixes=" + builder.suffixes + ", allow=" + builder.allow
+                + ", deny=" + builder.deny + ", patterns=" + builder.patterns;
+    }
+
+    /** The built-in rule: keys containing {@code password}, {@code secret}, {@code token} or {@code key}. */
+    public static SensitiveKeyMatcher defaults() {
+        return DEFAULTS;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public boolean isSensitive(CharSequence key) {
+        int state = 0;
+        byte seen = 0;
+        int length = 0;
+        for (int i = 0; i < key.length(); i++) {
+            int cp = key.charAt(i);
+            if (Character.isHighSurrogate((char) cp) && i + 1 < key.length()
+                    && Character.isLowSurrogate(key.charAt(i + 1))) {
+                cp = Character.toCodePoint((char) cp, key.charAt(++i));
+            }
+            // feed the code point's UTF-8 bytes so that CharSequence and byte keys follow the same automaton
+            if (cp < 0x80) {
+                state = delta[(state << 8) | fold(cp)];
+                seen |= reached[state];
+                length++;
+            } else if (cp < 0x800) {
+                state = step(state, 0xC0 | (cp >> 6));
+                seen |= reached[state];
+                state = step(state, 0x80 | (cp & 0x3F));
+                seen |= reached[state];
+                length += 2;
+            } else if (cp < 0x10000) {
+                state = step(state, 0xE0 | (cp >> 12));
+                seen |= reached[state];
+                state = step(state, 0x80 | ((cp >> 6) & 0x3F));
+                seen |= reached[state];
+                state = step(state, 0x80 | (cp & 0x3F));
+                seen |= reached[state];
+                length += 3;
+            } else {
+                state = step(state, 0xF0 | (cp >> 18));
+                seen |= reached[state];
+                state = step(state, 0x80 | ((cp >> 12) & 0x3F));
+                seen |= reached[state];
+                state = step(state, 0x80 | ((cp >> 6) & 0x3F));
+                seen |= reached[state];
+                state = step(state, 0x80 | (cp & 0x3F));
+                seen |= reached[state];
+                length += 4;
+            }
+        }
+        Boolean decided = decide(state, seen, length);
+        if (decided != null) return decided;
+        return pattern != null && charMatcher.get().reset(key).matches();
+    }
+
+    /** Classifies the UTF-8 key stored in {@code bytes[from, to)}. */
+    public boolean isSensitive(byte[] bytes, int from, int to) {
+        int state = 0;
+        byte seen = 0;
+        for (int i = from; i < to; i++) {
+            state = delta[(state << 8) | fold(bytes[i] & 0xff)];
+            seen |= reached[state];
+        }
+        Boolean decided = decide(state, seen, to - from);
+        if (decided != null) return decided;
+        if (pattern == null) return false;
+        ByteView view = byteView.get().wrap(bytes, from, to);
+        try {
+            return charMatcher.get().reset(view).matches();
+        } finally {
+            view.wrap(null, 0, 0);
+        }
+    }
+
+    /** The configured rules; equal strings mean equal decisions, which {@link RunCache} relies on. */
+    @Override
+    public String toString() {
+        return rules;
+    }
+
+    private Boolean decide(int state, byte seen, int length) {
+        boolean whole = depth[state] == length;
+        if (whole && (exact[state] & DENY) != 0) return Boolean.TRUE;
+        if (whole && (exact[state] & ALLOW) != 0) return Boolean.FALSE;
+        if ((seen & KEYWORD) != 0 || (reached[state] & SUFFIX) != 0) return Boolean.TRUE;
+        return null;
+    }
+
+    private int step(int state, int b) {
+        return delta[(state << 8) | b];
+    }
+
+    private static int fold(int b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+    }
+
+    public static final class Builder {
+        private List<String> keywords = DEFAULT_KEYWORDS;
+        private final List<String> suffixes = new ArrayList<>();
+        private final List<String> allow = new ArrayList<>();
+        private final List<String> deny = new ArrayList<>();
+        private final List<String> patterns = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /** Replaces the default keywords; an empty collection disables keyword matching. */
+        public Builder keywords(Collection<String> keywords) {
+            this.keywords = clean(keywords);
+            return this;
+        }
+
+        public Builder suffixes(Collection<String> suffixes) {
+            this.suffixes.addAll(clean(suffixes));
+            return this;
+        }
+
+        public Builder allow(Collection<String> keys) {
+            this.allow.addAll(clean(keys));
+            return this;
+        }
+
+        public Builder deny(Collection<String> keys) {
+            this.deny.addAll(clean(keys));
+            return this;
+        }
+
+        public Builder patterns(Collection<String> regexes) {
+            this.patterns.addAll(clean(regexes));
+            return this;
+        }
+
+        public SensitiveKeyMatcher build() {
+            return new SensitiveKeyMatcher(this);
+        }
+
+        private static List<String> clean(Collection<String> values) {
+            List<String> out = new ArrayList<>();
+            for (String value : Objects.requireNonNull(values, "values")) {
+                if (value != null && !value.isBlank()) {
+                    out.add(value.trim());
+                }
+            }
+            return out;
+        }
+    }
+
+    /** Goto trie that {@link #link()} turns into a full transition table. */
+    private static final class Trie {
+        private final List<int[]> next = new ArrayList<>();
+        private final List<Byte> flags = new ArrayList<>();
+        private final List<Integer> depths = new ArrayList<>();
+        private int[] fail;
+        private byte[] reached;
+
+        Trie() {
+            node(0);
+        }
+
+        private int node(int depth) {
+            int[] edges = new int[256];
+            Arrays.fill(edges, -1);
+            next.add(edges);
+            flags.add((byte) 0);
+            depths.add(depth);
+            return next.size() - 1;
+        }
+
+        void add(String word, byte flag) {
+            int state = 0;
+            for (byte raw : word.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8)) {
+                int b = fold(raw & 0xff);
+                int target = next.get(state)[b];
+                if (target < 0) {
+                    target = node(depths.get(state) + 1);
+                    next.get(state)[b] = target;
+                }
+                state = target;
+            }
+            flags.set(state, (byte) (flags.get(state) | flag));
+        }
+
+        void link() {
+            int size = next.size();
+            fail = new int[size];
+            reached = new byte[size];
+            Queue<Integer> queue = new ArrayDeque<>();
+            int[] root = next.get(0);
+            for (int b = 0; b < 256; b++) {
+                if (root[b] < 0) {
+                    root[b] = 0;
+                } else {
+                    fail[root[b]] = 0;
+                    queue.add(root[b]);
+                }
+            }
+            reached[0] = (byte) (flags.get(0) & (KEYWORD | SUFFIX));
+            while (!queue.isEmpty()) {
+                int state = queue.remove();
+                reached[state] = (byte) ((flags.get(state) & (KEYWORD | SUFFIX)) | reached[fail[state]]);
+                int[] edges = next.get(state);
+                for (int b = 0; b < 256; b++) {
+                    int target = edges[b];
+                    if (target < 0) {
+                        edges[b] = next.get(fail[state])[b];
+                    } else {
+                        fail[target] = next.get(fail[state])[b];
+                        queue.add(target);
+                    }
+                }
+            }
+        }
+
+        int[] delta() {
+            int[] table = new int[next.size() * 256];
+            for (int state = 0; state < next.size(); state++) {
+                System.arraycopy(next.get(state), 0, table, state << 8, 256);
+            }
+            return table;
+        }
+
+        byte[] reached() {
+            return reached;
+        }
+
+        byte[] exact() {
+            byte[] exact = new byte[flags.size()];
+            for (int i = 0; i < exact.length; i++) {
+                exact[i] = (byte) (flags.get(i) & (ALLOW | DENY));
+            }
+            return exact;
+        }
+
+        int[] depth() {
+            return depths.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /** Latin-1 view of a byte slice, so the combined pattern can run over raw keys without decoding them. */
+    private static final class ByteView implements CharSequence {
+        private byte[] bytes;
+        private int from;
+        private int to;
+
+        ByteView wrap(byte[] bytes, int from, int to) {
+            this.bytes = bytes;
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return to - from;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[from + index] & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(bytes, from + start, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, from, to - from, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
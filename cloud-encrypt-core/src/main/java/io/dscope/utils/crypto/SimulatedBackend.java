@@ -0,0 +1,177 @@
+package io.dscope.utils.crypto;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency and fault model shared by the {@code sim} providers. Each call waits for a round trip drawn from a
+ * lognormal distribution fitted to {@code latency.p50} / {@code latency.p99} (milliseconds), is rejected with a
+ * throttling error when the account-wide {@code quota} (requests per second) is exhausted, and fails with a transient
+ * 503 with probability {@code errorRate}. Quotas are shared by {@code quotaScope} across all instances in the process,
+ * the way a real KMS account limit is shared by every client, so concurrency, retry and caching behaviour can be
+ * measured without a network.
+ *
+ * <p>Errors are {@link SimulatedServiceException}s that expose {@code getStatusCode()}, so {@link KmsRateGovernor}
+ * classifies and retries them exactly like SDK exceptions.</p>
+ */
+public final class SimulatedBackend {
+
+    private static final double Z_99 = 2.3263478740408408;
+    private static final Map<String, Quota> QUOTAS = new ConcurrentHashMap<>();
+
+    private final double mu;
+    private final double sigma;
+    private final long maxLatencyNanos;
+    private final double errorRate;
+    private final Quota quota;
+    private final Random random;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private SimulatedBackend(double p50Ms, double p99Ms, double maxMs, double errorRate, Quota quota, Random random) {
+        this.mu = p50Ms > 0 ? Math.log(p50Ms) : Double.NEGATIVE_INFINITY;
+        this.sigma = p50Ms > 0 && p99Ms > p50Ms ? (Math.log(p99Ms) - Math.log(p50Ms)) / Z_99 : 0;
+        this.maxLatencyNanos = maxMs > 0 ? (long) (maxMs * 1_000_000) : Long.MAX_VALUE;
+        this.errorRate = errorRate;
+        this.quota = quota;
+        this.random = random;
+    }
+
+    /**
+     * Builds a backend from flattened provider settings. {@code defaultScope} names the shared quota when
+     * {@code quotaScope} is not configured.
+     */
+    public static SimulatedBackend from(Map<String, String> settings, String defaultScope) {
+        Map<String, String> cfg = settings != null ? settings : Map.of();
+        double p50 = parse(cfg, "latency.p50", 0);
+        double p99 = parse(cfg, "latency.p99", p50);
+        if (p50 < 0 || p99 < p50) {
+            throw new IllegalArgumentException("Simulator latency requires 0 <= latency.p50 <= latency.p99");
+        }
+        double errorRate = parse(cfg, "errorRate", 0);
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("Simulator errorRate must be between 0 and 1");
+        }
+        double rate = parse(cfg, "quota", 0);
+        Quota quota = null;
+        if (rate > 0) {
+            String scope = cfg.getOrDefault("quotaScope", defaultScope).trim().toLowerCase(Locale.ROOT);
+            double burst = parse(cfg, "quotaBurst", rate);
+            quota = QUOTAS.compute(scope, (key, existing) ->
+                    existing != null && existing.matches(rate, burst) ? existing : new Quota(rate, burst));
+        }
+        String seed = cfg.get("seed");
+        Random random = seed != null && !seed.isBlank() ? new Random(seed.trim().hashCode()) : new Random();
+        return new SimulatedBackend(p50, p99, parse(cfg, "latency.max", 0), errorRate, quota, random);
+    }
+
+    /**
+     * Simulates one round trip: sleeps for the sampled latency, then throws if the call is throttled or fails.
+     */
+    public void roundTrip(String operation) throws InterruptedException {
+        calls.incrementAndGet();
+        boolean admitted = quota == null || quota.tryAcquire();
+        double failureDraw;
+        long latencyNanos;
+        synchronized (random) {
+            failureDraw = random.nextDouble();
+            latencyNanos = sampleLatencyNanos(random.nextGaussian());
+        }
+        if (latencyNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(latencyNanos);
+        }
+        if (!admitted) {
+            throttled.incrementAndGet();
+            throw new SimulatedServiceException(429, "ThrottlingException: Rate exceeded for " + operation + " (simulated)");
+        }
+        if (failureDraw < errorRate) {
+            failures.incrementAndGet();
+            throw new SimulatedServiceException(503, "ServiceUnavailable: " + operation + " failed (simulated)");
+        }
+    }
+
+    long sampleLatencyNanos(double gaussian) {
+        if (mu == Double.NEGATIVE_INFINITY) {
+            return 0;
+        }
+        double millis = Math.exp(mu + sigma * gaussian);
+        return Math.min(maxLatencyNanos, Math.round(millis * 1_000_000));
+    }
+
+    public long calls() {
+        return calls.get();
+    }
+
+    public long throttled() {
+        return throttled.get();
+    }
+
+    public long failures() {
+        return failures.get();
+    }
+
+    private static double parse(Map<String, String> cfg, String key, double fallback) {
+        String value = cfg.get(key);
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid simulator setting " + key + ": " + value, ex);
+        }
+    }
+
+    /**
+     * Server-side token bucket: unlike {@link KmsRateGovernor} it never waits, it rejects.
+     */
+    private static final class Quota {
+        private final double rate;
+        private final double burst;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        private Quota(double rate, double burst) {
+            this.rate = rate;
+            this.burst = Math.max(1, burst);
+            this.tokens = this.burst;
+        }
+
+        private boolean matches(double otherRate, double otherBurst) {
+            return rate == otherRate && burst == Math.max(1, otherBurst);
+        }
+
+        private synchronized boolean tryAcquire() {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - lastRefill) * rate / 1_000_000_000d);
+            lastRefill = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+
+    /**
+     * Error raised by the simulator. The status code mirrors what the cloud SDKs report (429 for throttling, 503 for
+     * transient service failures).
+     */
+    public static final class SimulatedServiceException extends RuntimeException {
+        private final int statusCode;
+
+        public SimulatedServiceException(int statusCode, String message) {
+            super(message);
+            this.statusCode = statusCode;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package io.dscope.utils.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Decryptor for the {@code sim} provider; the counterpart of {@link SimulatedEncryptor}.
+ */
+public class SimulatedDecryptor implements CloudDecryptor {
+
+    private final SimulatedBackend backend;
+    private final SecretKeySpec key;
+
+    public SimulatedDecryptor(Map<String, String> config) {
+        this(config, SimulatedBackend.from(config, "kms"));
+    }
+
+    SimulatedDecryptor(Map<String, String> config, SimulatedBackend backend) {
+        this.backend = backend;
+        this.key = SimulatedEncryptor.deriveKey(config);
+    }
+
+    @Override
+    public String decrypt(String cipherBase64) throws Exception {
+        backend.roundTrip("Decrypt");
+        byte[] payload = Base64.getDecoder().decode(cipherBase64);
+        if (payload.length <= SimulatedEncryptor.IV_BYTES) {
+            throw new IllegalArgumentException("Ciphertext is too short for the simulator format");
+        }
+        byte[] iv = Arrays.copyOfRange(payload, 0, SimulatedEncryptor.IV_BYTES);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(SimulatedEncryptor.GCM_TAG_BITS, iv));
+        byte[] plain = cipher.doFinal(payload, iv.length, payload.length - iv.length);
+        return new String(plain, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,61 @@
+package io.dscope.utils.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Encryptor for the {@code sim} provider. Values are really encrypted (AES-GCM under a key derived from {@code seed}
+ * and {@code keyId}) so round trips can be verified, but every call first goes through a {@link SimulatedBackend}
+ * round trip with the configured latency, quota and error rate.
+ */
+public class SimulatedEncryptor implements CloudEncryptor {
+
+    static final int GCM_TAG_BITS = 128;
+    static final int IV_BYTES = 12;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final SimulatedBackend backend;
+    private final SecretKeySpec key;
+
+    public SimulatedEncryptor(Map<String, String> config) {
+        this(config, SimulatedBackend.from(config, "kms"));
+    }
+
+    SimulatedEncryptor(Map<String, String> config, SimulatedBackend backend) {
+        this.backend = backend;
+        this.key = deriveKey(config);
+    }
+
+    @Override
+    public String encrypt(String plainText) throws Exception {
+        backend.roundTrip("Encrypt");
+        byte[] iv = new byte[IV_BYTES];
+        RANDOM.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_BITS, iv));
+        byte[] cipherText = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+        byte[] payload = new byte[iv.length + cipherText.length];
+        System.arraycopy(iv, 0, payload, 0, iv.length);
+        System.arraycopy(cipherText, 0, payload, iv.length, cipherText.length);
+        return Base64.getEncoder().encodeToString(payload);
+    }
+
+    static SecretKeySpec deriveKey(Map<String, String> config) {
+        Map<String, String> cfg = config != null ? config : Map.of();
+        String material = "cloud-encrypt-sim|" + cfg.getOrDefault("seed", "") + "|" + cfg.getOrDefault("keyId", "default");
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(material.getBytes(StandardCharsets.UTF_8));
+            return new SecretKeySpec(digest, "AES");
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package io.dscope.utils.crypto;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link KmsProvider} for the latency and fault-injecting {@code sim} provider.
+ */
+public final class SimulatedKmsProvider implements KmsProvider {
+
+    @Override
+    public Set<String> names() {
+        return Set.of("sim", "simulator");
+    }
+
+    @Override
+    public CloudEncryptor createEncryptor(Map<String, String> config) {
+        return new SimulatedEncryptor(config);
+    }
+
+    @Override
+    public CloudDecryptor createDecryptor(Map<String, String> config) {
+        return new SimulatedDecryptor(config);
+    }
+}
@@ -0,0 +1,298 @@
+package io.dscope.utils.crypto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Streams one {@code KEY=value} file through the encrypt / decrypt / check rules of
+ * {@link CloudEncryptCore#processLines(List, boolean, boolean, boolean, Function, Function, int, SensitiveKeyMatcher)}
+ * in bounded memory.
+ *
+ * <p>Lines are read as raw bytes. Blank lines, comments, lines without {@code =} and values that need no KMS call are
+ * copied through byte-for-byte, including their original line terminators; keys are classified on the raw bytes and
+ * only decoded (together with the value) for lines that are reported or change. Lines are buffered in windows of at
+ * most {@value #WINDOW_LINES} lines or {@value #WINDOW_BYTES} bytes, and each window's KMS calls run with up to
+ * {@code concurrency} in flight.</p>
+ *
+ * <p>Nothing is written until the first window that changes something: the output then goes to a temporary file in
+ * the same directory ({@link AtomicFileReplacer}), which starts with the unchanged prefix of the original and is
+ * atomically renamed over it at the end. Files without changes are never rewritten, so their timestamps stay
+ * untouched.</p>
+ */
+final class StreamingLineProcessor extends ConfigFileProcessor {
+
+    static final int WINDOW_LINES = 4096;
+    static final int WINDOW_BYTES = 4 * 1024 * 1024;
+
+    private static final byte[] HEADER = FileDataKey.HEADER_PREFIX.trim().getBytes(StandardCharsets.US_ASCII);
+
+    StreamingLineProcessor(boolean dryRun, boolean decryptMode, boolean checkMode,
+                           BiFunction<String,String,String> encryptFn, BiFunction<String,String,String> decryptFn,
+                           int concurrency, boolean sealedOutput, Supplier<String> insertedHeader,
+                           SensitiveKeyMatcher sensitiveKeys) {
+        super(dryRun, decryptMode, checkMode, encryptFn, decryptFn, concurrency, sealedOutput, insertedHeader,
+                sensitiveKeys);
+    }
+
+    @Override
+    CloudEncryptCore.Result process(Path path) throws IOException {
+        Run run = new Run(path);
+        try (InputStream in = Files.newInputStream(path)) {
+            RawLineReader reader = new RawLineReader(in);
+            byte[] raw;
+            while ((raw = reader.next()) != null) {
+                run.accept(raw);
+            }
+            run.flush();
+            if (run.output != null) {
+                run.output.commit();
+            }
+        } finally {
+            if (run.output != null) {
+                run.output.close();
+            }
+        }
+
+        CloudEncryptCore.Result r = new CloudEncryptCore.Result();
+        r.changedCount = run.changed;
+        r.unencryptedCount = run.unencrypted;
+        r.affectedKeys = run.keys;
+        return r;
+    }
+
+    private final class Run {
+        private final Path path;
+        private final boolean writing = writing();
+        private final List<byte[]> window = new ArrayList<>();
+        private final List<CloudEncryptCore.Pending> pending = new ArrayList<>();
+        private final List<String> keys = new ArrayList<>();
+        private int changed;
+        private int unencrypted;
+        private int windowBytes;
+        private boolean windowModified;
+        private long flushedOffset;
+        private AtomicFileReplacer output;
+        private OutputStream out;
+
+        Run(Path path) {
+            this.path = path;
+        }
+
+        void accept(byte[] raw) throws IOException {
+            int index = window.size();
+            window.add(raw);
+            windowBytes += raw.length;
+            classify(raw, index);
+            if (window.size() >= WINDOW_LINES || windowBytes >= WINDOW_BYTES
+                    || pending.size() >= batchSize()) {
+                flush();
+            }
+        }
+
+        private void classify(byte[] raw, int index) {
+            int end = contentEnd(raw);
+            int start = 0;
+            while (start < end && (raw[start] & 0xff) <= ' ') start++;
+            if (start == end) {
+                return;
+            }
+            if (raw[start] == '#') {
+                if (decryptMode && writing && startsWith(raw, start, end, HEADER)) {
+                    window.set(index, null);
+                    windowModified = true;
+                }
+                return;
+            }
+            int eq = indexOf(raw, (byte) '=', end);
+            if (eq < 0) {
+                return;
+            }
+            int valueStart = eq + 1;
+            int valueEnd = end;
+            while (valueStart < valueEnd && (raw[valueStart] & 0xff) <= ' ') valueStart++;
+            while (valueEnd > valueStart && (raw[valueEnd - 1] & 0xff) <= ' ') valueEnd--;
+            boolean encrypted = isEncrypted(raw, valueStart, valueEnd);
+            if (decryptMode && !checkMode && !encrypted) {
+                return;
+            }
+
+            int keyStart = 0;
+            int keyEnd = eq;
+            while (keyStart < keyEnd && (raw[keyStart] & 0xff) <= ' ') keyStart++;
+            while (keyEnd > keyStart && (raw[keyEnd - 1] & 0xff) <= ' ') keyEnd--;
+            boolean sensitive = !encrypted && sensitiveKeys.isSensitive(raw, keyStart, keyEnd);
+
+            if (checkMode && sensitive) {
+                unencrypted++;
+                keys.add(new String(raw, keyStart, keyEnd - keyStart, StandardCharsets.UTF_8));
+                return;
+            }
+            if ((decryptMode && encrypted) || (!decryptMode && !checkMode && sensitive)) {
+                String key = new String(raw, keyStart, keyEnd - keyStart, StandardCharsets.UTF_8);
+                changed++;
+                keys.add(key);
+                if (writing && transform != null) {
+                    String value = new String(raw, valueStart, valueEnd - valueStart, StandardCharsets.UTF_8);
+                    pending.add(new CloudEncryptCore.Pending(index, key, value));
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            List<String> results = CloudEncryptCore.transformAll(pending, transform, concurrency);
+            if (writing && out == null && (windowModified || !pending.isEmpty())) {
+                open();
+            }
+            if (out != null) {
+                int next = 0;
+                for (int i = 0; i < window.size(); i++) {
+                    byte[] raw = window.get(i);
+                    if (next < pending.size() && pending.get(next).index() == i) {
+                        CloudEncryptCore.Pending p = pending.get(next);
+                        String result = results.get(next++);
+                        out.write((p.key() + "=" + replacement(result)).getBytes(StandardCharsets.UTF_8));
+                        int end = contentEnd(raw);
+                        out.write(raw, end, raw.length - end);
+                    } else if (raw != null) {
+                        out.write(raw);
+                    }
+                }
+            }
+            flushedOffset += windowBytes;
+            window.clear();
+            pending.clear();
+            windowBytes = 0;
+            windowModified = false;
+        }
+
+        private void open() throws IOException {
+            output = new AtomicFileReplacer(path);
+            out = output.out();
+            String header = insertedHeader != null ? insertedHeader.get() : null;
+            if (header != null) {
+                out.write((header + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            }
+            try (InputStream original = Files.newInputStream(path)) {
+                copy(original, out, flushedOffset);
+            }
+        }
+    }
+
+    static boolean isEncrypted(byte[] raw, int from, int to) {
+        if (startsWith(raw, from, to, "ENC(".getBytes(StandardCharsets.US_ASCII))) {
+            return true;
+        }
+        return startsWith(raw, from, to, FileDataKey.VALUE_PREFIX.getBytes(StandardCharsets.US_ASCII))
+                && to > from && raw[to - 1] == ')';
+    }
+
+    /**
+     * The data key header held by the raw line {@code raw}, without indentation or terminator, or {@code null} when
+     * the line is not one. Works on bytes, so files that are not valid UTF-8 elsewhere can still be searched.
+     */
+    static String header(byte[] raw) {
+        int end = contentEnd(raw);
+        int start = 0;
+        while (start < end && (raw[start] & 0xff) <= ' ') start++;
+        return startsWith(raw, start, end, HEADER) ? new String(raw, start, end - start, StandardCharsets.UTF_8) : null;
+    }
+
+    private static boolean startsWith(byte[] raw, int from, int to, byte[] prefix) {
+        if (to - from < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (raw[from + i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] raw, byte b, int end) {
+        for (int i = 0; i < end; i++) {
+            if (raw[i] == b) return i;
+        }
+        return -1;
+    }
+
+    /** Length of {@code raw} without its trailing {@code \n}, {@code \r\n} or {@code \r}. */
+    static int contentEnd(byte[] raw) {
+        int end = raw.length;
+        if (end > 0 && raw[end - 1] == '\n') end--;
+        if (end > 0 && raw[end - 1] == '\r') end--;
+        return end;
+    }
+
+    private static void copy(InputStream in, OutputStream out, long count) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long remaining = count;
+        while (remaining > 0) {
+            int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (n < 0) {
+                throw new IOException("File changed while it was being processed");
+            }
+            out.write(buffer, 0, n);
+            remaining -= n;
+        }
+    }
+
+    /** Splits a byte stream into lines that keep their terminators. */
+    static final class RawLineReader {
+        private final InputStream in;
+        private final byte[] buffer = new byte[64 * 1024];
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        private int pos;
+        private int limit;
+
+        RawLineReader(InputStream in) {
+            this.in = in;
+        }
+
+        /** Next line including its terminator, or {@code null} at end of input. */
+        byte[] next() throws IOException {
+            line.reset();
+            while (true) {
+                if (pos == limit && !fill()) {
+                    return line.size() == 0 ? null : line.toByteArray();
+                }
+                int start = pos;
+                while (pos < limit) {
+                    byte b = buffer[pos++];
+                    if (b == '\n') {
+                        line.write(buffer, start, pos - start);
+                        return line.toByteArray();
+                    }
+                    if (b == '\r') {
+                        line.write(buffer, start, pos - start);
+                        if ((pos < limit || fill()) && buffer[pos] == '\n') {
+                            line.write('\n');
+                            pos++;
+                        }
+                        return line.toByteArray();
+                    }
+                }
+                line.write(buffer, start, pos - start);
+            }
+        }
+
+        private boolean fill() throws IOException {
+            int n = in.read(buffer);
+            if (n <= 0) {
+                pos = limit = 0;
+                return false;
+            }
+            pos = 0;
+            limit = n;
+            return true;
+        }
+    }
+}
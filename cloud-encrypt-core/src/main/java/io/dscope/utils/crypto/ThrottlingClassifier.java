@@ -0,0 +1,149 @@
+package io.dscope.utils.crypto;
+
+import java.io.CharConversionException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.UnknownHostException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.file.FileSystemException;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Classifies provider exceptions into throttling and retryable failures without linking against any cloud SDK.
+ * AWS, Azure, GCP and OCI all surface HTTP/gRPC status information either through a {@code getStatusCode()}
+ * accessor, an error code field, or well-known exception names and messages, which is what this class inspects.
+ * Throttling and transient failures are told apart because only throttling should shrink the governor's concurrency
+ * limit; both are retried.
+ */
+final class ThrottlingClassifier {
+
+    private static final int MAX_CAUSE_DEPTH = 10;
+    /** A 429 in a message only counts as a status code, never as part of a key id, ARN or request id. */
+    private static final Pattern STATUS_429 = Pattern.compile(
+            "(?i)(?:status(?:\\s*code)?|http(?:/[\\d.]+)?|error(?:\\s*code)?)\\s*[:=]?\\s*429(?!\\d)");
+    private static final String[] THROTTLING_CODES = {"Throttling", "ThrottlingException", "TooManyRequests",
+            "TooManyRequestsException", "RequestLimitExceeded", "LimitExceededException", "RESOURCE_EXHAUSTED"};
+
+    private ThrottlingClassifier() {
+    }
+
+    /**
+     * Returns {@code true} when the failure indicates the provider rejected the call because of quota or rate limits.
+     */
+    static boolean isThrottling(Throwable error) {
+        Throwable current = error;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            if (statusOf(current) == 429) {
+                return true;
+            }
+            String name = current.getClass().getSimpleName();
+            if (containsAny(name, "Throttl", "TooManyRequests", "ResourceExhausted", "LimitExceeded")) {
+                return true;
+            }
+            String code = errorCode(current);
+            if (code != null && containsAny(code, THROTTLING_CODES)) {
+                return true;
+            }
+            String message = current.getMessage();
+            if (message != null && (containsAny(message, "Throttl", "Rate exceeded", "Too Many Requests",
+                    "TooManyRequests", "RESOURCE_EXHAUSTED") || STATUS_429.matcher(message).find())) {
+                return true;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} when the call can safely be repeated: throttling, or a {@linkplain #isTransient transient}
+     * failure.
+     */
+    static boolean isRetryable(Throwable error) {
+        return isThrottling(error) || isTransient(error);
+    }
+
+    /**
+     * Returns {@code true} for failures that say nothing about the provider's rate limits but may succeed on a second
+     * attempt: 5xx responses, timeouts, refused or reset connections. Other I/O errors, such as a missing file or an
+     * unknown host, are permanent.
+     */
+    static boolean isTransient(Throwable error) {
+        Throwable current = error;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            if (statusOf(current) >= 500) {
+                return true;
+            }
+            if (current instanceof IOException io) {
+                return !isPermanent(io);
+            }
+            String name = current.getClass().getSimpleName();
+            if (containsAny(name, "Unavailable", "Timeout", "InternalServerError", "KMSInternal")) {
+                return true;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * Extracts an HTTP-style status code from SDK exceptions via reflection, returning {@code -1} when none is exposed.
+     */
+    static int statusOf(Throwable error) {
+        Object status = invoke(error, "getStatusCode");
+        if (status == null) {
+            Object response = invoke(error, "getResponse");
+            status = response != null ? invoke(response, "getStatusCode") : null;
+        }
+        if (status instanceof Number number) {
+            return number.intValue();
+        }
+        if (status != null) {
+            Object code = invoke(status, "getCode");
+            String value = String.valueOf(code != null ? code : status).toUpperCase(Locale.ROOT);
+            return switch (value) {
+                case "RESOURCE_EXHAUSTED" -> 429;
+                case "UNAVAILABLE" -> 503;
+                case "DEADLINE_EXCEEDED" -> 504;
+                case "INTERNAL" -> 500;
+                default -> -1;
+            };
+        }
+        return -1;
+    }
+
+    private static boolean isPermanent(IOException error) {
+        return error instanceof FileSystemException || error instanceof FileNotFoundException
+                || error instanceof UnknownHostException || error instanceof CharacterCodingException
+                || error instanceof CharConversionException;
+    }
+
+    /** The provider's error code, e.g. AWS {@code awsErrorDetails().errorCode()} or Azure {@code getErrorCode()}. */
+    private static String errorCode(Throwable error) {
+        Object code = invoke(error, "getErrorCode");
+        if (code == null) {
+            Object details = invoke(error, "awsErrorDetails");
+            code = details != null ? invoke(details, "errorCode") : null;
+        }
+        return code != null ? code.toString() : null;
+    }
+
+    private static Object invoke(Object target, String methodName) {
+        try {
+            Method method = target.getClass().getMethod(methodName);
+            return method.invoke(target);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return null;
+        }
+    }
+
+    private static boolean containsAny(String value, String... needles) {
+        for (String needle : needles) {
+            if (value.contains(needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,202 @@
+package io.dscope.utils.crypto;
+
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.parser.Parser;
+import org.yaml.snakeyaml.parser.ParserImpl;
+import org.yaml.snakeyaml.reader.StreamReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Processes {@code .yml} / {@code .yaml} files with SnakeYAML's event parser, so nested mappings, sequences, flow
+ * collections, quoted and block scalars and multi-document files are all understood without building the document
+ * tree. A scalar is sensitive when the mapping key it belongs to is; items of a sequence belong to the key that holds
+ * the sequence. Plain {@code null} / empty values are left alone.
+ *
+ * <p>New values are spliced into a copy of the original text, keeping comments, indentation and the quoting style of
+ * quoted scalars. Plain scalars stay plain where that is safe; everything else, block scalars included, is written
+ * double-quoted. Anchors are kept; explicit tags are dropped because the new value is always a string.</p>
+ */
+final class YamlConfigProcessor extends ConfigFileProcessor {
+
+    YamlConfigProcessor(boolean dryRun, boolean decryptMode, boolean checkMode,
+                        BiFunction<String,String,String> encryptFn, BiFunction<String,String,String> decryptFn,
+                        int concurrency, boolean sealedOutput, Supplier<String> insertedHeader,
+                        SensitiveKeyMatcher sensitiveKeys) {
+        super(dryRun, decryptMode, checkMode, encryptFn, decryptFn, concurrency, sealedOutput, insertedHeader,
+                sensitiveKeys);
+    }
+
+    @Override
+    CloudEncryptCore.Result process(Path path) throws IOException {
+        LoaderOptions options = new LoaderOptions();
+        options.setCodePointLimit(Integer.MAX_VALUE);
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+             ValueSplicer splicer = new ValueSplicer(path)) {
+            Parser parser = new ParserImpl(new StreamReader(reader), options);
+            Deque<Frame> frames = new ArrayDeque<>();
+            Event event;
+            while ((event = parser.getEvent()) != null && !event.is(Event.ID.StreamEnd)) {
+                switch (event.getEventId()) {
+                    case MappingStart, SequenceStart -> {
+                        Frame parent = frames.peek();
+                        if (parent != null && parent.mapping && parent.expectKey) {
+                            parent.key = null; // complex key
+                        }
+                        String owner = parent == null ? null : parent.owner();
+                        frames.push(new Frame(event.is(Event.ID.MappingStart), owner));
+                    }
+                    case MappingEnd, SequenceEnd -> {
+                        frames.pop();
+                        completed(frames.peek());
+                    }
+                    case Alias -> {
+                        Frame parent = frames.peek();
+                        if (parent != null && parent.mapping && parent.expectKey) {
+                            parent.key = null;
+                        }
+                        completed(parent);
+                    }
+                    case Scalar -> scalar((ScalarEvent) event, frames.peek(), splicer);
+                    default -> { }
+                }
+            }
+            return splicer.finish();
+        } catch (YAMLException e) {
+            throw new IllegalArgumentException(path + ": invalid YAML: " + e.getMessage(), e);
+        }
+    }
+
+    private static void scalar(ScalarEvent event, Frame parent, ValueSplicer splicer) throws IOException {
+        if (parent == null) {
+            return;
+        }
+        if (parent.mapping && parent.expectKey) {
+            parent.key = event.getValue();
+            completed(parent);
+            return;
+        }
+        String key = parent.mapping ? parent.key : parent.owner;
+        completed(parent);
+        String value = event.getValue();
+        if (event.isPlain() && (value.isEmpty() || value.equals("~") || value.equalsIgnoreCase("null"))) {
+            return;
+        }
+        DumperOptions.ScalarStyle style = event.getScalarStyle();
+        splicer.value(key, value, event.getStartMark().getIndex(), event.getEndMark().getIndex(),
+                (replacement, original) -> render(style, replacement, original));
+    }
+
+    /** A key or value of {@code parent} is done: a mapping now expects its next key, or its value. */
+    private static void completed(Frame parent) {
+        if (parent != null && parent.mapping) {
+            parent.expectKey = !parent.expectKey;
+        }
+    }
+
+    static String render(DumperOptions.ScalarStyle style, String value, String original) {
+        StringBuilder out = new StringBuilder();
+        // anchors (&name) are kept, tags (!!str, !custom) dropped
+        int i = 0;
+        while (i < original.length() && (original.charAt(i) == '&' || original.charAt(i) == '!')) {
+            int end = i;
+            while (end < original.length() && !Character.isWhitespace(original.charAt(end))) end++;
+            if (original.charAt(i) == '&') {
+                out.append(original, i, end).append(' ');
+            }
+            i = end;
+            while (i < original.length() && Character.isWhitespace(original.charAt(i))) i++;
+        }
+
+        if (style == DumperOptions.ScalarStyle.SINGLE_QUOTED && value.indexOf('\n') < 0) {
+            out.append('\'').append(value.replace("'", "''")).append('\'');
+        } else if (style == DumperOptions.ScalarStyle.PLAIN && isPlainSafe(value)) {
+            out.append(value);
+        } else {
+            doubleQuoted(value, out);
+        }
+
+        if (style == DumperOptions.ScalarStyle.LITERAL || style == DumperOptions.ScalarStyle.FOLDED) {
+            // a block scalar's span runs past its last line break (and the next line's indentation): keep those
+            int tail = original.length();
+            while (tail > 0 && Character.isWhitespace(original.charAt(tail - 1))) tail--;
+            int lineBreak = original.indexOf('\n', tail);
+            if (lineBreak >= 0) {
+                int from = lineBreak > 0 && original.charAt(lineBreak - 1) == '\r' ? lineBreak - 1 : lineBreak;
+                out.append(original, from, original.length());
+            }
+        }
+        return out.toString();
+    }
+
+    /** {@code true} if {@code value} reads back as the same string when written as a plain scalar. */
+    static boolean isPlainSafe(String value) {
+        if (value.isEmpty() || Character.isWhitespace(value.charAt(0))
+                || Character.isWhitespace(value.charAt(value.length() - 1))
+                || "-?:,[]{}#&*!|>'\"%@`".indexOf(value.charAt(0)) >= 0
+                || value.contains(": ") || value.contains(" #") || value.endsWith(":")) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < ' ' || c == 0x7f || ",[]{}".indexOf(c) >= 0) return false;
+        }
+        // anything that would resolve to a non-string (numbers, booleans, null, dates, ...) needs quotes
+        String lower = value.toLowerCase(Locale.ROOT);
+        return !lower.matches("[-+.0-9][-+._0-9a-fox:e]*")
+                && !lower.matches("y|n|yes|no|true|false|on|off|null|~|[-+]?\\.(inf|nan)");
+    }
+
+    private static void doubleQuoted(String value, StringBuilder out) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < ' ' || c == 0x7f) {
+                        out.append(String.format("\\x%02x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    private static final class Frame {
+        final boolean mapping;
+        /** Key holding this collection, for the items of a sequence. */
+        final String owner;
+        boolean expectKey = true;
+        String key;
+
+        Frame(boolean mapping, String owner) {
+            this.mapping = mapping;
+            this.owner = owner;
+        }
+
+        /** The key that a collection nested at the current position belongs to. */
+        String owner() {
+            return mapping ? key : owner;
+        }
+    }
+}
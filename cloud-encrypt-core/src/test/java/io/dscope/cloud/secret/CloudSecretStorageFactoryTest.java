@@ -0,0 +1,65 @@
+package io.dscope.cloud.secret;
+
+import io.dscope.utils.crypto.OperationMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CloudSecretStorageFactoryTest {
+
+    @Test
+    void memoryProviderStoresSecrets() throws Exception {
+        CloudSecretConfig config = CloudSecretConfig.builder("memory").build();
+        try (CloudSecretStorageService service = CloudSecretStorageFactory.create(config)) {
+            service.putSecret("sample", "hello".getBytes(StandardCharsets.UTF_8), Map.of("env", "dev"));
+
+            CloudSecretStorageService.SecretRecord record = service.getSecret("sample");
+            assertEquals("hello", new String(record.data(), StandardCharsets.UTF_8));
+            assertEquals("dev", record.metadata().get("env"));
+
+        service.deleteSecret("sample");
+        assertEquals("Secret not found: sample",
+            assertThrows(IllegalArgumentException.class, () -> service.getSecret("sample")).getMessage());
+        }
+    }
+
+    @Test
+    void simulatorProviderStoresSecrets() throws Exception {
+        CloudSecretConfig config = CloudSecretConfig.builder("sim")
+                .with("latency.p50", "1")
+                .with("latency.p99", "3")
+                .build();
+        try (CloudSecretStorageService service = CloudSecretStorageFactory.create(config)) {
+            assertInstanceOf(InstrumentedSecretStorageService.class, service);
+            service.putSecret("sample", "hello".getBytes(StandardCharsets.UTF_8), Map.of());
+            assertEquals("hello", new String(service.getSecretBytes("sample"), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void servicesCreatedBeforeMetricsAreEnabledAreMeasuredOnceTheyAre() throws Exception {
+        try (CloudSecretStorageService service = CloudSecretStorageFactory.create(CloudSecretConfig.builder("memory")
+                .build())) {
+            service.putSecret("early", "hello".getBytes(StandardCharsets.UTF_8), Map.of());
+
+            OperationMetrics.enable(true);
+            List<OperationMetrics.Stat> stats;
+            try {
+                service.getSecretBytes("early");
+            } finally {
+                OperationMetrics.enable(false);
+                stats = OperationMetrics.snapshot();
+                OperationMetrics.reset();
+            }
+            assertEquals(1, stats.size());
+            assertEquals("secret.get", stats.get(0).operation());
+            assertEquals("memory", stats.get(0).provider());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingDecryptorTest {
+
+    @Test
+    void repeatedCiphertextIsDecryptedOnce() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CachingDecryptor decryptor = new CachingDecryptor(c -> "plain-" + c + "-" + calls.incrementAndGet(), 16);
+
+        assertEquals("plain-a-1", decryptor.decrypt("a"));
+        assertEquals("plain-a-1", decryptor.decrypt("a"));
+        assertEquals("plain-b-2", decryptor.decrypt("b"));
+
+        assertEquals(2, calls.get());
+        assertEquals(1, decryptor.hits());
+        assertEquals(2, decryptor.misses());
+    }
+
+    @Test
+    void concurrentRequestsShareOneInFlightCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CachingDecryptor decryptor = new CachingDecryptor(c -> {
+            calls.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return "secret";
+        }, 16);
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(executor.submit(() -> decryptor.decrypt("same")));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> future : futures) {
+                assertEquals("secret", future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CachingDecryptor decryptor = new CachingDecryptor(c -> {
+            calls.incrementAndGet();
+            return c.toUpperCase();
+        }, 2);
+
+        decryptor.decrypt("a");
+        decryptor.decrypt("b");
+        decryptor.decrypt("a");
+        decryptor.decrypt("c");
+        assertEquals(2, decryptor.size());
+
+        decryptor.decrypt("a");
+        assertEquals(3, calls.get());
+        decryptor.decrypt("b");
+        assertEquals(4, calls.get());
+
+        decryptor.close();
+        assertEquals(0, decryptor.size());
+    }
+
+    @Test
+    void failuresAreNotCached() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CachingDecryptor decryptor = new CachingDecryptor(c -> {
+            if (calls.incrementAndGet() == 1) throw new IllegalStateException("throttled");
+            return "ok";
+        }, 4);
+
+        assertThrows(IllegalStateException.class, () -> decryptor.decrypt("x"));
+        assertEquals("ok", decryptor.decrypt("x"));
+        assertEquals(2, calls.get());
+    }
+}
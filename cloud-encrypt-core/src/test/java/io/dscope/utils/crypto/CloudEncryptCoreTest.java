@@ -0,0 +1,306 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CloudEncryptCoreTest {
+
+    @Test
+    void encrypt_sensitive_keys_in_lines() {
+        List<String> lines = Arrays.asList(
+                "DB_USER=myuser",
+                "DB_PASSWORD=myPass",
+                "# comment",
+                "API_TOKEN=abcd"
+        );
+
+        Function<String,String> enc = s -> "ENCODED(" + s + ")";
+        CloudEncryptCore.Result r = CloudEncryptCore.processLines(lines, false, false, false, enc, null);
+
+        assertEquals(2, r.changedCount);
+        assertTrue(r.outputLines.get(1).contains("ENC("));
+        assertTrue(r.outputLines.get(3).contains("ENC("));
+    }
+
+    @Test
+    void decrypt_when_value_wrapped_in_ENC() {
+        List<String> lines = Arrays.asList(
+                "DB_PASSWORD=ENC(ciph)",
+                "API_TOKEN=ENC(t1)"
+        );
+        Function<String,String> dec = s -> "plain";
+        CloudEncryptCore.Result r = CloudEncryptCore.processLines(lines, false, true, false, null, dec);
+        assertEquals(2, r.changedCount);
+        assertEquals("DB_PASSWORD=plain", r.outputLines.get(0));
+        assertEquals("API_TOKEN=plain", r.outputLines.get(1));
+    }
+
+    @Test
+    void check_mode_detects_unencrypted() {
+        List<String> lines = Arrays.asList(
+                "DB_PASSWORD=myPass",
+                "USER=admin",
+                "API_TOKEN=abcd"
+        );
+        CloudEncryptCore.Result r = CloudEncryptCore.processLines(lines, false, false, true, null, null);
+        assertEquals(2, r.unencryptedCount);
+        assertTrue(r.affectedKeys.contains("DB_PASSWORD"));
+        assertTrue(r.affectedKeys.contains("API_TOKEN"));
+        // lines unchanged
+        assertEquals("DB_PASSWORD=myPass", r.outputLines.get(0));
+    }
+
+    @Test
+    void parallel_pass_matches_serial_output_and_order() {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            lines.add("SECRET_" + i + "=value" + i);
+            lines.add("PLAIN_" + i + "=x");
+        }
+        Function<String,String> enc = s -> "c-" + s;
+
+        CloudEncryptCore.Result serial = CloudEncryptCore.processLines(lines, false, false, false, enc, null, 1);
+        CloudEncryptCore.Result parallel = CloudEncryptCore.processLines(lines, false, false, false, enc, null, 8);
+
+        assertEquals(serial.outputLines, parallel.outputLines);
+        assertEquals(serial.affectedKeys, parallel.affectedKeys);
+        assertEquals(40, parallel.changedCount);
+        assertEquals("SECRET_39=ENC(c-value39)", parallel.outputLines.get(78));
+    }
+
+    @Test
+    void parallel_pass_overlaps_kms_calls_up_to_the_limit() {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            lines.add("TOKEN_" + i + "=t" + i);
+        }
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Function<String,String> enc = s -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return s;
+        };
+
+        long start = System.nanoTime();
+        CloudEncryptCore.Result r = CloudEncryptCore.processLines(lines, false, false, false, enc, null, 5);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(20, r.changedCount);
+        assertTrue(maxInFlight.get() <= 5);
+        assertTrue(maxInFlight.get() > 1);
+        assertTrue(elapsedMs < 20 * 50, "calls should overlap");
+    }
+
+    @Test
+    void dry_run_skips_kms_calls_in_parallel_mode() {
+        List<String> lines = Arrays.asList("DB_PASSWORD=a", "API_TOKEN=b");
+        Function<String,String> enc = s -> { throw new AssertionError("no KMS call expected"); };
+
+        CloudEncryptCore.Result r = CloudEncryptCore.processLines(lines, true, false, false, enc, null, 4);
+
+        assertEquals(2, r.changedCount);
+        assertEquals(lines, r.outputLines);
+    }
+
+    @Test
+    void parallel_pass_propagates_kms_failure() {
+        List<String> lines = Arrays.asList("DB_PASSWORD=a", "API_TOKEN=b", "OTHER_SECRET=c");
+        Function<String,String> enc = s -> {
+            if (s.equals("b")) throw new IllegalStateException("kms down");
+            return s;
+        };
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> CloudEncryptCore.processLines(lines, false, false, false, enc, null, 4));
+        assertEquals("kms down", ex.getMessage());
+    }
+
+    @Test
+    void process_files_concurrently_keeps_input_order() throws Exception {
+        Path dir = Files.createTempDirectory("core-files");
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            files.add(Files.write(dir.resolve("app" + i + ".env"), List.of("DB_PASSWORD=p" + i, "PORT=80" + i)));
+        }
+        Map<String, String> kms = Map.of("keyId", "files", "latency.p50", "2", "latency.p99", "10");
+
+        CloudEncryptCore.Options encrypt = CloudEncryptCore.Options.builder("sim").kmsConfig(kms).threads(6).build();
+        List<Map<String, Object>> results = CloudEncryptCore.processFiles(files, encrypt);
+
+        for (int i = 0; i < files.size(); i++) {
+            assertEquals(files.get(i).toString(), results.get(i).get("file"));
+            assertEquals(1, results.get(i).get("changed"));
+            assertTrue(Files.readAllLines(files.get(i)).get(0).startsWith("DB_PASSWORD=ENC("));
+        }
+
+        CloudEncryptCore.Options decrypt = CloudEncryptCore.Options.builder("sim").kmsConfig(kms)
+                .decryptMode(true).threads(6).maxInFlight(3).build();
+        CloudEncryptCore.processFiles(files, decrypt);
+
+        assertEquals(List.of("DB_PASSWORD=p7", "PORT=807"), Files.readAllLines(files.get(7)));
+    }
+
+    @Test
+    void results_can_stream_to_on_result_without_being_retained() throws Exception {
+        Path dir = Files.createTempDirectory("core-stream");
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            files.add(Files.write(dir.resolve("app" + i + ".env"), List.of("API_TOKEN=t" + i)));
+        }
+        List<Object> streamed = new ArrayList<>();
+        CloudEncryptCore.Options options = CloudEncryptCore.Options.builder("sim")
+                .kmsConfig(Map.of("keyId", "stream", "latency.p50", "1", "latency.p99", "8"))
+                .threads(4)
+                .onResult(res -> streamed.add(res.get("file")))
+                .retainResults(false)
+                .build();
+
+        assertTrue(CloudEncryptCore.processFiles(files, options).isEmpty());
+        assertEquals(files.stream().map(Path::toString).toList(), streamed);
+        assertTrue(Files.readAllLines(files.get(39)).get(0).startsWith("API_TOKEN=ENC("));
+    }
+
+    @Test
+    void envelope_mode_seals_values_under_one_file_data_key() throws Exception {
+        Path file = Files.createTempFile("envelope", ".env");
+        Map<String, String> kms = Map.of("keyId", "envelope", "latency.p50", "1", "latency.p99", "2");
+        Files.write(file, List.of("DB_PASSWORD=legacy", "PORT=8080"));
+        CloudEncryptCore.processFiles(List.of(file), CloudEncryptCore.Options.builder("sim").kmsConfig(kms).build());
+
+        Files.write(file, List.of("API_TOKEN=t1", "SECRET_KEY=s1"), StandardOpenOption.APPEND);
+        CloudEncryptCore.Options envelope = CloudEncryptCore.Options.builder("sim").kmsConfig(kms).envelope(true).build();
+        Map<String, Object> res = CloudEncryptCore.processFiles(List.of(file), envelope).get(0);
+
+        List<String> sealed = Files.readAllLines(file);
+        assertEquals(2, res.get("changed"));
+        assertTrue(sealed.get(0).startsWith("# cloud-encrypt-dek: "));
+        assertTrue(sealed.get(1).startsWith("DB_PASSWORD=ENC("));
+        assertTrue(sealed.get(3).startsWith("API_TOKEN=ENC2("));
+        assertTrue(sealed.get(4).startsWith("SECRET_KEY=ENC2("));
+
+        Files.write(file, List.of("OTHER_SECRET=o1"), StandardOpenOption.APPEND);
+        CloudEncryptCore.processFiles(List.of(file), envelope);
+        List<String> reused = Files.readAllLines(file);
+        assertEquals(sealed.get(0), reused.get(0));
+        assertEquals(1, reused.stream().filter(l -> l.startsWith("# cloud-encrypt-dek: ")).count());
+
+        CloudEncryptCore.Result check = CloudEncryptCore.processLines(reused, false, false, true, null, null);
+        assertEquals(0, check.unencryptedCount);
+
+        CloudEncryptCore.processFiles(List.of(file),
+                CloudEncryptCore.Options.builder("sim").kmsConfig(kms).decryptMode(true).build());
+        assertEquals(List.of("DB_PASSWORD=legacy", "PORT=8080", "API_TOKEN=t1", "SECRET_KEY=s1", "OTHER_SECRET=o1"),
+                Files.readAllLines(file));
+    }
+
+    @Test
+    void envelope_values_swapped_between_keys_fail_to_decrypt() throws Exception {
+        Path file = Files.createTempFile("envelope", ".env");
+        Map<String, String> kms = Map.of("keyId", "envelope", "latency.p50", "1", "latency.p99", "2");
+        Files.write(file, List.of("API_TOKEN=t1", "SECRET_KEY=s1"));
+        CloudEncryptCore.processFiles(List.of(file),
+                CloudEncryptCore.Options.builder("sim").kmsConfig(kms).envelope(true).build());
+
+        List<String> sealed = Files.readAllLines(file);
+        String token = sealed.get(1).substring("API_TOKEN=".length());
+        String secret = sealed.get(2).substring("SECRET_KEY=".length());
+        List<String> swapped = List.of(sealed.get(0), "API_TOKEN=" + secret, "SECRET_KEY=" + token);
+        Files.write(file, swapped);
+
+        CloudEncryptCore.Options decrypt = CloudEncryptCore.Options.builder("sim").kmsConfig(kms).decryptMode(true).build();
+        assertThrows(IllegalStateException.class, () -> CloudEncryptCore.processFiles(List.of(file), decrypt));
+        assertEquals(swapped, Files.readAllLines(file));
+    }
+
+    @Test
+    void envelope_header_is_found_in_files_that_are_not_utf8() throws Exception {
+        Path file = Files.createTempFile("envelope", ".env");
+        Map<String, String> kms = Map.of("keyId", "envelope", "latency.p50", "1", "latency.p99", "2");
+        Files.write(file, List.of("API_TOKEN=t1"));
+        CloudEncryptCore.processFiles(List.of(file),
+                CloudEncryptCore.Options.builder("sim").kmsConfig(kms).envelope(true).build());
+        byte[] latin1 = "# caf\u00e9\n".getBytes(StandardCharsets.ISO_8859_1);
+        byte[] sealed = Files.readAllBytes(file);
+        Files.write(file, latin1);
+        Files.write(file, sealed, StandardOpenOption.APPEND);
+
+        CloudEncryptCore.processFiles(List.of(file),
+                CloudEncryptCore.Options.builder("sim").kmsConfig(kms).decryptMode(true).build());
+        byte[] expected = "# caf\u00e9\nAPI_TOKEN=t1\n".getBytes(StandardCharsets.ISO_8859_1);
+        assertArrayEquals(expected, Files.readAllBytes(file));
+    }
+
+    @Test
+    void yaml_files_round_trip_through_envelope_mode_with_comments_intact() throws Exception {
+        Path file = Files.createTempFile("envelope", ".yml");
+        Map<String, String> kms = Map.of("keyId", "envelope", "latency.p50", "1", "latency.p99", "2");
+        List<String> original = List.of("# service", "db:", "  password: hunter2  # rotate yearly", "  port: 5432");
+        Files.write(file, original);
+
+        CloudEncryptCore.Options envelope = CloudEncryptCore.Options.builder("sim").kmsConfig(kms).envelope(true).build();
+        Map<String, Object> res = CloudEncryptCore.processFiles(List.of(file), envelope).get(0);
+
+        List<String> sealed = Files.readAllLines(file);
+        assertEquals(1, res.get("changed"));
+        assertTrue(sealed.get(0).startsWith("# cloud-encrypt-dek: "));
+        assertTrue(sealed.get(3).startsWith("  password: ENC2("));
+        assertTrue(sealed.get(3).endsWith(")  # rotate yearly"));
+
+        CloudEncryptCore.processFiles(List.of(file),
+                CloudEncryptCore.Options.builder("sim").kmsConfig(kms).decryptMode(true).build());
+        assertEquals(original, Files.readAllLines(file));
+    }
+
+    @Test
+    void yaml_header_below_leading_comments_is_dropped_when_decrypting() throws Exception {
+        Path file = Files.createTempFile("envelope", ".yml");
+        Map<String, String> kms = Map.of("keyId", "envelope", "latency.p50", "1", "latency.p99", "2");
+        Files.write(file, List.of("db:", "  password: hunter2"));
+        CloudEncryptCore.processFiles(List.of(file),
+                CloudEncryptCore.Options.builder("sim").kmsConfig(kms).envelope(true).build());
+        List<String> sealed = new ArrayList<>(Files.readAllLines(file));
+        sealed.add(0, "# Copyright ACME");
+        sealed.add(1, "");
+        Files.write(file, sealed);
+
+        CloudEncryptCore.processFiles(List.of(file),
+                CloudEncryptCore.Options.builder("sim").kmsConfig(kms).decryptMode(true).build());
+        assertEquals(List.of("# Copyright ACME", "", "db:", "  password: hunter2"), Files.readAllLines(file));
+    }
+
+    @Test
+    void encrypting_through_a_symlink_rewrites_the_file_it_points_to() throws Exception {
+        Path dir = Files.createTempDirectory("symlink");
+        Path real = Files.write(Files.createDirectories(dir.resolve("shared")).resolve("app.env"),
+                List.of("DB_PASSWORD=hunter2"));
+        Path link = Files.createSymbolicLink(dir.resolve("app.env"), Path.of("shared", "app.env"));
+
+        CloudEncryptCore.processFiles(List.of(link),
+                CloudEncryptCore.Options.builder("sim").kmsConfig(Map.of("keyId", "symlink")).build());
+
+        assertTrue(Files.isSymbolicLink(link));
+        assertTrue(Files.readString(real).startsWith("DB_PASSWORD=ENC("));
+        try (var entries = Files.list(real.getParent())) {
+            assertEquals(List.of(real), entries.toList());
+        }
+    }
+}
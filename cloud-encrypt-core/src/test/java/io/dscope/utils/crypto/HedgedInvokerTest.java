@@ -0,0 +1,138 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgedInvokerTest {
+
+    @Test
+    void hedgedRequestWinsOverSlowPrimary() throws Exception {
+        EndpointLatencyTracker tracker = new EndpointLatencyTracker();
+        HedgedInvoker invoker = new HedgedInvoker("test", List.of("slow", "fast"),
+                Map.of("hedge.delayMs", "20"), tracker);
+
+        long start = System.nanoTime();
+        String winner = invoker.hedged(endpoint -> {
+            if (endpoint.equals("slow")) {
+                Thread.sleep(2_000);
+            }
+            return endpoint;
+        });
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("fast", winner);
+        assertTrue(elapsedMs < 1_000, "hedge should not wait for the slow endpoint");
+    }
+
+    @Test
+    void failoverMovesToNextEndpointOnRetryableError() throws Exception {
+        EndpointLatencyTracker tracker = new EndpointLatencyTracker();
+        HedgedInvoker invoker = new HedgedInvoker("test", List.of("down", "up"), Map.of(), tracker);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = invoker.failover(endpoint -> {
+            calls.incrementAndGet();
+            if (endpoint.equals("down")) {
+                throw new IOException("connection refused");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void rankPrefersFastestHealthyEndpoint() {
+        EndpointLatencyTracker tracker = new EndpointLatencyTracker();
+        tracker.recordSuccess("a", 50_000_000);
+        tracker.recordSuccess("b", 5_000_000);
+        for (int i = 0; i < 3; i++) {
+            tracker.recordFailure("c");
+        }
+
+        assertEquals(List.of("b", "a", "c"), tracker.rank(List.of("c", "a", "b")));
+    }
+
+    @Test
+    void failingOrSlowFirstEndpointIsDemotedByLaterCalls() throws Exception {
+        EndpointLatencyTracker tracker = new EndpointLatencyTracker();
+        HedgedInvoker invoker = new HedgedInvoker("test", List.of("down", "up"), Map.of(), tracker);
+        List<String> first = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            AtomicInteger calls = new AtomicInteger();
+            invoker.failover(endpoint -> {
+                if (calls.getAndIncrement() == 0) {
+                    first.add(endpoint);
+                }
+                if (endpoint.equals("down")) {
+                    throw new IOException("connection refused");
+                }
+                return endpoint;
+            });
+        }
+        // once "up" has answered and "down" has only failed, calls start at "up"
+        assertEquals(List.of("down", "up", "up"), first);
+
+        HedgedInvoker latency = new HedgedInvoker("test", List.of("slow", "fast"),
+                Map.of("hedge.delayMs", "10"), tracker);
+        CountDownLatch slowDone = new CountDownLatch(1);
+        assertEquals("fast", latency.hedged(endpoint -> {
+            if (endpoint.equals("slow")) {
+                Thread.sleep(200);
+                slowDone.countDown();
+            }
+            return endpoint;
+        }));
+        assertTrue(slowDone.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50); // let the slow request record its sample
+        assertEquals("fast", latency.failover(endpoint -> endpoint), "measured slower endpoint should be tried second");
+    }
+
+    @Test
+    void hedgeIsNotSentWhenTheGovernorLaneHasNoSlotToSpare() throws Exception {
+        KmsRateGovernor governor = new KmsRateGovernor();
+        Map<String, String> config = Map.of("hedge.delayMs", "10", "throttle.maxConcurrency", "1");
+        HedgedInvoker invoker = new HedgedInvoker("test", List.of("slow", "fast"), config,
+                new EndpointLatencyTracker(), governor);
+        Set<String> called = ConcurrentHashMap.newKeySet();
+        HedgedInvoker.EndpointCall<String> call = endpoint -> {
+            called.add(endpoint);
+            if (endpoint.equals("slow")) {
+                Thread.sleep(100);
+            }
+            return endpoint;
+        };
+
+        // the paced call itself holds the lane's only slot
+        KmsRateGovernor.Permit outer = governor.tryAcquire("test", config);
+        assertNotNull(outer);
+        assertEquals("slow", invoker.hedged(call));
+        assertEquals(Set.of("slow"), called);
+        outer.release(false);
+
+        called.clear();
+        assertEquals("fast", invoker.hedged(call));
+        assertEquals(Set.of("slow", "fast"), called);
+        assertTrue(governor.tryAcquire("test", config) != null, "the hedge gave its slot back");
+    }
+
+    @Test
+    void endpointListFallsBackToSingleValue() {
+        assertEquals(List.of("us-east-1", "eu-west-1"),
+                HedgedInvoker.endpointList(Map.of("regions", "us-east-1, eu-west-1"), "regions", "region", "x"));
+        assertEquals(List.of("us-west-2"),
+                HedgedInvoker.endpointList(Map.of(), "regions", "region", "us-west-2"));
+    }
+}
@@ -0,0 +1,49 @@
+package io.dscope.utils.crypto;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrEventsTest {
+
+    @Test
+    void kmsCallsAndDecryptCacheHitsAreRecorded() throws Exception {
+        Map<String, String> settings = Map.of("keyId", "jfr-key", "latency.p50", "1", "latency.p99", "2");
+        Path file = Files.createTempFile("events", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(KmsEncryptEvent.class);
+            recording.enable(KmsDecryptEvent.class);
+            recording.start();
+            String cipher = CloudEncryptFactory.create("sim", settings).encrypt("s3cr3t");
+            try (CachingDecryptor decryptor = new CachingDecryptor(CloudDecryptFactory.create("sim", settings), 8)) {
+                assertEquals("s3cr3t", decryptor.decrypt(cipher));
+                assertEquals("s3cr3t", decryptor.decrypt(cipher));
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        RecordedEvent encrypt = events.stream()
+                .filter(e -> e.getEventType().getName().equals("io.dscope.KmsEncrypt")).findFirst().orElseThrow();
+        assertEquals("sim", encrypt.getString("provider"));
+        assertEquals("jfr-key", encrypt.getString("keyAlias"));
+        assertEquals(6, encrypt.getLong("bytes"));
+        assertTrue(encrypt.getBoolean("success"));
+
+        List<RecordedEvent> decrypts = events.stream()
+                .filter(e -> e.getEventType().getName().equals("io.dscope.KmsDecrypt")).toList();
+        // one KMS call for the first request, a cache hit for the second
+        assertEquals(2, decrypts.size());
+        assertEquals(1, decrypts.stream().filter(e -> e.getBoolean("cacheHit")).count());
+        assertEquals(1, decrypts.stream().filter(e -> "jfr-key".equals(e.getString("keyAlias"))).count());
+    }
+}
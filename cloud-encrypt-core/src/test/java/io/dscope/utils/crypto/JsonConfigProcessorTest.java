@@ -0,0 +1,68 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonConfigProcessorTest {
+
+    private static final BiFunction<String, String, String> ENC = (k, s) -> "c-" + s;
+    private static final BiFunction<String, String, String> DEC = (k, s) -> s.substring("ENC(c-".length(), s.length() - 1);
+
+    private static final String ORIGINAL = """
+            {
+              "db": {"host": "localhost", "port": 5432, "password": "p\\"w"},
+              "apiKeys": [ "k1", "k2" ],
+              "pin_secret": 1234,
+              "enabled": true,
+              "token": null
+            }
+            """;
+
+    @Test
+    void encryptsStringAndNumberValuesInPlace() throws Exception {
+        Path file = Files.writeString(Files.createTempDirectory("json").resolve("app.json"), ORIGINAL);
+
+        CloudEncryptCore.Result r = processor(false, ENC, null).process(file);
+
+        assertEquals("""
+                {
+                  "db": {"host": "localhost", "port": 5432, "password": "ENC(c-p\\"w)"},
+                  "apiKeys": [ "ENC(c-k1)", "ENC(c-k2)" ],
+                  "pin_secret": "ENC(c-1234)",
+                  "enabled": true,
+                  "token": null
+                }
+                """, Files.readString(file));
+        assertEquals(List.of("password", "apiKeys", "apiKeys", "pin_secret"), r.affectedKeys);
+    }
+
+    @Test
+    void decryptRoundTripsStrings() throws Exception {
+        Path file = Files.writeString(Files.createTempDirectory("json").resolve("app.json"), ORIGINAL);
+        processor(false, ENC, null).process(file);
+
+        CloudEncryptCore.Result r = processor(true, null, DEC).process(file);
+
+        assertEquals(4, r.changedCount);
+        assertEquals(ORIGINAL.replace("1234", "\"1234\""), Files.readString(file));
+    }
+
+    @Test
+    void malformedJsonIsRejected() throws Exception {
+        Path file = Files.writeString(Files.createTempDirectory("json").resolve("bad.json"), "{\"password\": \"x\"");
+
+        assertThrows(IllegalArgumentException.class, () -> processor(false, ENC, null).process(file));
+        assertEquals("{\"password\": \"x\"", Files.readString(file));
+    }
+
+    private static JsonConfigProcessor processor(boolean decrypt, BiFunction<String, String, String> enc,
+                                                 BiFunction<String, String, String> dec) {
+        return new JsonConfigProcessor(false, decrypt, false, enc, dec, 4, false, null, SensitiveKeyMatcher.defaults());
+    }
+}
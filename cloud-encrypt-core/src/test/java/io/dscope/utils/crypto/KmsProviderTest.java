@@ -0,0 +1,56 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KmsProviderTest {
+
+    @Test
+    void builtInProvidersAreDiscovered() {
+        Set<String> names = CloudEncryptFactory.PROVIDERS.names();
+
+        assertTrue(names.containsAll(Set.of("local", "sim", "simulator")));
+        assertInstanceOf(LocalKmsProvider.class, CloudEncryptFactory.PROVIDERS.find("LOCAL"));
+    }
+
+    @Test
+    void pluginProviderIsSelectableByName() throws Exception {
+        Map<String, String> settings = Map.of("throttle.enabled", "false");
+
+        String cipher = CloudEncryptFactory.create("reverse", settings).encrypt("abc");
+
+        assertEquals("cba", cipher);
+        assertEquals("abc", CloudDecryptFactory.create("reverse", settings).decrypt(cipher));
+    }
+
+    @Test
+    void unknownProviderListsAvailableNames() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> CloudEncryptFactory.create("nope", Map.of()));
+
+        assertTrue(ex.getMessage().startsWith("Unsupported provider: nope"));
+        assertTrue(ex.getMessage().contains("local"));
+    }
+
+    public static final class ReverseKmsProvider implements KmsProvider {
+
+        @Override
+        public Set<String> names() {
+            return Set.of("reverse");
+        }
+
+        @Override
+        public CloudEncryptor createEncryptor(Map<String, String> config) {
+            return plainText -> new StringBuilder(plainText).reverse().toString();
+        }
+
+        @Override
+        public CloudDecryptor createDecryptor(Map<String, String> config) {
+            return cipherBase64 -> new StringBuilder(cipherBase64).reverse().toString();
+        }
+    }
+}
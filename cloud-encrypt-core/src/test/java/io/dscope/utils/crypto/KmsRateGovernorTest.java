@@ -0,0 +1,133 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KmsRateGovernorTest {
+
+    private static final Map<String, String> FAST_RETRIES = Map.of(
+            "throttle.baseDelayMs", "1",
+            "throttle.maxDelayMs", "2",
+            "throttle.maxRetries", "3",
+            "throttle.initialConcurrency", "8");
+
+    @Test
+    void retriesThrottlingUntilSuccess() throws Exception {
+        KmsRateGovernor governor = new KmsRateGovernor();
+        AtomicInteger attempts = new AtomicInteger();
+        CloudEncryptor flaky = plainText -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException("ThrottlingException: Rate exceeded");
+            }
+            return "cipher:" + plainText;
+        };
+
+        CloudEncryptor governed = governor.governEncryptor("aws", settings("alias/retry"), flaky);
+
+        assertEquals("cipher:secret", governed.encrypt("secret"));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void doesNotRetryPermanentFailures() {
+        KmsRateGovernor governor = new KmsRateGovernor();
+        AtomicInteger attempts = new AtomicInteger();
+        CloudDecryptor broken = cipher -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("AccessDeniedException");
+        };
+
+        CloudDecryptor governed = governor.governDecryptor("aws", settings("alias/denied"), broken);
+
+        assertThrows(IllegalArgumentException.class, () -> governed.decrypt("abc"));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void throttlingHalvesConcurrencyLimit() throws Exception {
+        KmsRateGovernor governor = new KmsRateGovernor();
+        Map<String, String> cfg = settings("alias/aimd");
+        String lane = KmsRateGovernor.laneKey("aws", cfg);
+        CloudEncryptor throttled = plainText -> {
+            throw new IllegalStateException("429 Too Many Requests");
+        };
+
+        CloudEncryptor governed = governor.governEncryptor("aws", cfg, throttled);
+        assertThrows(IllegalStateException.class, () -> governed.encrypt("x"));
+
+        assertTrue(governor.currentLimit(lane) < 8, "limit should shrink after throttling");
+    }
+
+    @Test
+    void disabledThrottleReturnsDelegate() {
+        CloudEncryptor delegate = plainText -> plainText;
+        CloudEncryptor governed = new KmsRateGovernor().governEncryptor("aws", Map.of("throttle.enabled", "false"), delegate);
+        assertSame(delegate, governed);
+    }
+
+    @Test
+    void classifierRecognisesStatusCodes() {
+        assertTrue(ThrottlingClassifier.isThrottling(new StatusException(429)));
+        assertFalse(ThrottlingClassifier.isThrottling(new StatusException(503)));
+        assertTrue(ThrottlingClassifier.isRetryable(new StatusException(503)));
+        assertFalse(ThrottlingClassifier.isRetryable(new StatusException(400)));
+    }
+
+    @Test
+    void classifierIgnores429InsideIdentifiers() {
+        assertFalse(ThrottlingClassifier.isThrottling(new IllegalStateException(
+                "NotFoundException: key arn:aws:kms:us-east-1:111142948888:key/429abc not found")));
+        assertFalse(ThrottlingClassifier.isThrottling(new IllegalStateException("Request 7f429-bd failed")));
+        assertTrue(ThrottlingClassifier.isThrottling(new IllegalStateException("Service returned HTTP 429")));
+        assertTrue(ThrottlingClassifier.isThrottling(new IllegalStateException("failed: status code: 429")));
+    }
+
+    @Test
+    void ioFailuresAreTransientOnlyWhenTheyMayRecover() {
+        assertFalse(ThrottlingClassifier.isRetryable(new java.nio.file.NoSuchFileException("key.jwk")));
+        assertFalse(ThrottlingClassifier.isRetryable(new java.net.UnknownHostException("kms.example")));
+        assertTrue(ThrottlingClassifier.isTransient(new java.net.SocketTimeoutException("read timed out")));
+        assertFalse(ThrottlingClassifier.isThrottling(new java.net.SocketTimeoutException("read timed out")));
+    }
+
+    @Test
+    void transientFailuresAreRetriedWithoutShrinkingConcurrency() throws Exception {
+        KmsRateGovernor governor = new KmsRateGovernor();
+        Map<String, String> cfg = settings("alias/transient");
+        AtomicInteger attempts = new AtomicInteger();
+        CloudEncryptor flaky = plainText -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new java.io.UncheckedIOException(new java.net.ConnectException("Connection refused"));
+            }
+            return plainText;
+        };
+
+        assertEquals("x", governor.governEncryptor("aws", cfg, flaky).encrypt("x"));
+        assertEquals(3, attempts.get());
+        assertTrue(governor.currentLimit(KmsRateGovernor.laneKey("aws", cfg)) >= 8);
+    }
+
+    private static Map<String, String> settings(String keyId) {
+        Map<String, String> cfg = new java.util.HashMap<>(FAST_RETRIES);
+        cfg.put("region", "us-west-2");
+        cfg.put("keyId", keyId);
+        return cfg;
+    }
+
+    public static class StatusException extends RuntimeException {
+        private final int status;
+
+        StatusException(int status) {
+            super("status " + status);
+            this.status = status;
+        }
+
+        public int getStatusCode() {
+            return status;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.dscope.utils.crypto;
+
+import io.dscope.cloud.kms.CloudKmsFileService;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalKmsTest {
+
+    @Test
+    void aesRoundTripThroughFactories() throws Exception {
+        Path dir = Files.createTempDirectory("local-kms");
+        Map<String, String> settings = settings(dir.resolve("keys.jwk"), "app");
+        LocalKeyStore.generate(settings, "app", "aes");
+
+        String cipher = CloudEncryptFactory.create("local", settings).encrypt("s3cr3t");
+
+        assertNotEquals("s3cr3t", cipher);
+        assertEquals("s3cr3t", CloudDecryptFactory.create("local", settings).decrypt(cipher));
+    }
+
+    @Test
+    void generatedKeystoresAreReadableByTheOwnerOnly() throws Exception {
+        Path dir = Files.createTempDirectory("local-kms");
+        Path jwk = dir.resolve("keys.jwk");
+        Files.writeString(jwk, "{\"keys\": []}");
+        Files.setPosixFilePermissions(jwk, PosixFilePermissions.fromString("rw-r--r--"));
+
+        LocalKeyStore.generate(settings(jwk, "app"), "app", "rsa");
+
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(jwk)));
+        try (var entries = Files.list(dir)) {
+            assertEquals(List.of(jwk), entries.toList(), "no temporary file left behind");
+        }
+    }
+
+    @Test
+    void rotationKeepsOlderCiphertextDecryptable() throws Exception {
+        Path dir = Files.createTempDirectory("local-kms");
+        Map<String, String> settings = settings(dir.resolve("keys.jwk"), "app");
+        LocalKeyStore.generate(settings, "app", "aes");
+        String before = new LocalEncryptor(settings).encrypt("v1");
+
+        assertEquals("app:2", LocalKeyStore.generate(settings, "app", "aes"));
+        String after = new LocalEncryptor(settings).encrypt("v2");
+
+        LocalDecryptor decryptor = new LocalDecryptor(settings);
+        assertEquals("v1", decryptor.decrypt(before));
+        assertEquals("v2", decryptor.decrypt(after));
+        assertEquals(List.of("app:1", "app:2"), LocalKeyStore.open(settings).kids());
+    }
+
+    @Test
+    void rsaJwkKeyRoundTrip() throws Exception {
+        Path dir = Files.createTempDirectory("local-kms");
+        Map<String, String> settings = settings(dir.resolve("keys.jwk"), "wrap");
+        LocalKeyStore.generate(settings, "wrap", "rsa");
+
+        String cipher = new LocalEncryptor(settings).encrypt("hello");
+
+        assertTrue(LocalKeyStore.open(settings).resolve("wrap").isRsa());
+        assertEquals("hello", new LocalDecryptor(settings).decrypt(cipher));
+    }
+
+    @Test
+    void pkcs12KeystoreRoundTrip() throws Exception {
+        Path dir = Files.createTempDirectory("local-kms");
+        Map<String, String> settings = settings(dir.resolve("keys.p12"), "app");
+        settings.put("password", "changeit");
+        LocalKeyStore.generate(settings, "app", "aes");
+
+        String cipher = new LocalEncryptor(settings).encrypt("pkcs");
+
+        assertEquals("pkcs", new LocalDecryptor(settings).decrypt(cipher));
+        assertThrows(IllegalArgumentException.class, () -> LocalKeyStore.generate(settings, "app", "rsa"));
+    }
+
+    @Test
+    void fileServiceUsesLocalProvider() throws Exception {
+        Path dir = Files.createTempDirectory("local-kms");
+        Map<String, String> settings = settings(dir.resolve("keys.jwk"), "files");
+        LocalKeyStore.generate(settings, "files", "aes");
+        Path input = Files.writeString(dir.resolve("plain.txt"), "file contents", StandardCharsets.UTF_8);
+        Path encrypted = dir.resolve("plain.txt.enc");
+        Path decrypted = dir.resolve("plain.out");
+
+        CloudKmsConfig config = CloudKmsConfig.builder("local")
+                .with("keystore", settings.get("keystore"))
+                .with("keyId", "files")
+                .build();
+        CloudKmsFileService service = new CloudKmsFileService();
+        service.encryptFile(input, encrypted, config);
+        service.decryptFile(encrypted, decrypted, config);
+
+        assertEquals("file contents", Files.readString(decrypted, StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> settings(Path keystore, String keyId) {
+        Map<String, String> settings = new HashMap<>();
+        settings.put("keystore", keystore.toString());
+        settings.put("keyId", keyId);
+        return settings;
+    }
+}
@@ -0,0 +1,55 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperationMetricsTest {
+
+    @Test
+    void histogramPercentilesStayWithinTheBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) {
+            histogram.record(v * 1_000);
+        }
+        assertEquals(100_000, histogram.count());
+        assertEquals(100_000_000, histogram.max());
+        assertEquals(50_000_000, histogram.percentile(50), 50_000_000 * 0.035);
+        assertEquals(99_000_000, histogram.percentile(99), 99_000_000 * 0.035);
+        for (long v : new long[] {0, 31, 32, 33, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            long mid = LatencyHistogram.midpoint(LatencyHistogram.index(v));
+            assertTrue(Math.abs((double) v - mid) <= Math.max(1, v * 0.035), "value " + v);
+        }
+    }
+
+    @Test
+    void recordsKmsCallsPerProviderOnlyWhileEnabled() throws Exception {
+        Map<String, String> settings = Map.of("keyId", "metrics", "latency.p50", "1", "latency.p99", "2");
+        CloudEncryptor encryptor = CloudEncryptFactory.create("sim", settings);
+        encryptor.encrypt("before");
+        assertTrue(OperationMetrics.snapshot().isEmpty());
+
+        OperationMetrics.enable(true);
+        List<OperationMetrics.Stat> stats;
+        try {
+            for (int i = 0; i < 10; i++) {
+                encryptor.encrypt("secret" + i);
+            }
+        } finally {
+            OperationMetrics.enable(false);
+            stats = OperationMetrics.snapshot();
+            OperationMetrics.reset();
+        }
+        assertEquals(1, stats.size());
+        OperationMetrics.Stat kms = stats.get(0);
+        assertEquals("kms.encrypt", kms.operation());
+        assertEquals("sim", kms.provider());
+        assertEquals(10, kms.count());
+        assertEquals(0, kms.errors());
+        assertEquals(70, kms.bytes());
+        assertTrue(kms.p50Nanos() > 0 && kms.p50Nanos() <= kms.p99Nanos() && kms.p99Nanos() <= kms.maxNanos());
+    }
+}
@@ -0,0 +1,77 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunCacheTest {
+
+    private static final Map<String, String> SIM = Map.of("latency.p50", "1", "latency.p99", "2");
+
+    @Test
+    void checkOutcomesAreReusedUntilTheFileChanges() throws Exception {
+        Path dir = Files.createTempDirectory("cache");
+        Path file = Files.write(dir.resolve("app.env"), List.of("DB_PASSWORD=plain", "PORT=80"));
+        Path cacheFile = dir.resolve(RunCache.FILE_NAME);
+
+        Map<String, Object> first = check(file, RunCache.load(cacheFile, "rules"));
+        RunCache cache = RunCache.load(cacheFile, "rules");
+        Map<String, Object> second = check(file, cache);
+
+        assertNull(first.get("cached"));
+        assertEquals(Boolean.TRUE, second.get("cached"));
+        assertEquals(List.of("DB_PASSWORD"), second.get("keys"));
+        assertEquals(1, cache.hits());
+
+        Files.write(file, List.of("DB_PASSWORD=plain", "API_TOKEN=t"));
+        Map<String, Object> third = check(file, RunCache.load(cacheFile, "rules"));
+        assertNull(third.get("cached"));
+        assertEquals(List.of("DB_PASSWORD", "API_TOKEN"), third.get("keys"));
+    }
+
+    @Test
+    void differentRulesStartFromAnEmptyCache() throws Exception {
+        Path dir = Files.createTempDirectory("cache");
+        Path file = Files.write(dir.resolve("app.env"), List.of("DB_PASSWORD=plain"));
+        Path cacheFile = dir.resolve(RunCache.FILE_NAME);
+        check(file, RunCache.load(cacheFile, RunCache.fingerprint("keywords=[password]", "")));
+
+        RunCache other = RunCache.load(cacheFile, RunCache.fingerprint("keywords=[secret]", ""));
+
+        assertNull(check(file, other).get("cached"));
+        assertNotEquals(RunCache.fingerprint("a", "b"), RunCache.fingerprint("ab", ""));
+    }
+
+    @Test
+    void encryptRunsSkipFilesTheyAlreadyEncrypted() throws Exception {
+        Path dir = Files.createTempDirectory("cache");
+        Path file = Files.write(dir.resolve("app.env"), List.of("DB_PASSWORD=plain"));
+        Path cacheFile = dir.resolve(RunCache.FILE_NAME);
+        CloudEncryptCore.Options.Builder encrypt = CloudEncryptCore.Options.builder("sim").kmsConfig(SIM);
+
+        RunCache cache = RunCache.load(cacheFile, "rules");
+        assertEquals(1, CloudEncryptCore.processFiles(List.of(file), encrypt.runCache(cache).build()).get(0)
+                .get("changed"));
+        cache.save();
+        byte[] encrypted = Files.readAllBytes(file);
+
+        Map<String, Object> again = CloudEncryptCore.processFiles(List.of(file),
+                encrypt.runCache(RunCache.load(cacheFile, "rules")).build()).get(0);
+
+        assertEquals(Boolean.TRUE, again.get("cached"));
+        assertEquals(0, again.get("changed"));
+        assertArrayEquals(encrypted, Files.readAllBytes(file));
+    }
+
+    private static Map<String, Object> check(Path file, RunCache cache) throws Exception {
+        CloudEncryptCore.Options options = CloudEncryptCore.Options.builder("sim").checkMode(true).runCache(cache).build();
+        Map<String, Object> result = CloudEncryptCore.processFiles(List.of(file), options).get(0);
+        cache.save();
+        return result;
+    }
+}
@@ -0,0 +1,127 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SecretAuditScannerTest {
+
+    private final SecretAuditScanner scanner = new SecretAuditScanner(SensitiveKeyMatcher.defaults());
+
+    @Test
+    void findsPlaintextInPropertiesYamlAndJson() throws Exception {
+        Path dir = Files.createTempDirectory("audit");
+        Path properties = Files.write(dir.resolve("app.properties"), List.of(
+                "# DB_PASSWORD=commented",
+                "DB_PASSWORD = hunter2\r",
+                "API_TOKEN=ENC(abc)",
+                "SIGNING_KEY=ENC2(xyz)",
+                "PORT=8080"));
+        Path yaml = Files.write(dir.resolve("application.yml"), List.of(
+                "spring:",
+                "  datasource:",
+                "    url: jdbc:postgresql://db:5432/app",
+                "    password: \"s3cret\"",
+                "  mail:",
+                "    api-token: 'ENC(q)'",
+                "clients:",
+                "  - client-secret: abc",
+                "secrets:"));
+        Path json = Files.write(dir.resolve("app.json"), List.of(
+                "{",
+                "  \"db_password\": \"x\",",
+                "  \"api_token\": \"ENC(q)\",",
+                "  \"port\": 80",
+                "}"));
+
+        CloudEncryptCore.Result p = scanner.scan(properties);
+        CloudEncryptCore.Result y = scanner.scan(yaml);
+
+        assertEquals(List.of("DB_PASSWORD"), p.affectedKeys);
+        assertEquals(List.of("password", "client-secret"), y.affectedKeys);
+        assertEquals(2, y.unencryptedCount);
+        assertFalse(y.binary);
+        assertEquals(List.of("db_password"), scanner.scan(json).affectedKeys);
+    }
+
+    @Test
+    void skipsBinaryFiles() throws Exception {
+        Path file = Files.createTempFile("audit", ".env");
+        Files.write(file, new byte[]{'K', 'E', 'Y', '=', 0, 1, 2, '\n'});
+
+        CloudEncryptCore.Result r = scanner.scan(file);
+
+        assertTrue(r.binary);
+        assertEquals(0, r.unencryptedCount);
+        assertTrue(SecretAuditScanner.looksBinary(file));
+    }
+
+    @Test
+    void checkRunStreamsResultsInFileOrder() throws Exception {
+        Path dir = Files.createTempDirectory("audit");
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            files.add(Files.write(dir.resolve("f" + i + ".env"),
+                    List.of(i % 3 == 0 ? "DB_PASSWORD=plain" : "DB_PASSWORD=ENC(x)")));
+        }
+        List<Object> streamed = new ArrayList<>();
+        CloudEncryptCore.Options options = CloudEncryptCore.Options.builder("sim")
+                .checkMode(true).threads(4).onResult(res -> streamed.add(res.get("file"))).build();
+
+        List<Map<String, Object>> results = CloudEncryptCore.processFiles(files, options);
+
+        assertEquals(files.stream().map(Path::toString).toList(), streamed);
+        assertEquals(4, results.stream().filter(r -> ((Number) r.get("unencrypted")).intValue() > 0).count());
+    }
+
+    @Test
+    void scannerSkipsStructureOpeners() throws Exception {
+        Path file = Files.createTempFile("audit", ".conf");
+        Files.write(file, List.of(
+                "\"secrets\": {",
+                "\"apiKeys\": [",
+                "tokens: [a, b]",
+                "private_key: |",
+                "db_password: plain"));
+
+        assertEquals(List.of("db_password"), scanner.scan(file).affectedKeys);
+    }
+
+    @Test
+    void checkReportsWhatEncryptSealsInYamlAndJson() throws Exception {
+        Path dir = Files.createTempDirectory("audit");
+        Path yaml = Files.write(dir.resolve("app.yml"), List.of(
+                "tokens: [a, b]",
+                "passwords:",
+                "  - first",
+                "  - second",
+                "port: 80"));
+        Path json = Files.write(dir.resolve("app.json"), List.of(
+                "{",
+                "  \"secrets\": {\"db_password\": \"x\"},",
+                "  \"apiKeys\": [\"k1\", \"k2\"],",
+                "  \"port\": 80",
+                "}"));
+        List<Path> files = List.of(yaml, json);
+        CloudEncryptCore.Options check = CloudEncryptCore.Options.builder("sim").checkMode(true).build();
+
+        List<Map<String, Object>> before = CloudEncryptCore.processFiles(files, check);
+        assertEquals(4, before.get(0).get("unencrypted"));
+        assertEquals(3, before.get(1).get("unencrypted"));
+
+        List<Map<String, Object>> encrypted = CloudEncryptCore.processFiles(files,
+                CloudEncryptCore.Options.builder("sim").kmsConfig(Map.of("keyId", "audit")).build());
+        assertEquals(4, encrypted.get(0).get("changed"));
+        assertEquals(3, encrypted.get(1).get("changed"));
+
+        for (Map<String, Object> res : CloudEncryptCore.processFiles(files, check)) {
+            assertEquals(0, res.get("unencrypted"), res.get("file") + " " + res.get("keys"));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SensitiveKeyMatcherTest {
+
+    @Test
+    void defaultsMatchTheBuiltInKeywords() {
+        SensitiveKeyMatcher matcher = SensitiveKeyMatcher.defaults();
+
+        for (String key : List.of("DB_PASSWORD", "api.token", "ClientSecret", "SSH_KEY", "monkey")) {
+            assertTrue(matcher.isSensitive(key), key);
+        }
+        for (String key : List.of("PORT", "DB_USER", "spring.datasource.url", "")) {
+            assertFalse(matcher.isSensitive(key), key);
+        }
+    }
+
+    @Test
+    void allowDenySuffixesAndPatterns() {
+        SensitiveKeyMatcher matcher = SensitiveKeyMatcher.builder()
+                .keywords(List.of("password", "secret"))
+                .suffixes(List.of("_pwd", ".credentials"))
+                .allow(List.of("SECRET_NAME"))
+                .deny(List.of("DATABASE_URL", "secret_name"))
+                .patterns(List.of("^aws_[a-z]+_id$", ".*conn(ection)?_string"))
+                .build();
+
+        assertTrue(matcher.isSensitive("ADMIN_PWD"));
+        assertFalse(matcher.isSensitive("ADMIN_PWD_HINT"));
+        assertTrue(matcher.isSensitive("gcp.credentials"));
+        assertTrue(matcher.isSensitive("database_url"));
+        assertTrue(matcher.isSensitive("SECRET_NAME"), "deny wins over allow");
+        assertTrue(matcher.isSensitive("AWS_ACCESS_ID"));
+        assertTrue(matcher.isSensitive("DB_CONNECTION_STRING"));
+        assertFalse(matcher.isSensitive("API_TOKEN"), "keywords were replaced");
+    }
+
+    @Test
+    void allowListOverridesKeywords() {
+        SensitiveKeyMatcher matcher = SensitiveKeyMatcher.builder().allow(List.of("public_key_id")).build();
+
+        assertFalse(matcher.isSensitive("PUBLIC_KEY_ID"));
+        assertTrue(matcher.isSensitive("PUBLIC_KEY_ID_2"));
+        assertTrue(matcher.isSensitive("PRIVATE_KEY_ID"));
+    }
+
+    @Test
+    void byteAndCharacterKeysAgree() {
+        SensitiveKeyMatcher matcher = SensitiveKeyMatcher.builder()
+                .keywords(List.of("pässwort", "token"))
+                .suffixes(List.of("_geheim"))
+                .patterns(List.of("^x-.*-auth$"))
+                .build();
+
+        for (String key : List.of("DB_PÄSSWORT", "db_pässwort", "NOTOKEN", "ZUGANG_GEHEIM", "x-api-auth", "plain")) {
+            byte[] line = ("  " + key + "=value").getBytes(StandardCharsets.UTF_8);
+            int end = 2 + key.getBytes(StandardCharsets.UTF_8).length;
+            assertEquals(matcher.isSensitive(key), matcher.isSensitive(line, 2, end), key);
+        }
+        assertTrue(matcher.isSensitive("db_pässwort"));
+        assertFalse(matcher.isSensitive("plain"));
+    }
+
+    @Test
+    void invalidPatternIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> SensitiveKeyMatcher.builder().patterns(List.of("([unclosed")).build());
+    }
+}
@@ -0,0 +1,76 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulatedBackendTest {
+
+    @Test
+    void simulatorProviderRoundTripsThroughFactories() throws Exception {
+        Map<String, String> settings = Map.of("keyId", "sim", "seed", "42", "latency.p50", "1", "latency.p99", "5");
+
+        String cipher = CloudEncryptFactory.create("sim", settings).encrypt("s3cr3t");
+
+        assertNotEquals("s3cr3t", cipher);
+        assertEquals("s3cr3t", CloudDecryptFactory.create("simulator", settings).decrypt(cipher));
+    }
+
+    @Test
+    void quotaRejectsWithThrottlingErrors() throws Exception {
+        SimulatedBackend backend = SimulatedBackend.from(
+                Map.of("quota", "1", "quotaBurst", "2", "quotaScope", "quota-test"), "kms");
+
+        backend.roundTrip("Encrypt");
+        backend.roundTrip("Encrypt");
+        SimulatedBackend.SimulatedServiceException ex = assertThrows(
+                SimulatedBackend.SimulatedServiceException.class, () -> backend.roundTrip("Encrypt"));
+
+        assertEquals(429, ex.getStatusCode());
+        assertTrue(ThrottlingClassifier.isThrottling(ex));
+        assertEquals(1, backend.throttled());
+    }
+
+    @Test
+    void injectedFailuresAreRetriedByTheGovernor() throws Exception {
+        SimulatedBackend failing = SimulatedBackend.from(Map.of("errorRate", "1"), "kms");
+        FailingCall probe = new FailingCall(failing);
+        KmsRateGovernor governor = new KmsRateGovernor();
+        KmsRateGovernor.Settings settings = KmsRateGovernor.Settings.from(
+                Map.of("throttle.maxRetries", "2", "throttle.baseDelayMs", "1"));
+
+        SimulatedBackend.SimulatedServiceException ex = assertThrows(SimulatedBackend.SimulatedServiceException.class,
+                () -> governor.call("sim-lane", settings, probe::call));
+
+        assertEquals(503, ex.getStatusCode());
+        assertTrue(ThrottlingClassifier.isRetryable(ex));
+        assertEquals(3, failing.calls());
+    }
+
+    @Test
+    void latencyFollowsConfiguredPercentiles() {
+        SimulatedBackend backend = SimulatedBackend.from(Map.of("latency.p50", "20", "latency.p99", "200"), "kms");
+        SimulatedBackend capped = SimulatedBackend.from(
+                Map.of("latency.p50", "20", "latency.p99", "200", "latency.max", "150"), "kms");
+
+        assertEquals(20, backend.sampleLatencyNanos(0) / 1_000_000);
+        assertEquals(200, backend.sampleLatencyNanos(2.3263) / 1_000_000, 1);
+        assertEquals(150, capped.sampleLatencyNanos(5) / 1_000_000);
+    }
+
+    @Test
+    void rejectsInvalidProfiles() {
+        assertThrows(IllegalArgumentException.class,
+                () -> SimulatedBackend.from(Map.of("latency.p50", "50", "latency.p99", "10"), "kms"));
+        assertThrows(IllegalArgumentException.class, () -> SimulatedBackend.from(Map.of("errorRate", "2"), "kms"));
+    }
+
+    private record FailingCall(SimulatedBackend backend) {
+        String call() throws Exception {
+            backend.roundTrip("Decrypt");
+            return "unreachable";
+        }
+    }
+}
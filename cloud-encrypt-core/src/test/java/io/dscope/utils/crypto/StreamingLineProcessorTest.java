@@ -0,0 +1,99 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingLineProcessorTest {
+
+    private static final Function<String, String> ENC = s -> "c-" + s;
+
+    @Test
+    void untouchedLinesKeepTheirExactBytes() throws Exception {
+        Path dir = Files.createTempDirectory("stream");
+        Path file = dir.resolve("app.env");
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        content.write("# café comment\r\n".getBytes(StandardCharsets.UTF_8));
+        content.write(new byte[]{'B', 'L', 'O', 'B', '=', (byte) 0xff, (byte) 0xfe, '\n'});
+        content.write("DB_PASSWORD = secret\r\n".getBytes(StandardCharsets.UTF_8));
+        content.write("PORT=8080".getBytes(StandardCharsets.UTF_8));
+        Files.write(file, content.toByteArray());
+
+        CloudEncryptCore.Result r = processor(false, false).process(file);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write("# café comment\r\n".getBytes(StandardCharsets.UTF_8));
+        expected.write(new byte[]{'B', 'L', 'O', 'B', '=', (byte) 0xff, (byte) 0xfe, '\n'});
+        expected.write("DB_PASSWORD=ENC(c-secret)\r\n".getBytes(StandardCharsets.UTF_8));
+        expected.write("PORT=8080".getBytes(StandardCharsets.UTF_8));
+        assertArrayEquals(expected.toByteArray(), Files.readAllBytes(file));
+        assertEquals(1, r.changedCount);
+        assertEquals(List.of("DB_PASSWORD"), r.affectedKeys);
+        assertNoTempFiles(dir);
+    }
+
+    @Test
+    void fileWithoutChangesIsNotRewritten() throws Exception {
+        Path dir = Files.createTempDirectory("stream");
+        Path file = Files.write(dir.resolve("app.env"), List.of("DB_PASSWORD=ENC(abc)", "PORT=80"));
+        FileTime before = FileTime.fromMillis(1_000_000_000_000L);
+        Files.setLastModifiedTime(file, before);
+
+        CloudEncryptCore.Result r = processor(false, false).process(file);
+
+        assertEquals(0, r.changedCount);
+        assertEquals(before, Files.getLastModifiedTime(file));
+        assertNoTempFiles(dir);
+    }
+
+    @Test
+    void matchesInMemoryProcessingAcrossWindows() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < StreamingLineProcessor.WINDOW_LINES + 500; i++) {
+            lines.add(i % 7 == 0 ? "API_TOKEN_" + i + "=t" + i : "SETTING_" + i + "=v" + i);
+        }
+        Path file = Files.write(Files.createTempDirectory("stream").resolve("big.env"), lines);
+
+        CloudEncryptCore.Result expected = CloudEncryptCore.processLines(lines, false, false, false, ENC, null, 8);
+        CloudEncryptCore.Result actual = processor(false, false).process(file);
+
+        assertEquals(expected.outputLines, Files.readAllLines(file));
+        assertEquals(expected.changedCount, actual.changedCount);
+        assertEquals(expected.affectedKeys, actual.affectedKeys);
+    }
+
+    @Test
+    void dryRunAndCheckNeverWrite() throws Exception {
+        Path file = Files.write(Files.createTempDirectory("stream").resolve("app.env"),
+                List.of("DB_PASSWORD=plain", "API_TOKEN=ENC(x)"));
+        byte[] original = Files.readAllBytes(file);
+
+        assertEquals(1, processor(true, false).process(file).changedCount);
+        CloudEncryptCore.Result check = processor(false, true).process(file);
+
+        assertEquals(1, check.unencryptedCount);
+        assertEquals(List.of("DB_PASSWORD"), check.affectedKeys);
+        assertArrayEquals(original, Files.readAllBytes(file));
+    }
+
+    private static StreamingLineProcessor processor(boolean dryRun, boolean checkMode) {
+        return new StreamingLineProcessor(dryRun, false, checkMode, checkMode ? null : (k, v) -> ENC.apply(v), null, 8, false, null,
+                SensitiveKeyMatcher.defaults());
+    }
+
+    private static void assertNoTempFiles(Path dir) throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+}
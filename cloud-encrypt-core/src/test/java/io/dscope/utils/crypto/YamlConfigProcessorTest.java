@@ -0,0 +1,98 @@
+package io.dscope.utils.crypto;
+
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.Yaml;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YamlConfigProcessorTest {
+
+    private static final BiFunction<String, String, String> ENC = (k, s) -> "c-" + s;
+    private static final BiFunction<String, String, String> DEC = (k, s) -> s.substring("ENC(c-".length(), s.length() - 1);
+
+    @Test
+    void encryptsNestedValuesAndKeepsTheRestOfTheText() throws Exception {
+        Path file = write("app.yml", """
+                # database settings
+                spring:
+                  datasource:
+                    url: jdbc:postgresql://db/app   # primary
+                    password: s3cret
+                  api:
+                    tokens:
+                      - first
+                      - 'second'
+                    client-secret: "quoted value"
+                    private-key: |
+                      line one
+                      line two
+                    port: 8080
+                empty_password:
+                """);
+
+        CloudEncryptCore.Result r = processor(false).process(file);
+
+        assertEquals("""
+                # database settings
+                spring:
+                  datasource:
+                    url: jdbc:postgresql://db/app   # primary
+                    password: ENC(c-s3cret)
+                  api:
+                    tokens:
+                      - ENC(c-first)
+                      - 'ENC(c-second)'
+                    client-secret: "ENC(c-quoted value)"
+                    private-key: "ENC(c-line one\\nline two\\n)"
+                    port: 8080
+                empty_password:
+                """, Files.readString(file));
+        assertEquals(5, r.changedCount);
+        assertEquals(List.of("password", "tokens", "tokens", "client-secret", "private-key"), r.affectedKeys);
+    }
+
+    @Test
+    void decryptRestoresValuesThatStillParse() throws Exception {
+        Path file = write("app.yaml", """
+                db: {user: admin, password: "it's: #1"}
+                ---
+                other_token: plain
+                """);
+        processor(false).process(file);
+
+        CloudEncryptCore.Result r = new YamlConfigProcessor(false, true, false, null, DEC, 4, false, null,
+                SensitiveKeyMatcher.defaults()).process(file);
+
+        assertEquals(2, r.changedCount);
+        Iterable<Object> docs = new Yaml().loadAll(Files.readString(file));
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> first = (Map<String, Map<String, Object>>) docs.iterator().next();
+        assertEquals("it's: #1", first.get("db").get("password"));
+        assertTrue(Files.readString(file).endsWith("other_token: plain\n"));
+    }
+
+    @Test
+    void fileWithoutChangesIsNotRewritten() throws Exception {
+        Path file = write("app.yml", "db:\n  password: ENC(abc)\n  host: localhost\n");
+        FileTime before = FileTime.fromMillis(1_000_000_000_000L);
+        Files.setLastModifiedTime(file, before);
+
+        assertEquals(0, processor(false).process(file).changedCount);
+        assertEquals(before, Files.getLastModifiedTime(file));
+    }
+
+    private static YamlConfigProcessor processor(boolean dryRun) {
+        return new YamlConfigProcessor(dryRun, false, false, ENC, null, 4, false, null, SensitiveKeyMatcher.defaults());
+    }
+
+    private static Path write(String name, String content) throws Exception {
+        return Files.writeString(Files.createTempDirectory("yaml").resolve(name), content);
+    }
+}
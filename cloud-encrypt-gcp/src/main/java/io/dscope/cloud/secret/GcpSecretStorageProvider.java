@@ -0,0 +1,19 @@
+package io.dscope.cloud.secret;
+
+import java.util.Set;
+
+/**
+ * {@link SecretStorageProvider} for Google Cloud Secret Manager.
+ */
+public final class GcpSecretStorageProvider implements SecretStorageProvider {
+
+    @Override
+    public Set<String> names() {
+        return Set.of("gcp", "google");
+    }
+
+    @Override
+    public CloudSecretStorageService create(CloudSecretConfig config) throws Exception {
+        return new GcpSecretStorageService(config.getRequired("project"));
+    }
+}
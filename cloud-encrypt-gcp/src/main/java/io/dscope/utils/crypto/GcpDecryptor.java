@@ -0,0 +1,28 @@
+package io.dscope.utils.crypto;
+
+import com.google.cloud.kms.v1.*;
+import com.google.protobuf.ByteString;
+import java.util.Base64;
+import java.util.Map;
+
+public class GcpDecryptor implements CloudDecryptor {
+    private final Map<String, String> cfg;
+    private final HedgedInvoker endpoints;
+
+    public GcpDecryptor(Map<String, String> cfg) {
+        this.cfg = cfg;
+        this.endpoints = new HedgedInvoker("gcp",
+                HedgedInvoker.endpointList(cfg, "endpoints", "endpoint", GcpEncryptor.DEFAULT_ENDPOINT), cfg);
+    }
+
+    @Override
+    public String decrypt(String cipherBase64) throws Exception {
+        String keyName = String.format("projects/%s/locations/%s/keyRings/%s/cryptoKeys/%s",
+                cfg.get("project"), cfg.get("location"), cfg.get("keyRing"), cfg.get("key"));
+        byte[] enc = java.util.Base64.getDecoder().decode(cipherBase64);
+        return endpoints.hedged(endpoint -> {
+            DecryptResponse resp = GcpKmsClients.forEndpoint(endpoint).decrypt(keyName, ByteString.copyFrom(enc));
+            return resp.getPlaintext().toStringUtf8();
+        });
+    }
+}
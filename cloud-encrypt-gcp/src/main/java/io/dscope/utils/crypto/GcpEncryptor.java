@@ -0,0 +1,41 @@
+package io.dscope.utils.crypto;
+
+import com.google.cloud.kms.v1.*;
+import com.google.protobuf.ByteString;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Map;
+
+public class GcpEncryptor implements CloudEncryptor {
+    static final String DEFAULT_ENDPOINT = "cloudkms.googleapis.com:443";
+
+    private final Map<String, String> cfg;
+    private final HedgedInvoker endpoints;
+
+    public GcpEncryptor(Map<String, String> cfg) {
+        this.cfg = cfg;
+        this.endpoints = new HedgedInvoker("gcp",
+                HedgedInvoker.endpointList(cfg, "endpoints", "endpoint", DEFAULT_ENDPOINT), cfg);
+    }
+
+    @Override
+    public String encrypt(String plainText) throws Exception {
+        String keyName = String.format("projects/%s/locations/%s/keyRings/%s/cryptoKeys/%s",
+                cfg.get("project"), cfg.get("location"), cfg.get("keyRing"), cfg.get("key"));
+        return endpoints.failover(endpoint -> {
+            EncryptResponse resp = GcpKmsClients.forEndpoint(endpoint)
+                    .encrypt(keyName, ByteString.copyFromUtf8(plainText));
+            return Base64.getEncoder().encodeToString(resp.getCiphertext().toByteArray());
+        });
+    }
+
+    /** Builds a new client; callers share them through {@link GcpKmsClients}. */
+    static KeyManagementServiceClient createClient(String endpoint) throws IOException {
+        if (DEFAULT_ENDPOINT.equals(endpoint)) {
+            return KeyManagementServiceClient.create();
+        }
+        return KeyManagementServiceClient.create(KeyManagementServiceSettings.newBuilder()
+                .setEndpoint(endpoint)
+                .build());
+    }
+}
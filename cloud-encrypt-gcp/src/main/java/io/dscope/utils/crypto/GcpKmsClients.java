@@ -0,0 +1,57 @@
+package io.dscope.utils.crypto;
+
+import com.google.cloud.kms.v1.KeyManagementServiceClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@link KeyManagementServiceClient} per endpoint for the whole process. A client owns a gRPC channel with its
+ * TLS session and credentials, so building one per call (or per hedged duplicate) would cost more than the KMS call
+ * itself. Clients are thread-safe and shared by every {@link GcpEncryptor} and {@link GcpDecryptor}; they are shut
+ * down when the JVM exits.
+ */
+final class GcpKmsClients {
+
+    private static final Map<String, KeyManagementServiceClient> CLIENTS = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(GcpKmsClients::closeAll, "gcp-kms-clients"));
+    }
+
+    private GcpKmsClients() {
+    }
+
+    static KeyManagementServiceClient forEndpoint(String endpoint) throws IOException {
+        try {
+            return CLIENTS.computeIfAbsent(endpoint, key -> {
+                try {
+                    return GcpEncryptor.createClient(key);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** Shuts down every pooled client; later calls create new ones. */
+    static void closeAll() {
+        for (String endpoint : CLIENTS.keySet()) {
+            KeyManagementServiceClient client = CLIENTS.remove(endpoint);
+            if (client != null) {
+                client.shutdown();
+                try {
+                    client.awaitTermination(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    client.shutdownNow();
+                }
+            }
+        }
+    }
+}
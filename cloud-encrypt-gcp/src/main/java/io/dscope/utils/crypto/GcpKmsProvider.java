@@ -0,0 +1,25 @@
+package io.dscope.utils.crypto;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link KmsProvider} for Google Cloud KMS.
+ */
+public final class GcpKmsProvider implements KmsProvider {
+
+    @Override
+    public Set<String> names() {
+        return Set.of("gcp");
+    }
+
+    @Override
+    public CloudEncryptor createEncryptor(Map<String, String> config) {
+        return new GcpEncryptor(config);
+    }
+
+    @Override
+    public CloudDecryptor createDecryptor(Map<String, String> config) {
+        return new GcpDecryptor(config);
+    }
+}
@@ -26,6 +26,7 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Base64;
 import java.util.Date;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 
@@ -151,7 +152,7 @@ final class OciSecretStorageService implements CloudSecretStorageService {
     private static VaultsClient createVaultsClient(Map<String, String> settings) throws Exception {
         AuthenticationDetailsProvider provider = OciKmsSupport.authenticationProvider(settings);
         VaultsClient client = VaultsClient.builder().build(provider);
-        Region region = CloudSecretStorageFactory.resolveOciRegion(settings);
+        Region region = resolveRegion(settings);
         if (region != null) {
             client.setRegion(region);
         }
@@ -161,10 +162,18 @@ final class OciSecretStorageService implements CloudSecretStorageService {
     private static SecretsClient createSecretsClient(Map<String, String> settings) throws Exception {
         AuthenticationDetailsProvider provider = OciKmsSupport.authenticationProvider(settings);
         SecretsClient client = SecretsClient.builder().build(provider);
-        Region region = CloudSecretStorageFactory.resolveOciRegion(settings);
+        Region region = resolveRegion(settings);
         if (region != null) {
             client.setRegion(region);
         }
         return client;
     }
+
+    static Region resolveRegion(Map<String, String> settings) {
+        String region = settings != null ? settings.get("region") : null;
+        if (region == null || region.isBlank()) {
+            return null;
+        }
+        return Region.fromRegionId(region.trim().toLowerCase(Locale.ROOT));
+    }
 }
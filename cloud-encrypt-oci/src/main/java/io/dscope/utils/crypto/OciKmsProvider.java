@@ -0,0 +1,25 @@
+package io.dscope.utils.crypto;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link KmsProvider} for OCI Vault keys.
+ */
+public final class OciKmsProvider implements KmsProvider {
+
+    @Override
+    public Set<String> names() {
+        return Set.of("oci");
+    }
+
+    @Override
+    public CloudEncryptor createEncryptor(Map<String, String> config) {
+        return new OciEncryptor(config);
+    }
+
+    @Override
+    public CloudDecryptor createDecryptor(Map<String, String> config) {
+        return new OciDecryptor(config);
+    }
+}
@@ -2,12 +2,14 @@
 set -e
 APP_NAME="cloud-encrypt"
 INSTALL_DIR="$HOME/.local/bin"
-JAR="target/cloud-encrypt-cli-1.3.0-shaded.jar"
+# Set CLOUD_ENCRYPT_PROVIDER=aws|azure|gcp|oci to install a smaller single-provider CLI
+MODULE="cloud-encrypt-cli${CLOUD_ENCRYPT_PROVIDER:+-$CLOUD_ENCRYPT_PROVIDER}"
+JAR="$MODULE/target/$MODULE-1.3.0-shaded.jar"
 
 if ! command -v mvn >/dev/null 2>&1; then echo "Maven not found"; exit 1; fi
 if ! command -v java >/dev/null 2>&1; then echo "Java not found"; exit 1; fi
 
-mvn -q -DskipTests package
+mvn -q -DskipTests -pl "$MODULE" -am package
 mkdir -p "$INSTALL_DIR"
 cp "$JAR" "$INSTALL_DIR/${APP_NAME}.jar"
 
@@ -0,0 +1,72 @@
+#!/usr/bin/env bash
+# Compare CLI start-up of the shaded JVM jar with the GraalVM native executable.
+#
+#   mvn -DskipTests -pl cloud-encrypt-cli-gcp -am package            # JVM jar
+#   mvn -DskipTests -Pnative -pl cloud-encrypt-cli-gcp -am package    # native executable
+#   ./measure-startup.sh [runs]
+#
+# Each scenario runs in a scratch directory that uses the offline local provider, so no cloud credentials or
+# network calls are involved. Uses hyperfine when it is installed, otherwise a plain timing loop.
+set -euo pipefail
+
+RUNS="${1:-20}"
+ROOT="$(cd "$(dirname "$0")" && pwd)"
+JAR="${JAR:-$ROOT/cloud-encrypt-cli-gcp/target/cloud-encrypt-cli-gcp-1.3.0-shaded.jar}"
+NATIVE="${NATIVE:-$ROOT/cloud-encrypt-cli-gcp/target/cloud-encrypt}"
+
+WORK="$(mktemp -d)"
+trap 'rm -rf "$WORK"' EXIT
+cd "$WORK"
+cat > .cloudencrypt.yml <<'YAML'
+provider: local
+autoDetect: false
+kms:
+  keystore: keys.jwk
+  keyId: app
+YAML
+printf 'DB_PASSWORD=changeme\nAPI_TOKEN=abcd\nPORT=8080\n' > app.properties
+
+commands=()
+labels=()
+if [[ -f "$JAR" ]]; then
+  java -jar "$JAR" keygen --key app >/dev/null
+  commands+=("java -jar $JAR")
+  labels+=("jvm")
+else
+  echo "JVM jar not found: $JAR" >&2
+fi
+if [[ -x "$NATIVE" ]]; then
+  [[ -f keys.jwk ]] || "$NATIVE" keygen --key app >/dev/null
+  commands+=("$NATIVE")
+  labels+=("native")
+else
+  echo "Native executable not found: $NATIVE" >&2
+fi
+if [[ ${#commands[@]} -eq 0 ]]; then
+  exit 1
+fi
+
+scenarios=("--version" "--check app.properties" "--dry-run app.properties")
+
+millis() { date +%s%N | cut -b1-13; }
+
+for scenario in "${scenarios[@]}"; do
+  echo "== cloud-encrypt $scenario"
+  if command -v hyperfine >/dev/null 2>&1; then
+    args=()
+    for i in "${!commands[@]}"; do
+      args+=(-n "${labels[$i]}" "${commands[$i]} $scenario")
+    done
+    hyperfine --warmup 2 --runs "$RUNS" -i "${args[@]}"
+  else
+    for i in "${!commands[@]}"; do
+      ${commands[$i]} $scenario >/dev/null 2>&1 || true
+      start=$(millis)
+      for ((run = 0; run < RUNS; run++)); do
+        ${commands[$i]} $scenario >/dev/null 2>&1 || true
+      done
+      end=$(millis)
+      echo "${labels[$i]}: $(( (end - start) / RUNS )) ms/run over $RUNS runs"
+    done
+  fi
+done